@@ -0,0 +1,38 @@
+package com.ripple.topology.benchmarks;
+
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Topology;
+import com.ripple.topology.elements.AbstractPropertiesAwareResource;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Resource with properties and variables, standing in for the Resources of real Topologies.  Starting and stopping
+ * it does nothing, so that only the Topology's own overhead is measured.
+ *
+ * @author jfulton
+ */
+public class BenchmarkResource extends AbstractPropertiesAwareResource<BenchmarkResource> implements Lifecycle {
+
+    public BenchmarkResource() {
+        super("");
+    }
+
+    public BenchmarkResource(final String key) {
+        super(key);
+    }
+
+    public BenchmarkResource addProperty(final String key, final String value) {
+        getProperties().put(key, value);
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<Void> start(final Topology topology) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> stop(final Topology topology) {
+        return CompletableFuture.completedFuture(null);
+    }
+}
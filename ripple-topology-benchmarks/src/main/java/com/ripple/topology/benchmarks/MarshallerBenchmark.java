@@ -0,0 +1,53 @@
+package com.ripple.topology.benchmarks;
+
+import com.ripple.topology.Topology;
+import com.ripple.topology.benchmarks.TopologyGenerator.Size;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creating a {@link TopologyMarshaller}, which scans the classpath for Elements, and reading YAML Topologies.
+ *
+ * @author jfulton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarshallerBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    private Size size;
+
+    private TopologyMarshaller marshaller;
+    private String yaml;
+
+    @Setup
+    public void setUp() {
+        marshaller = TopologyMarshaller.forYaml();
+        yaml = marshaller.writeAsString(new TopologyGenerator().setSize(size).generate());
+    }
+
+    @Benchmark
+    public TopologyMarshaller forYaml() {
+        return TopologyMarshaller.forYaml();
+    }
+
+    @Benchmark
+    public Topology read() {
+        return marshaller.read(yaml);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ripple.topology.benchmarks;
+
+import com.ripple.topology.utils.ObservableList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adding to and removing from an {@link ObservableList} holding the given number of items, with listeners.
+ *
+ * @author jfulton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObservableListBenchmark {
+
+    @Param({"10", "10000"})
+    private int size;
+
+    @Param({"1", "4"})
+    private int listeners;
+
+    private ObservableList<Integer> list;
+    private final LongAdder events = new LongAdder();
+
+    @Setup
+    public void setUp() {
+        list = new ObservableList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        for (int i = 0; i < listeners; i++) {
+            list.onAdd(item -> events.increment());
+            list.onRemove(item -> events.increment());
+        }
+    }
+
+    @Benchmark
+    public ObservableList<Integer> addAndRemoveLast() {
+        list.add(-1);
+        list.remove(list.size() - 1);
+        return list;
+    }
+
+    @Benchmark
+    public ObservableList<Integer> addAndRemoveObject() {
+        final Integer item = -1;
+        list.add(item);
+        list.remove(item);
+        return list;
+    }
+}
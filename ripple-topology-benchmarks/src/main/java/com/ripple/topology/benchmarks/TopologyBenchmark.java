@@ -0,0 +1,90 @@
+package com.ripple.topology.benchmarks;
+
+import com.ripple.topology.Element;
+import com.ripple.topology.Resource;
+import com.ripple.topology.Topology;
+import com.ripple.topology.elements.PropertiesAwareResource;
+import com.ripple.topology.elements.PropertiesConfigurer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Variable substitution, Element lookup and Appliers against Topologies with the given number of Resources.
+ *
+ * @author jfulton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopologyBenchmark {
+
+    @Param({"100", "5000"})
+    private int resources;
+
+    @Param({"50"})
+    private int depth;
+
+    private Topology flat;
+    private Topology deep;
+    private BenchmarkResource last;
+    private PropertiesConfigurer configurer;
+
+    @Setup
+    public void setUp() {
+        flat = new TopologyGenerator().setResources(resources).generate();
+        deep = new TopologyGenerator().setResources(resources).setDepth(depth).generate();
+        last = flat.getResource(TopologyGenerator.key(resources - 1), BenchmarkResource.class);
+        configurer = new PropertiesConfigurer().setApplyToKeysStartingWith(TopologyGenerator.KEY_PREFIX)
+            .addProperty("configured", "true");
+    }
+
+    /**
+     * Substitutes the variables of the last Resource, which refers to the first.  Substitution replaces the Resource's
+     * properties, so the same templates are resolved every time.
+     */
+    @Benchmark
+    public BenchmarkResource substituteVariables() {
+        last.addProperty(TopologyGenerator.REFERENCE, "${" + TopologyGenerator.key(0) + ".key}");
+        flat.substituteVariables(last);
+        return last;
+    }
+
+    @Benchmark
+    public List<Resource> getElementsOnDeepTree() {
+        return deep.getElements(Resource.class, resource -> resource.getKey().endsWith("7"));
+    }
+
+    @Benchmark
+    public List<Element> getAllElementsOnDeepTree() {
+        return deep.getElements(Element.class);
+    }
+
+    /**
+     * Applies properties to every Resource.  Resources keep properties they already have, so repeated runs measure
+     * matching and lookup rather than growth.
+     */
+    @Benchmark
+    public PropertiesConfigurer configureApplier() {
+        configurer.configure(flat);
+        return configurer;
+    }
+
+    @Benchmark
+    public List<PropertiesAwareResource> getElementsByType() {
+        return flat.getElements(PropertiesAwareResource.class);
+    }
+}
@@ -0,0 +1,154 @@
+package com.ripple.topology.benchmarks;
+
+import com.ripple.topology.Element;
+import com.ripple.topology.Topology;
+import com.ripple.topology.elements.AbstractElementGroup;
+import com.ripple.topology.elements.ParallelElementGroup;
+import com.ripple.topology.elements.SerialElementGroup;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic Topologies of {@link BenchmarkResource}s, to measure how Topologies behave as they grow.
+ * <p>
+ * Resources are placed in groups of {@link #getGroupSize() groupSize}, which are in turn placed in groups of the same
+ * size, until groups are nested {@link #getDepth() depth} levels deep.  Each group is parallel with the probability
+ * {@link #getParallelRatio() parallelRatio}, and serial otherwise.  Every Resource has a property referring to a
+ * Topology variable, and refers to the key of a Resource generated before it with the probability
+ * {@link #getReferenceDensity() referenceDensity}.  Generation is repeatable for a given {@link #getSeed() seed}.
+ *
+ * @author jfulton
+ */
+public class TopologyGenerator {
+
+    public static final String KEY_PREFIX = "resource-";
+    public static final String REFERENCE = "reference";
+
+    public enum Size {
+        SMALL(10), MEDIUM(200), HUGE(5000);
+
+        private final int resources;
+
+        Size(final int resources) {
+            this.resources = resources;
+        }
+
+        public int getResources() {
+            return resources;
+        }
+    }
+
+    private int resources = 100;
+    private int depth = 1;
+    private int groupSize = 10;
+    private double parallelRatio = 0.5;
+    private double referenceDensity = 0.5;
+    private long seed = 1;
+
+    public Topology generate() {
+        final Topology topology = new Topology().addVariable("environment", "benchmark");
+        for (Element element : generateElements()) {
+            topology.addElement(element);
+        }
+        return topology;
+    }
+
+    /**
+     * @return the top-level Elements of a Topology, for adding to a Topology with an {@code environment} variable
+     */
+    public List<Element> generateElements() {
+        final Random random = new Random(seed);
+        List<Element> level = new ArrayList<>(resources);
+        for (int i = 0; i < resources; i++) {
+            final BenchmarkResource resource = new BenchmarkResource(key(i))
+                .addProperty("environment", "${environment}")
+                .addProperty("index", String.valueOf(i));
+            if (i > 0 && random.nextDouble() < referenceDensity) {
+                resource.addProperty(REFERENCE, "${" + key(random.nextInt(i)) + ".key}");
+            }
+            level.add(resource);
+        }
+        for (int i = 0; i < depth; i++) {
+            final List<Element> groups = new ArrayList<>(level.size() / groupSize + 1);
+            for (int start = 0; start < level.size(); start += groupSize) {
+                final AbstractElementGroup<?> group = random.nextDouble() < parallelRatio
+                    ? new ParallelElementGroup() : new SerialElementGroup();
+                group.getElements().addAll(level.subList(start, Math.min(start + groupSize, level.size())));
+                groups.add(group);
+            }
+            level = groups;
+        }
+        return level;
+    }
+
+    public String generateYaml() {
+        return TopologyMarshaller.forYaml().writeAsString(generate());
+    }
+
+    public static String key(final int index) {
+        return KEY_PREFIX + index;
+    }
+
+    public int getResources() {
+        return resources;
+    }
+
+    public TopologyGenerator setResources(final int resources) {
+        this.resources = resources;
+        return this;
+    }
+
+    public TopologyGenerator setSize(final Size size) {
+        return setResources(size.getResources());
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public TopologyGenerator setDepth(final int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    public int getGroupSize() {
+        return groupSize;
+    }
+
+    public TopologyGenerator setGroupSize(final int groupSize) {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("groupSize must be positive");
+        }
+        this.groupSize = groupSize;
+        return this;
+    }
+
+    public double getParallelRatio() {
+        return parallelRatio;
+    }
+
+    public TopologyGenerator setParallelRatio(final double parallelRatio) {
+        this.parallelRatio = parallelRatio;
+        return this;
+    }
+
+    public double getReferenceDensity() {
+        return referenceDensity;
+    }
+
+    public TopologyGenerator setReferenceDensity(final double referenceDensity) {
+        this.referenceDensity = referenceDensity;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public TopologyGenerator setSeed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+}
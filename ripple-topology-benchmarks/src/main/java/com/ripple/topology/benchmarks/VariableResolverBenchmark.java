@@ -0,0 +1,66 @@
+package com.ripple.topology.benchmarks;
+
+import com.ripple.topology.VariableResolver;
+import com.ripple.topology.variables.VelocityVariableResolver;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link VelocityVariableResolver} operations, against a context holding the given number of variables.
+ *
+ * @author jfulton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariableResolverBenchmark {
+
+    @Param({"10", "1000"})
+    private int variables;
+
+    private VariableResolver resolver;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        resolver = new VelocityVariableResolver();
+        for (int i = 0; i < variables; i++) {
+            resolver.put(TopologyGenerator.key(i), new BenchmarkResource(TopologyGenerator.key(i)));
+        }
+        resolver.put("environment", "benchmark");
+    }
+
+    @Benchmark
+    public String resolve() {
+        return resolver.resolve("jdbc:postgresql://${resource-0.key}:5432/${environment}");
+    }
+
+    @Benchmark
+    public String resolvePlain() {
+        return resolver.resolve("jdbc:postgresql://localhost:5432/benchmark");
+    }
+
+    @Benchmark
+    public VariableResolver put() {
+        resolver.put("counter", counter++);
+        return resolver;
+    }
+
+    @Benchmark
+    public VariableResolver cloneResolver() {
+        return resolver.clone();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ripple.topology.benchmarks;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.ripple.topology.Element;
+import com.ripple.topology.Topology;
+import com.ripple.topology.elements.ParallelElementGroup;
+import com.ripple.topology.elements.SerialElementGroup;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Checks that the cost of loading, registering, substituting, starting and stopping Topologies grows roughly linearly
+ * with their size, by comparing a Topology with eight times as many Resources as another.  Linear growth takes about
+ * eight times as long, and quadratic growth about 64 times as long, so the allowed ratio of 32 leaves room for noise
+ * and cache effects while still catching quadratic behaviour.  Each operation's fastest run is compared.
+ * <p>
+ * Timings and memory use depend on the machine and its load, so those tests are in the {@value #SCALE} group, which
+ * only runs with {@code mvn verify -Pscale}.
+ *
+ * @author jfulton
+ */
+public class ScaleTest {
+
+    static final String SCALE = "scale";
+    private static final Logger logger = LoggerFactory.getLogger(ScaleTest.class);
+    private static final int SMALL = 1000;
+    private static final int LARGE = SMALL * 8;
+    private static final double MAX_RATIO = 8 * 4;
+    private static final int RUNS = 5;
+    private static final long BYTES_PER_RESOURCE_BUDGET = 4 * 1024;
+
+    private final TopologyMarshaller marshaller = TopologyMarshaller.forYaml();
+
+    @Test
+    public void testGenerator() {
+        TopologyGenerator generator = new TopologyGenerator().setResources(95).setGroupSize(10).setDepth(2)
+            .setParallelRatio(1).setReferenceDensity(1);
+        Topology topology = generator.generate();
+
+        assertThat(topology.getElements().size(), is(1));
+        assertThat(topology.getElements(ParallelElementGroup.class).size(), is(10 + 1));
+        assertThat(topology.getElements(SerialElementGroup.class).size(), is(0));
+        assertThat(topology.getElements(BenchmarkResource.class).size(), is(95));
+        assertThat(topology.getResource(TopologyGenerator.key(94), BenchmarkResource.class).getProperties()
+            .containsKey(TopologyGenerator.REFERENCE), is(true));
+
+        Topology read = marshaller.read(generator.generateYaml());
+        assertThat(read.getElements(BenchmarkResource.class).size(), is(95));
+        assertThat(read.getResource(TopologyGenerator.key(94), BenchmarkResource.class).getProperties(),
+            is(topology.getResource(TopologyGenerator.key(94), BenchmarkResource.class).getProperties()));
+    }
+
+    @Test(groups = SCALE)
+    public void testLoad() {
+        assertLinear("load", size -> generator(size).generateYaml(), marshaller::read);
+    }
+
+    @Test(groups = SCALE)
+    public void testRegistration() {
+        assertLinear("registration", size -> generator(size).generateElements(), elements -> {
+            Topology topology = new Topology().addVariable("environment", "scale");
+            for (Element element : elements) {
+                topology.addElement(element);
+            }
+        });
+    }
+
+    @Test(groups = SCALE)
+    public void testSubstitution() {
+        assertLinear("substitution", size -> generator(size).generate(), topology -> {
+            for (BenchmarkResource resource : topology.getElements(BenchmarkResource.class)) {
+                topology.substituteVariables(resource);
+            }
+        });
+    }
+
+    @Test(groups = SCALE)
+    public void testStartAndStop() {
+        assertLinear("start and stop", size -> generator(size).generate(), topology -> {
+            topology.startSync();
+            topology.stopSync();
+        });
+    }
+
+    @Test(groups = SCALE)
+    public void testMemory() {
+        long before = usedMemory();
+        Topology topology = generator(LARGE).generate();
+        long used = usedMemory() - before;
+        logger.info("A Topology of {} Resources uses {} bytes per Resource", LARGE, used / LARGE);
+        assertThat(topology.getElements(BenchmarkResource.class).size(), is(LARGE));
+        assertThat(used, lessThan(BYTES_PER_RESOURCE_BUDGET * LARGE));
+    }
+
+    private static TopologyGenerator generator(final int resources) {
+        return new TopologyGenerator().setResources(resources).setDepth(2);
+    }
+
+    private static <T> void assertLinear(final String name, final IntFunction<T> setup, final Consumer<T> operation) {
+        // Warm up, so that the small Topology isn't measured before the JIT has compiled anything
+        fastest(() -> setup.apply(SMALL), operation);
+        final long small = fastest(() -> setup.apply(SMALL), operation);
+        final long large = fastest(() -> setup.apply(LARGE), operation);
+        final double ratio = (double) large / Math.max(small, 1);
+        final String summary = String.format("%s: %d Resources took %d ms, %d Resources took %d ms, a ratio of %.1f",
+            name, SMALL, small / 1_000_000, LARGE, large / 1_000_000, ratio);
+        logger.info(summary);
+        assertThat(summary, ratio, lessThanOrEqualTo(MAX_RATIO));
+    }
+
+    private static <T> long fastest(final Supplier<T> setup, final Consumer<T> operation) {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            final T subject = setup.get();
+            // Collect the setup's garbage, so that collecting it isn't measured
+            System.gc();
+            final long start = System.nanoTime();
+            operation.accept(subject);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,15 @@
+package com.ripple.topology;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking {@link HealthCheck}.  Implementations should return promptly, completing the future once the probe
+ * finishes, so that any number of checks can be waited for without holding a thread each.
+ *
+ * @author jfulton
+ * @see com.ripple.topology.utils.HealthEngine
+ */
+public interface AsyncHealthCheck extends Element {
+
+    CompletableFuture<Boolean> isHealthyAsync();
+}
@@ -0,0 +1,33 @@
+package com.ripple.topology;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A {@link Lifecycle} Element that starts and stops within a named {@link com.ripple.topology.scheduling.Bulkhead
+ * Bulkhead}, such as {@code nomad} or {@code aws}, limiting how many Elements call the same backend at once.  The
+ * limit of each Bulkhead is set on the Topology; see {@link Topology#getBulkheads()}.  Elements in a Bulkhead without a
+ * limit aren't limited.
+ * <p>
+ * Each type of Element belongs to its {@link #getDefaultBulkhead() default} Bulkhead, such as {@code aws} for every
+ * Element calling AWS, unless it's assigned another in YAML, such as a Bulkhead for each database.
+ * <p>
+ * A group should not share a Bulkhead with the Elements it contains, as it holds its permit while they start.
+ *
+ * @author jfulton
+ */
+public interface BulkheadAware extends Element {
+
+    /**
+     * @return the name of the Bulkhead the Element was assigned to, or null if it belongs to its default one
+     */
+    String getBulkhead();
+
+    /**
+     * @return the name of the Bulkhead the Element belongs to unless it's assigned another, or null if it doesn't
+     * belong to one by default
+     */
+    @JsonIgnore
+    default String getDefaultBulkhead() {
+        return null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.ripple.topology;
+
+import java.util.List;
+
+/**
+ * An {@link Element} that may declare explicit dependencies on other Resources, by key, in addition to the ones that
+ * are derived from its variable references.
+ * <p>
+ * When a {@link Topology} schedules by dependencies, a {@link Lifecycle} Element that does not implement this interface
+ * is treated as opaque, and keeps its declared position relative to every other Element.
+ *
+ * @author jfulton
+ */
+public interface DependencyAware extends Element {
+
+    List<String> getDependsOn();
+}
@@ -0,0 +1,213 @@
+package com.ripple.topology;
+
+import com.ripple.topology.utils.ObservableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Indexes every {@link Element} in a {@link Topology} by each of its classes and interfaces, and by its parent
+ * {@link ElementGroup}, so that type queries cost O(results) rather than a walk of the whole element tree.
+ * <p>
+ * A Topology maintains its index from its own add and remove listeners, while a {@link #tracking(ObservableList)
+ * tracking} index, such as an element group's, registers listeners on the tree itself.  Query results are returned in
+ * the same depth-first declaration order as a walk of the tree; that order is recomputed lazily after the tree changes,
+ * including when a list in the tree is sorted.
+ *
+ * @author jfulton
+ */
+public class ElementIndex {
+
+    private static final ClassValue<List<Class<?>>> supertypes = new ClassValue<List<Class<?>>>() {
+        @Override
+        protected List<Class<?>> computeValue(final Class<?> type) {
+            final Set<Class<?>> results = new LinkedHashSet<>();
+            collectSupertypes(type, results);
+            return new ArrayList<>(results);
+        }
+    };
+
+    private final List<Element> roots;
+    private final Map<Class<?>, Set<Element>> byType = new HashMap<>();
+    private final Map<Element, ElementGroup<?>> parents = new IdentityHashMap<>();
+    private final Map<Class<?>, List<Element>> ordered = new HashMap<>();
+    private final Map<ElementGroup<?>, Listeners> tracked = new IdentityHashMap<>();
+    private Map<Element, Integer> positions;
+
+    /**
+     * @param roots the top-level Elements, whose order determines the order of query results
+     */
+    public ElementIndex(final List<Element> roots) {
+        this.roots = roots;
+    }
+
+    /**
+     * @return an index of the given Elements and all their descendants, kept up to date by listeners on every list in
+     * the tree
+     */
+    public static ElementIndex tracking(final ObservableList<Element> roots) {
+        final ElementIndex index = new ElementIndex(roots);
+        synchronized (index) {
+            index.track(roots, null);
+        }
+        return index;
+    }
+
+    public synchronized void add(final Element element, final ElementGroup<?> parent) {
+        for (Class<?> type : supertypes.get(element.getClass())) {
+            byType.computeIfAbsent(type, t -> Collections.newSetFromMap(new IdentityHashMap<>())).add(element);
+        }
+        if (parent != null) {
+            parents.put(element, parent);
+        }
+        changed();
+    }
+
+    public synchronized void remove(final Element element) {
+        for (Class<?> type : supertypes.get(element.getClass())) {
+            final Set<Element> elements = byType.get(type);
+            if (elements != null) {
+                elements.remove(element);
+            }
+        }
+        parents.remove(element);
+        changed();
+    }
+
+    /**
+     * @return every indexed Element assignable to the given type, in declaration order
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends Element> List<T> getElements(final Class<T> type) {
+        List<Element> results = ordered.get(type);
+        if (results == null) {
+            final Set<Element> elements = byType.get(type);
+            if (elements == null || elements.isEmpty()) {
+                results = Collections.emptyList();
+            } else {
+                final Map<Element, Integer> order = positions();
+                results = new ArrayList<>(elements);
+                results.sort(Comparator.comparingInt(element -> order.getOrDefault(element, Integer.MAX_VALUE)));
+            }
+            ordered.put(type, results);
+        }
+        return (List<T>) Collections.unmodifiableList(results);
+    }
+
+    /**
+     * @return the ElementGroup directly containing the given Element, or empty if it's a top-level Element
+     */
+    public synchronized Optional<ElementGroup<?>> getParent(final Element element) {
+        return Optional.ofNullable(parents.get(element));
+    }
+
+    /**
+     * @return the ElementGroups containing the given Element, outermost first, followed by the Element itself
+     */
+    public synchronized List<Element> getPath(final Element element) {
+        final List<Element> path = new ArrayList<>();
+        for (Element current = element; current != null; current = parents.get(current)) {
+            path.add(current);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Recomputes the order of query results, such as after a list in the tree has been sorted.
+     */
+    public synchronized void invalidate() {
+        changed();
+    }
+
+    private void changed() {
+        positions = null;
+        ordered.clear();
+    }
+
+    private void track(final ObservableList<Element> elements, final ElementGroup<?> parent) {
+        final Listeners listeners = new Listeners(parent);
+        elements.onAdd(listeners.onAdd);
+        elements.onRemove(listeners.onRemove);
+        elements.onSort(listeners.onSort);
+        if (parent != null) {
+            tracked.put(parent, listeners);
+        }
+        for (Element element : elements) {
+            added(element, parent);
+        }
+    }
+
+    private synchronized void added(final Element element, final ElementGroup<?> parent) {
+        add(element, parent);
+        if (element instanceof ElementGroup) {
+            track(((ElementGroup<?>) element).getElements(), (ElementGroup<?>) element);
+        }
+    }
+
+    private synchronized void removed(final Element element) {
+        remove(element);
+        if (element instanceof ElementGroup) {
+            final ObservableList<Element> elements = ((ElementGroup<?>) element).getElements();
+            final Listeners listeners = tracked.remove(element);
+            if (listeners != null) {
+                elements.getOnAddListeners().remove(listeners.onAdd);
+                elements.getOnRemoveListeners().remove(listeners.onRemove);
+                elements.getOnSortListeners().remove(listeners.onSort);
+            }
+            for (Element child : elements) {
+                removed(child);
+            }
+        }
+    }
+
+    private Map<Element, Integer> positions() {
+        if (positions == null) {
+            final Map<Element, Integer> results = new IdentityHashMap<>();
+            number(roots, results);
+            positions = results;
+        }
+        return positions;
+    }
+
+    private static void number(final List<Element> elements, final Map<Element, Integer> results) {
+        for (Element element : elements) {
+            results.putIfAbsent(element, results.size());
+            if (element instanceof ElementGroup) {
+                number(((ElementGroup<?>) element).getElements(), results);
+            }
+        }
+    }
+
+    /**
+     * The listeners a tracking index registers on a single list, so they can be removed along with its group.
+     */
+    private final class Listeners {
+        private final Consumer<Element> onAdd;
+        private final Consumer<Element> onRemove;
+        private final Runnable onSort;
+
+        private Listeners(final ElementGroup<?> parent) {
+            this.onAdd = element -> added(element, parent);
+            this.onRemove = ElementIndex.this::removed;
+            this.onSort = ElementIndex.this::invalidate;
+        }
+    }
+
+    private static void collectSupertypes(final Class<?> type, final Set<Class<?>> results) {
+        if (type != null && results.add(type)) {
+            collectSupertypes(type.getSuperclass(), results);
+            for (Class<?> implemented : type.getInterfaces()) {
+                collectSupertypes(implemented, results);
+            }
+        }
+    }
+}
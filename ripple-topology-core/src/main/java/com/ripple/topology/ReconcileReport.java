@@ -0,0 +1,127 @@
+package com.ripple.topology;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What {@link Topology#reconcile(Topology)} changed.  Elements are identified by Resource key, or for Elements that
+ * aren't Resources, by type and the keys of the Resources they contain.
+ *
+ * @author jfulton
+ */
+public class ReconcileReport {
+
+    private final List<String> added = new ArrayList<>();
+    private final List<String> removed = new ArrayList<>();
+    private final List<String> changed = new ArrayList<>();
+    private final List<String> dependents = new ArrayList<>();
+    private final List<String> unchanged = new ArrayList<>();
+    private boolean variablesChanged;
+    private boolean failed;
+    private Duration duration = Duration.ZERO;
+
+    /**
+     * @return Elements that were only in the desired Topology, and were started
+     */
+    public List<String> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * @return Elements that were only in the running Topology, and were stopped
+     */
+    public List<String> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @return Elements whose configuration changed, and were restarted
+     */
+    public List<String> getChanged() {
+        return Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * @return unchanged Elements that were restarted because they depend on an added or changed Element
+     */
+    public List<String> getDependents() {
+        return Collections.unmodifiableList(dependents);
+    }
+
+    /**
+     * @return Elements that were left running
+     */
+    public List<String> getUnchanged() {
+        return Collections.unmodifiableList(unchanged);
+    }
+
+    /**
+     * @return whether the Topology's variables changed, in which case every Element is considered changed
+     */
+    public boolean isVariablesChanged() {
+        return variablesChanged;
+    }
+
+    /**
+     * @return whether an Element failed to start, in which case the remaining Elements weren't started
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public boolean hasChanges() {
+        return !(added.isEmpty() && removed.isEmpty() && changed.isEmpty() && dependents.isEmpty());
+    }
+
+    void added(final String id) {
+        added.add(id);
+    }
+
+    void removed(final String id) {
+        removed.add(id);
+    }
+
+    void changed(final String id) {
+        changed.add(id);
+    }
+
+    void dependent(final String id) {
+        dependents.add(id);
+    }
+
+    void unchanged(final String id) {
+        unchanged.add(id);
+    }
+
+    void setVariablesChanged(final boolean variablesChanged) {
+        this.variablesChanged = variablesChanged;
+    }
+
+    void setFailed(final boolean failed) {
+        this.failed = failed;
+    }
+
+    void setDuration(final Duration duration) {
+        this.duration = duration;
+    }
+
+    @Override
+    public String toString() {
+        if (!hasChanges()) {
+            return "Topology unchanged (" + unchanged.size() + " element(s))";
+        }
+        return "Topology reconciled in " + duration.toMillis() + " ms" + (failed ? " with failures" : "")
+            + ": added=" + added
+            + ", removed=" + removed
+            + ", changed=" + changed
+            + ", restarted dependents=" + dependents
+            + ", unchanged=" + unchanged.size()
+            + (variablesChanged ? " (variables changed)" : "");
+    }
+}
@@ -0,0 +1,217 @@
+package com.ripple.topology;
+
+import com.google.common.collect.Sets;
+import com.ripple.topology.scheduling.DependencyGraph;
+import com.ripple.topology.scheduling.DependencyStopper;
+import com.ripple.topology.scheduling.StopReport;
+import com.ripple.topology.variables.VariableUtils;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Diffs a running {@link Topology} against a desired one, by top-level Element identity and spec hash, and applies the
+ * difference.
+ *
+ * @author jfulton
+ */
+class Reconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(Reconciler.class);
+    private final Topology topology;
+
+    Reconciler(final Topology topology) {
+        this.topology = topology;
+    }
+
+    ReconcileReport reconcile(final Topology desired) {
+        final long start = System.nanoTime();
+        final ReconcileReport report = new ReconcileReport();
+
+        if (desired.isAllowSystemPropertyOverrides()) {
+            VariableUtils.overrideFromSystemProperties(desired.getVariables(), "global variable");
+        }
+        final Set<String> changedVariables = changedVariables(topology.getVariables(), desired.getVariables());
+        final boolean variablesChanged = !changedVariables.isEmpty();
+        report.setVariablesChanged(variablesChanged);
+
+        final Map<String, Element> current = identify(topology.getElements());
+        final Map<String, Element> wanted = identify(desired.getElements());
+        final DependencyGraph graph = DependencyGraph.of(desired);
+
+        // Hash the desired Elements before anything substitutes their variables.  Elements are changed by a new spec,
+        // or by a change to a variable they refer to.
+        final Set<Element> restart = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entry<String, Element> pair : wanted.entrySet()) {
+            final Element running = current.get(pair.getKey());
+            if (running == null) {
+                report.added(pair.getKey());
+                restart.add(pair.getValue());
+            } else if (!desired.specHash(pair.getValue()).equals(topology.specHash(running))
+                || variablesChanged && graph.references(pair.getValue(), changedVariables)) {
+                report.changed(pair.getKey());
+                restart.add(pair.getValue());
+            }
+        }
+
+        // Anything depending on an added or changed Element must be restarted too
+        final Deque<Element> pending = new ArrayDeque<>(restart);
+        while (!pending.isEmpty()) {
+            for (Element dependent : graph.getDependents(pending.pop())) {
+                if (restart.add(dependent)) {
+                    pending.push(dependent);
+                }
+            }
+        }
+
+        final List<Element> target = new ArrayList<>();
+        final Set<Element> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entry<String, Element> pair : wanted.entrySet()) {
+            final Element element = pair.getValue();
+            if (restart.contains(element)) {
+                if (current.containsKey(pair.getKey()) && !report.getChanged().contains(pair.getKey())) {
+                    report.dependent(pair.getKey());
+                }
+                target.add(element);
+            } else {
+                report.unchanged(pair.getKey());
+                final Element running = current.get(pair.getKey());
+                keep.add(running);
+                target.add(running);
+            }
+        }
+        for (String id : current.keySet()) {
+            if (!wanted.containsKey(id)) {
+                report.removed(id);
+            }
+        }
+
+        if (report.hasChanges() || variablesChanged) {
+            stop(current, keep);
+            apply(desired, target, keep);
+            report.setFailed(!start(keep));
+        }
+
+        report.setDuration(Duration.ofNanos(System.nanoTime() - start));
+        logger.info("{}", report);
+        return report;
+    }
+
+    /**
+     * @return the names of the variables that were added, removed or given a new value
+     */
+    private static Set<String> changedVariables(final Map<String, Object> running, final Map<String, Object> desired) {
+        final Map<String, Object> before = new LinkedHashMap<>(running);
+        final Map<String, Object> after = new LinkedHashMap<>(desired);
+        final Set<String> changed = new HashSet<>();
+        for (String name : Sets.union(before.keySet(), after.keySet())) {
+            if (!Objects.equals(before.get(name), after.get(name))) {
+                changed.add(name);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Stops the Elements that aren't kept in the reverse of their dependency order, as the Topology stops, so
+     * independent Elements stop concurrently.
+     */
+    private void stop(final Map<String, Element> current, final Set<Element> keep) {
+        final List<Element> targets = new ArrayList<>();
+        for (Element element : current.values()) {
+            if (!keep.contains(element)) {
+                targets.add(element);
+            }
+        }
+        final StopReport stopped = new DependencyStopper(topology, topology.stopGraph(),
+            topology.stopTimeoutOrDefault(), targets).stop().join();
+        stopped.getFailed().forEach((name, failure) ->
+            logger.error("Error stopping Element while reconciling: {}", name, failure));
+    }
+
+    private void apply(final Topology desired, final List<Element> target, final Set<Element> keep) {
+        // Kept Elements are re-registered below, so hold on to the specs they were started with
+        final Map<Element, String> keptHashes = new IdentityHashMap<>();
+        for (Element element : keep) {
+            keptHashes.put(element, topology.specHash(element));
+        }
+        desired.getElements().removeAll(new ArrayList<>(desired.getElements()));
+        topology.getElements().removeAll(new ArrayList<>(topology.getElements()));
+        topology.getElements().addAll(target);
+        topology.specHashes().putAll(keptHashes);
+
+        synchronized (topology.getVariables()) {
+            topology.getVariables().clear();
+            topology.getVariables().putAll(desired.getVariables());
+        }
+        topology.invalidateVariables();
+    }
+
+    private boolean start(final Set<Element> keep) {
+        for (Element element : topology.getElements()) {
+            if (keep.contains(element)) {
+                continue;
+            }
+            topology.specHash(element);
+            topology.substituteVariables(element);
+            if (element instanceof Lifecycle) {
+                try {
+                    topology.stateStore().ifPresent(s -> s.starting(element));
+                    topology.startElement((Lifecycle) element).join();
+                    topology.stateStore().ifPresent(s -> s.started(element));
+                } catch (Exception ex) {
+                    topology.stateStore().ifPresent(s -> s.failed(element));
+                    logger.error("Error starting Element while reconciling: {}", element, ex);
+                    return false;
+                } finally {
+                    topology.invalidateVariables();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return top-level Elements by identity, in declaration order
+     */
+    static Map<String, Element> identify(final List<Element> elements) {
+        final Map<String, Element> results = new LinkedHashMap<>();
+        final Map<String, Integer> occurrences = new HashMap<>();
+        for (Element element : elements) {
+            String id = id(element);
+            final int occurrence = occurrences.merge(id, 1, Integer::sum);
+            if (occurrence > 1) {
+                id = id + "#" + occurrence;
+            }
+            results.put(id, element);
+        }
+        return results;
+    }
+
+    private static String id(final Element element) {
+        if (element instanceof Resource) {
+            return ((Resource) element).getKey();
+        }
+        final StringJoiner keys = new StringJoiner(",", element.getClass().getSimpleName() + "[", "]");
+        if (element instanceof ElementGroup) {
+            for (Resource resource : ((ElementGroup<?>) element).getElements(Resource.class)) {
+                keys.add(resource.getKey());
+            }
+        }
+        return keys.toString();
+    }
+}
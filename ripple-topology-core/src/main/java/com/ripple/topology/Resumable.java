@@ -0,0 +1,25 @@
+package com.ripple.topology;
+
+import java.util.Map;
+
+/**
+ * A Lifecycle whose started state can be recorded in a Topology's state file, so that a later process can adopt the
+ * resources it created instead of creating them again.
+ *
+ * @author jfulton
+ */
+public interface Resumable extends Lifecycle {
+
+    /**
+     * @return what a later process needs to adopt this Element's resources, such as instance ids and endpoints
+     */
+    Map<String, String> saveState();
+
+    /**
+     * Adopts resources recorded by {@link #saveState()}, after verifying that they're still alive.  Called after the
+     * Element's variables have been substituted, in place of {@link #start(Topology)}.
+     *
+     * @return whether the recorded resources were alive and adopted.  If not, the Element is started normally.
+     */
+    boolean restoreState(Topology topology, Map<String, String> state);
+}
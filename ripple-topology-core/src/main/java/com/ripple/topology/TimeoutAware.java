@@ -0,0 +1,25 @@
+package com.ripple.topology;
+
+import java.time.Duration;
+
+/**
+ * A {@link Lifecycle} Element that may limit how long it takes to start and stop.  Timeouts are written in YAML as
+ * durations such as {@code 90s}, {@code 5m} or {@code PT1H}.
+ * <p>
+ * An Element's timeout only ever shortens the deadline it inherits from the group containing it, or from the
+ * {@link Topology}; see {@link Topology#deadline(Element)}.
+ *
+ * @author jfulton
+ */
+public interface TimeoutAware extends Element {
+
+    /**
+     * @return how long the Element may take to start, or null if it's only bound by its inherited deadline
+     */
+    Duration getStartTimeout();
+
+    /**
+     * @return how long the Element may take to stop, or null if it's only bound by its inherited deadline
+     */
+    Duration getStopTimeout();
+}
@@ -1,18 +1,35 @@
 package com.ripple.topology;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
-import com.google.common.collect.Lists;
 import com.ripple.topology.io.ContentLoader;
 import com.ripple.topology.io.DefaultContentLoader;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import com.ripple.topology.scheduling.Bulkhead;
+import com.ripple.topology.scheduling.DependencyGraph;
+import com.ripple.topology.scheduling.DependencyScheduler;
+import com.ripple.topology.scheduling.DependencyStopper;
+import com.ripple.topology.scheduling.ScheduleReport;
+import com.ripple.topology.scheduling.StartupReport;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import com.ripple.topology.scheduling.StopReport;
+import com.ripple.topology.scheduling.TopologyExecutor;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import com.ripple.topology.utils.Deadline;
 import com.ripple.topology.utils.ObservableList;
+import com.ripple.topology.variables.TopologyVariableContext;
 import com.ripple.topology.variables.VariableUtils;
-import com.ripple.topology.variables.VelocityVariableResolver;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,9 +38,14 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,15 +58,44 @@ import org.slf4j.LoggerFactory;
 public class Topology {
 
     private static final Logger logger = LoggerFactory.getLogger(Topology.class);
+
+    /**
+     * How long {@link #stop()} waits for every Element to stop, unless the Topology has a stop timeout.
+     */
+    public static final Duration DEFAULT_STOP_TIMEOUT = Duration.ofMinutes(10);
+
     private final ContentLoader contentLoader = new DefaultContentLoader();
-    private final Map<String, Resource> resources = new HashMap<>();
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
     private final ObservableList<Element> elements;
-    private final Map<String, Object> variables = new LinkedHashMap<>();
+    private final Map<String, Object> variables = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final TopologyVariableContext variableContext = new TopologyVariableContext();
+    private volatile List<VariableSource<?>> globalVariableSources;
+    private final ElementIndex index;
+    private final Map<ElementGroup, Consumer<Element>> groupAddListeners = Collections
+        .synchronizedMap(new IdentityHashMap<>());
     private final Consumer<Element> addListener = this::registerResources;
     private final Consumer<Element> removeListener = this::deregisterResources;
+    private final Runnable sortListener = this::sorted;
     private boolean allowSystemPropertyOverrides = true;
+    private boolean scheduleByDependencies;
+    private boolean failFast;
+    private Duration startTimeout;
+    private Duration stopTimeout;
+    private final Map<String, Integer> bulkheads = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Bulkhead> activeBulkheads = new ConcurrentHashMap<>();
+    private volatile Deadline deadline = Deadline.none();
+    private final Map<Element, Deadline> deadlines = Collections.synchronizedMap(new IdentityHashMap<>());
+    private volatile TopologyExecutor executor = new TopologyExecutor();
+    private volatile ScheduleReport scheduleReport;
+    private String stateFile;
+    private volatile TopologyStateStore stateStore;
+    private volatile StartupReport startupReport = new StartupReport(this);
+    private volatile Metrics metrics;
+    private Metrics gaugeMetrics;
+    private final Map<Element, String> specHashes = Collections.synchronizedMap(new IdentityHashMap<>());
     private AtomicBoolean failedDuringStartup = new AtomicBoolean(false);
-    private AtomicBoolean shutDown = new AtomicBoolean(false);
+    private final AtomicReference<CompletableFuture<StopReport>> stopping = new AtomicReference<>();
+    private final Map<Class<?>, Object> services = new ConcurrentHashMap<>();
 
     public Topology() {
         this(new ObservableList<>());
@@ -58,7 +109,9 @@ public class Topology {
     protected Topology(@JsonProperty("elements") ObservableList<Element> elements) {
         elements.onAdd(addListener);
         elements.onRemove(removeListener);
+        elements.onSort(sortListener);
         this.elements = elements;
+        this.index = new ElementIndex(elements);
         for (Element element : this.elements) {
             registerResources(element);
         }
@@ -99,21 +152,28 @@ public class Topology {
     }
 
     public <T extends Element> List<T> getElements(Class<T> type, Predicate<T> predicate) {
+        Objects.requireNonNull(predicate, "'predicate' may not be null");
         List<T> results = new ArrayList<>();
-        collect(getElements(), type, results, Objects.requireNonNull(predicate, "'predicate' may not be null"));
+        for (T element : index.getElements(type)) {
+            if (predicate.test(element)) {
+                results.add(element);
+            }
+        }
         return results;
     }
 
-    @SuppressWarnings({"unchecked", "Duplicates"})
-    private <T extends Element> void collect(List<Element> items, Class<T> type, List<T> results, Predicate<T> predicate) {
-        for (Element element : items) {
-            if (type.isAssignableFrom(element.getClass()) && predicate.test((T) element)) {
-                results.add((T) element);
-            }
-            if (element instanceof ElementGroup) {
-                collect(((ElementGroup)element).getElements(), type, results, predicate);
-            }
-        }
+    /**
+     * @return the ElementGroup directly containing the given Element, or empty if it's a top-level Element
+     */
+    public Optional<ElementGroup<?>> getParent(Element element) {
+        return index.getParent(element);
+    }
+
+    /**
+     * @return the ElementGroups containing the given Element, outermost first, followed by the Element itself
+     */
+    public List<Element> getPath(Element element) {
+        return index.getPath(element);
     }
 
     public Map<String, Object> getVariables() {
@@ -135,57 +195,91 @@ public class Topology {
     }
 
     private void registerResources(Element element) {
+        registerResources(element, null);
+    }
+
+    private void registerResources(Element element, ElementGroup parent) {
+        globalVariableSources = null;
+        index.add(element, parent);
         if (element instanceof Resource) {
             Resource resource = (Resource) element;
             resources.put(resource.getKey(), resource);
+            variableContext.putResource(resource);
         }
         if (element instanceof ElementGroup) {
-            ((ElementGroup)element).onAddElement(addListener);
-            ((ElementGroup)element).onRemoveElement(removeListener);
+            // Each group gets its own add listener so that the index knows every Element's parent.  Nested groups are
+            // registered as they're visited below, so listeners are added to each group's own list only.
+            ElementGroup group = (ElementGroup) element;
+            Consumer<Element> groupAddListener = child -> registerResources(child, group);
+            groupAddListeners.put(group, groupAddListener);
+            group.getElements().onAdd(groupAddListener);
+            group.getElements().onRemove(removeListener);
+            group.getElements().onSort(sortListener);
             for (Element u : ((ElementGroup<ElementGroup>) element).getElements()) {
-                registerResources(u);
+                registerResources(u, group);
             }
         }
     }
 
     private void deregisterResources(Element element) {
+        globalVariableSources = null;
+        index.remove(element);
+        specHashes.remove(element);
+        deadlines.remove(element);
         if (element instanceof Resource) {
             Resource resource = (Resource) element;
             resources.remove(resource.getKey());
+            variableContext.removeResource(resource);
         }
         if (element instanceof ElementGroup) {
-            ((ElementGroup)element).getElements().getOnAddListeners().remove(addListener);
+            ((ElementGroup)element).getElements().getOnAddListeners().remove(groupAddListeners.remove(element));
             ((ElementGroup)element).getElements().getOnRemoveListeners().remove(removeListener);
+            ((ElementGroup)element).getElements().getOnSortListeners().remove(sortListener);
             for (Element u : ((ElementGroup<ElementGroup>) element).getElements()) {
                 deregisterResources(u);
             }
         }
     }
 
+    private void sorted() {
+        index.invalidate();
+    }
+
     public void substituteVariables(Element element) {
         if (!(element instanceof VariableResolverAware || element instanceof PropertiesAware || element instanceof
             EnvironmentAware)) {
             return;
         }
 
-        VariableResolver resolver = new VelocityVariableResolver();
+        metrics().timer(MetricNames.VARIABLE_RESOLUTION).time(() -> {
+            // Resources, global VariableSources' variables and Topology variables are maintained incrementally,
+            // rather than being re-resolved for every Element
+            VariableResolver resolver = variableContext.newResolver(globalVariableSources(), getVariables());
 
-        // Make all of the resources available
-        for (Entry<String, Resource> pair : resources.entrySet()) {
-            resolver.put(pair.getKey(), pair.getValue());
-        }
+            substituteVariables(element, resolver);
+        });
+    }
 
-        // Make any GlobalVariableSources' variables available to all Elements, overridable by everything else
-        for (VariableSource source : getElements(VariableSource.class,
-            variableSource -> !(variableSource instanceof ScopedVariableSource))) {
+    /**
+     * Forces global and Topology variables to be re-resolved the next time an Element's variables are substituted.
+     * Variables are re-resolved automatically when Resources are added or removed, when variables change, and after
+     * each top-level Lifecycle starts, but should be invalidated if Resources change state by other means.
+     */
+    public void invalidateVariables() {
+        variableContext.invalidate();
+    }
 
-            resolver.putAll(source.getVariables());
+    private List<VariableSource<?>> globalVariableSources() {
+        List<VariableSource<?>> sources = globalVariableSources;
+        if (sources == null) {
+            sources = new ArrayList<>();
+            for (VariableSource source : getElements(VariableSource.class,
+                variableSource -> !(variableSource instanceof ScopedVariableSource))) {
+                sources.add(source);
+            }
+            globalVariableSources = sources;
         }
-
-        // Make all of the Topology variables available
-        getVariables().forEach(resolver::put);
-
-        substituteVariables(element, resolver);
+        return sources;
     }
 
     public void substituteVariables(Element element, VariableResolver resolver) {
@@ -239,55 +333,502 @@ public class Topology {
         return this;
     }
 
-    public CompletableFuture<Topology> start() {
-        return CompletableFuture.runAsync(() -> {
-            if (isAllowSystemPropertyOverrides()) {
-                VariableUtils.overrideFromSystemProperties(getVariables(), "global variable");
+    /**
+     * @return whether {@link #start()} starts independent top-level Elements concurrently, according to a
+     * {@link DependencyGraph}, instead of strictly in declaration order
+     */
+    public boolean isScheduleByDependencies() {
+        return scheduleByDependencies;
+    }
+
+    public Topology setScheduleByDependencies(final boolean scheduleByDependencies) {
+        this.scheduleByDependencies = scheduleByDependencies;
+        return this;
+    }
+
+    /**
+     * @return whether, as soon as any Element fails to start, the Elements still starting are cancelled by interrupting
+     * them, and every Element already started is stopped, rather than being left running.  Parallel element groups
+     * also fail fast.
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public Topology setFailFast(final boolean failFast) {
+        this.failFast = failFast;
+        return this;
+    }
+
+    /**
+     * @return the total time that {@link #start()} may take to start every Element, or null if unbounded
+     */
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public Topology setStartTimeout(final Duration startTimeout) {
+        this.startTimeout = startTimeout;
+        return this;
+    }
+
+    /**
+     * @return the total time that {@link #stop()} may take to stop every Element, or null to use
+     * {@link #DEFAULT_STOP_TIMEOUT}
+     */
+    public Duration getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public Topology setStopTimeout(final Duration stopTimeout) {
+        this.stopTimeout = stopTimeout;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of Elements that may start or stop at once in each named {@link Bulkhead}, such as
+     * {@code nomad: 4}
+     * @see BulkheadAware
+     */
+    public Map<String, Integer> getBulkheads() {
+        return Collections.unmodifiableMap(bulkheads);
+    }
+
+    public Topology setBulkheads(final Map<String, Integer> bulkheads) {
+        this.bulkheads.clear();
+        bulkheads.forEach(this::addBulkhead);
+        return this;
+    }
+
+    public Topology addBulkhead(final String name, final int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Bulkhead '" + name + "' must allow at least 1 concurrent element");
+        }
+        bulkheads.put(Objects.requireNonNull(name), maxConcurrent);
+        activeBulkheads.remove(name);
+        return this;
+    }
+
+    /**
+     * @return the named Bulkhead, if it has a limit
+     */
+    public Optional<Bulkhead> bulkhead(final String name) {
+        final Integer maxConcurrent = bulkheads.get(name);
+        if (maxConcurrent == null) {
+            return Optional.empty();
+        }
+        return Optional.of(activeBulkheads.computeIfAbsent(name, key -> new Bulkhead(key, maxConcurrent, executor,
+            metrics())));
+    }
+
+    /**
+     * Elements should bound any waiting they do, such as polling remote resources for health, by their deadline.
+     *
+     * @return the deadline by which the Element must finish starting or stopping: the earliest of its own
+     * {@link TimeoutAware} timeout, the deadline of the group containing it, and the Topology's total start or stop
+     * timeout.  Elements that aren't Lifecycles themselves, such as the tasks of a job, share their group's deadline.
+     */
+    public Deadline deadline(Element element) {
+        for (Element current = element; current != null; current = getParent(current).orElse(null)) {
+            final Deadline found = deadlines.get(current);
+            if (found != null) {
+                return found;
+            }
+        }
+        return deadline;
+    }
+
+    /**
+     * Starts a Lifecycle Element within its {@link #deadline(Element) deadline}.  Element groups start their children
+     * through this method, so that deadlines propagate to nested Elements.  {@link BulkheadAware} Elements wait for a
+     * permit from their Bulkhead, within the same deadline.
+     *
+     * @return the Element's start, which completes exceptionally with a {@link TimeoutException} if the Element hasn't
+     * started by its deadline, in which case the start is cancelled
+     */
+    public CompletableFuture<Void> startElement(Lifecycle element) {
+        return withinDeadline(element, element instanceof TimeoutAware ? ((TimeoutAware) element).getStartTimeout()
+            : null, "start", () -> withinBulkhead(element, () -> element.start(this)));
+    }
+
+    /**
+     * Stops a Lifecycle Element within its {@link #deadline(Element) deadline}.
+     *
+     * @see #startElement(Lifecycle)
+     */
+    public CompletableFuture<Void> stopElement(Lifecycle element) {
+        return withinDeadline(element, element instanceof TimeoutAware ? ((TimeoutAware) element).getStopTimeout()
+            : null, "stop", () -> withinBulkhead(element, () -> element.stop(this)));
+    }
+
+    private CompletableFuture<Void> withinBulkhead(Lifecycle element, Supplier<CompletableFuture<Void>> call) {
+        String name = null;
+        if (element instanceof BulkheadAware) {
+            final BulkheadAware aware = (BulkheadAware) element;
+            name = aware.getBulkhead() != null ? aware.getBulkhead() : aware.getDefaultBulkhead();
+        }
+        final Optional<Bulkhead> bulkhead = name != null ? bulkhead(name) : Optional.empty();
+        return bulkhead.map(b -> b.submit(call)).orElseGet(call);
+    }
+
+    // Deadlines recorded while starting no longer apply once stopping begins, and vice versa
+    private void resetDeadline(Duration timeout) {
+        deadline = Deadline.after(timeout);
+        deadlines.clear();
+    }
+
+    private CompletableFuture<Void> withinDeadline(Lifecycle element, Duration timeout, String action,
+        Supplier<CompletableFuture<Void>> call) {
+        final Deadline inherited = getParent(element).map(parent -> deadline((Element) parent)).orElse(deadline);
+        final Deadline current = inherited.limit(timeout);
+        deadlines.put(element, current);
+        final String subject = DependencyGraph.describe(element);
+        if (current.isExpired()) {
+            final CompletableFuture<Void> expired = new CompletableFuture<>();
+            expired.completeExceptionally(new TimeoutException("The deadline passed before " + subject
+                + " could " + action));
+            return expired;
+        }
+        CompletableFuture<Void> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException ex) {
+            // Elements that fail before returning a future fail the same way as those whose future fails
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        return current.enforce(future, subject + " " + action);
+    }
+
+    /**
+     * @return the report of the last dependency-scheduled start, if any
+     */
+    public Optional<ScheduleReport> scheduleReport() {
+        return Optional.ofNullable(scheduleReport);
+    }
+
+    /**
+     * @return the Executor that all lifecycle work in this Topology should run on
+     */
+    public TopologyExecutor getExecutor() {
+        return executor;
+    }
+
+    public Topology setExecutor(final TopologyExecutor executor) {
+        this.executor = Objects.requireNonNull(executor, "'executor' cannot be null");
+        activeBulkheads.clear();
+        return this;
+    }
+
+    /**
+     * @return the path of the file that the progress of {@link #start()} is recorded in, so that a Topology started
+     * again after a failure resumes where it left off, or null if progress isn't recorded
+     * @see TopologyStateStore
+     */
+    public String getStateFile() {
+        return stateFile;
+    }
+
+    public Topology setStateFile(final String stateFile) {
+        this.stateFile = stateFile;
+        return this;
+    }
+
+    /**
+     * @return the store recording this Topology's progress, once started with a {@link #getStateFile() state file}
+     */
+    public Optional<TopologyStateStore> stateStore() {
+        return Optional.ofNullable(stateStore);
+    }
+
+    /**
+     * @return the Metrics that this Topology and its Elements report to, {@link Metrics#global()} unless set
+     */
+    public Metrics metrics() {
+        final Metrics current = metrics;
+        return current != null ? current : Metrics.global();
+    }
+
+    @JsonIgnore
+    public Topology setMetrics(final Metrics metrics) {
+        synchronized (this) {
+            this.metrics = metrics;
+            if (gaugeMetrics != null) {
+                removeExecutorGauges();
+                registerExecutorGauges();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Reports the depth of the executor's queue and its active tasks, read from whichever executor is set, from when
+     * the Topology starts until it stops.
+     */
+    private synchronized void registerExecutorGauges() {
+        if (gaugeMetrics == null) {
+            gaugeMetrics = metrics();
+            gaugeMetrics.gauge(MetricNames.EXECUTOR_QUEUED, () -> executor.getQueueDepth());
+            gaugeMetrics.gauge(MetricNames.EXECUTOR_ACTIVE, () -> executor.getActiveTasks());
+        }
+    }
+
+    private synchronized void removeExecutorGauges() {
+        if (gaugeMetrics != null) {
+            gaugeMetrics.removeGauge(MetricNames.EXECUTOR_QUEUED);
+            gaugeMetrics.removeGauge(MetricNames.EXECUTOR_ACTIVE);
+            gaugeMetrics = null;
+        }
+    }
+
+    /**
+     * @return the Topology's instance of a service shared by its Elements, such as a pool of API clients, created by
+     * the factory on first use.  Services that are {@link AutoCloseable} are closed once the Topology has stopped.
+     */
+    public <T> T service(final Class<T> type, final Function<Topology, ? extends T> factory) {
+        return type.cast(services.computeIfAbsent(type, key -> Objects.requireNonNull(factory.apply(this))));
+    }
+
+    private void closeServices() {
+        for (Class<?> type : new ArrayList<>(services.keySet())) {
+            final Object service = services.remove(type);
+            if (service instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) service).close();
+                } catch (Exception ex) {
+                    logger.warn("Unable to close {}", service, ex);
+                }
             }
+        }
+    }
+
+    /**
+     * @return the timeline of the current or last start, and of stopping
+     */
+    public StartupReport startupReport() {
+        return startupReport;
+    }
+
+    public CompletableFuture<Topology> start() {
+        startupReport = new StartupReport(this);
+        // A Topology started again can be stopped again
+        stopping.set(null);
+        registerExecutorGauges();
+        resetDeadline(startTimeout);
+        if (isScheduleByDependencies()) {
+            return startByDependencies();
+        }
+        final List<Element> started = new ArrayList<>();
+        return executor.runAsync(() -> {
+            prepareStart();
+            final StartupReport report = startupReport;
+            final Optional<TopologyStateStore> store = stateStore();
+            // Once an Element has to be started again, the Elements after it may depend on it, so aren't resumed
+            boolean resuming = store.isPresent();
             for (Element element : elements) {
+                report.record(element, Phase.SUBSTITUTING);
                 substituteVariables(element);
+                report.record(element, Phase.SUBSTITUTED);
                 if (element instanceof Lifecycle) {
+                    report.record(element, Phase.SUBMITTED);
                     try {
-                        ((Lifecycle) element).start(this).join();
+                        if (resuming && store.get().resume(element)) {
+                            report.record(element, Phase.RESUMED);
+                            started.add(element);
+                            continue;
+                        }
+                        resuming &= !(element instanceof Resumable);
+                        store.ifPresent(s -> s.starting(element));
+                        startElement((Lifecycle) element).join();
+                        started.add(element);
+                        report.record(element, Phase.STARTED);
+                        store.ifPresent(s -> s.started(element));
                     } catch (Exception ex) {
                         failedDuringStartup.set(true);
+                        report.record(element, Phase.FAILED);
+                        store.ifPresent(s -> s.failed(element));
                         logger.error("Error starting topology due to an exception in a Lifecycle: {}", element, ex);
                         break;
+                    } finally {
+                        invalidateVariables();
                     }
                 }
             }
-        }).thenApply(aVoid -> this);
+            logger.info("{}", report.getCriticalPathSummary());
+        }).thenCompose(aVoid -> rollBackIfFailed(started));
+    }
+
+    private CompletableFuture<Topology> startByDependencies() {
+        return executor.supplyAsync(() -> {
+            prepareStart();
+            return new DependencyScheduler(this, DependencyGraph.of(this));
+        }).thenCompose(scheduler -> scheduler.start().thenApply(report -> {
+            scheduleReport = report;
+            if (scheduler.hasFailed()) {
+                failedDuringStartup.set(true);
+            }
+            logger.debug("{}", report);
+            logger.info("{}", startupReport.getCriticalPathSummary());
+            return scheduler.getStarted();
+        })).thenCompose(this::rollBackIfFailed);
+    }
+
+    /**
+     * Stops every Element that started, in parallel, if the Topology {@link #isFailFast() fails fast} and failed to
+     * start.  The Topology is then considered stopped.
+     */
+    private CompletableFuture<Topology> rollBackIfFailed(List<Element> started) {
+        if (!isFailFast() || !hasFailedDuringStartup()) {
+            return CompletableFuture.completedFuture(this);
+        }
+        logger.warn("Topology failed to start, stopping {} element(s) that started", started.size());
+        return stop(stopTimeoutOrDefault(), started).thenApply(report -> this);
+    }
+
+    private void prepareStart() {
+        if (isAllowSystemPropertyOverrides()) {
+            VariableUtils.overrideFromSystemProperties(getVariables(), "global variable");
+        }
+        // Capture each Element's configuration before its variables are substituted, so it can be reconciled later
+        for (Element element : elements) {
+            specHash(element);
+        }
+        if (stateFile != null) {
+            stateStore = new TopologyStateStore(this, Paths.get(stateFile), SpecMarshaller.instance);
+        }
+    }
+
+    /**
+     * @return a hash of the top-level Element's configuration as it was before its variables were first substituted,
+     * used to detect changed Elements when reconciling
+     */
+    public String specHash(Element element) {
+        return specHashes.computeIfAbsent(element, e -> {
+            try {
+                return SpecMarshaller.instance.specHash(e);
+            } catch (RuntimeException ex) {
+                logger.debug("Unable to hash {}, it will always be considered changed", e, ex);
+                return "unhashable@" + Integer.toHexString(System.identityHashCode(e));
+            }
+        });
+    }
+
+    /**
+     * Changes this running Topology to match the desired one, stopping, starting and restarting only the top-level
+     * Elements that were removed, added or changed, and the Elements that depend on them.
+     *
+     * @param desired a Topology that hasn't been started, typically freshly read from YAML.  Its Elements are moved
+     * into this Topology as needed.
+     * @return a report of what changed
+     */
+    public CompletableFuture<ReconcileReport> reconcile(Topology desired) {
+        Objects.requireNonNull(desired, "'desired' cannot be null");
+        stopping.set(null);
+        registerExecutorGauges();
+        return executor.supplyAsync(() -> {
+            // Reconciling is bound by the same total budget as starting
+            resetDeadline(startTimeout);
+            return new Reconciler(this).reconcile(desired);
+        });
+    }
+
+    Map<Element, String> specHashes() {
+        return specHashes;
     }
 
     public Topology startSync() {
         return start().join();
     }
 
-    public CompletableFuture<Void> stop() {
-        if (!shutDown.getAndSet(true)) {
-            final List<Element> reversed = Lists.reverse(elements);
-            return CompletableFuture.runAsync(() -> {
-                for (Element element : reversed) {
-                    if (element instanceof Lifecycle) {
-                        try {
-                            ((Lifecycle) element).stop(this).join();
-                        } catch (Exception ex) {
-                            logger.error("Error shutting stopping Element: {}", element, ex);
-                        }
+    /**
+     * Stops the Topology within its {@link #getStopTimeout() stop timeout}.
+     *
+     * @see #stop(Duration)
+     */
+    public CompletableFuture<StopReport> stop() {
+        return stop(stopTimeoutOrDefault());
+    }
+
+    Duration stopTimeoutOrDefault() {
+        return stopTimeout != null ? stopTimeout : DEFAULT_STOP_TIMEOUT;
+    }
+
+    /**
+     * Stops the top-level Lifecycle Elements in the reverse of their {@link DependencyGraph} order, stopping each
+     * Element once every Element depending on it has stopped, so independent Elements stop concurrently.  Only the
+     * first call after the Topology last started or reconciled stops it; later calls return the same result.
+     *
+     * @param timeout the deadline for stopping every Element
+     * @return a future completing with what stopped, what failed to stop and what didn't stop in time.  Failures are
+     * reported rather than completing the future exceptionally.
+     */
+    public CompletableFuture<StopReport> stop(Duration timeout) {
+        return stop(timeout, null);
+    }
+
+    private CompletableFuture<StopReport> stop(Duration timeout, List<Element> targets) {
+        Objects.requireNonNull(timeout, "'timeout' cannot be null");
+        final CompletableFuture<StopReport> result = new CompletableFuture<>();
+        if (!stopping.compareAndSet(null, result)) {
+            return stopping.get();
+        }
+        resetDeadline(timeout);
+        executor.supplyAsync(this::stopGraph)
+            .thenCompose(graph -> stopInOrder(graph, timeout, targets)
+                .handle((report, throwable) -> {
+                    if (throwable == null) {
+                        return CompletableFuture.completedFuture(report);
                     }
+                    logger.warn("Unable to stop Elements concurrently, stopping them one at a time", throwable);
+                    return stopInOrder(DependencyGraph.sequential(elements),
+                        deadline.remaining().orElse(timeout), targets);
+                })
+                .thenCompose(Function.identity()))
+            .whenComplete((report, throwable) -> {
+                closeServices();
+                removeExecutorGauges();
+                executor.shutdown();
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                    return;
                 }
+                if (report.isSuccessful()) {
+                    logger.info("{}", report);
+                } else {
+                    logger.warn("{}", report);
+                    report.getFailed().forEach((name, failure) -> logger.debug("Error stopping {}", name, failure));
+                }
+                result.complete(report);
             });
+        return result;
+    }
+
+    private CompletableFuture<StopReport> stopInOrder(DependencyGraph graph, Duration timeout, List<Element> targets) {
+        try {
+            return new DependencyStopper(this, graph, timeout, targets != null ? targets : graph.getElements()).stop();
+        } catch (RuntimeException ex) {
+            final CompletableFuture<StopReport> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            return failed;
+        }
+    }
+
+    DependencyGraph stopGraph() {
+        try {
+            return DependencyGraph.of(this);
+        } catch (RuntimeException ex) {
+            logger.warn("Unable to analyze dependencies, stopping Elements one at a time: {}", ex.getMessage());
+            return DependencyGraph.sequential(elements);
         }
-        return CompletableFuture.completedFuture(null);
     }
 
-    public void stopSync() {
-        stop().join();
+    public StopReport stopSync() {
+        return stop().join();
     }
 
     public Topology registerShutdownHook() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (!shutDown.get()) {
+            if (stopping.get() == null) {
                 stopSync();
             }
         }));
@@ -297,4 +838,9 @@ public class Topology {
     public boolean hasFailedDuringStartup() {
         return failedDuringStartup.get();
     }
+
+    // Lazily loads Element subtypes only when the first spec hash or state file is needed
+    private static final class SpecMarshaller {
+        private static final TopologyMarshaller instance = TopologyMarshaller.forYaml();
+    }
 }
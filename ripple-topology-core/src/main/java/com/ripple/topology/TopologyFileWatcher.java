@@ -0,0 +1,124 @@
+package com.ripple.topology;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches a Topology YAML file, and {@link Topology#reconcile(Topology) reconciles} a running Topology with it every
+ * time it changes.  Bursts of changes, such as an editor writing a file in several steps, are coalesced.
+ *
+ * @author jfulton
+ */
+public class TopologyFileWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopologyFileWatcher.class);
+    private static final long DEFAULT_QUIET_PERIOD_MILLIS = 500;
+
+    private final Topology topology;
+    private final Path file;
+    private final TopologyMarshaller marshaller;
+    private final WatchService watchService;
+    private final Thread thread;
+    private Consumer<ReconcileReport> onReconcile = report -> { };
+    private long quietPeriodMillis = DEFAULT_QUIET_PERIOD_MILLIS;
+    private volatile boolean closed;
+
+    public TopologyFileWatcher(final Topology topology, final Path file) throws IOException {
+        this(topology, file, TopologyMarshaller.forYaml());
+    }
+
+    public TopologyFileWatcher(final Topology topology, final Path file, final TopologyMarshaller marshaller)
+        throws IOException {
+        this.topology = Objects.requireNonNull(topology);
+        this.file = Objects.requireNonNull(file).toAbsolutePath();
+        this.marshaller = Objects.requireNonNull(marshaller);
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "topology-watcher-" + this.file.getFileName());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * @param onReconcile called with the report of every reconciliation
+     */
+    public TopologyFileWatcher onReconcile(final Consumer<ReconcileReport> onReconcile) {
+        this.onReconcile = Objects.requireNonNull(onReconcile);
+        return this;
+    }
+
+    public TopologyFileWatcher setQuietPeriodMillis(final long quietPeriodMillis) {
+        this.quietPeriodMillis = quietPeriodMillis;
+        return this;
+    }
+
+    public TopologyFileWatcher start() {
+        thread.start();
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (!closed) {
+                WatchKey key = watchService.take();
+                boolean changed = pollEvents(key);
+                // Wait for the file to settle before reading it
+                while (true) {
+                    key = watchService.poll(quietPeriodMillis, TimeUnit.MILLISECONDS);
+                    if (key == null) {
+                        break;
+                    }
+                    changed |= pollEvents(key);
+                }
+                if (changed) {
+                    reconcile();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            logger.debug("Stopped watching {}", file);
+        }
+    }
+
+    private boolean pollEvents(final WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path && file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reconcile() {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            logger.info("{} changed, reconciling Topology", file);
+            Topology desired = marshaller.read(inputStream);
+            onReconcile.accept(topology.reconcile(desired).join());
+        } catch (Exception ex) {
+            logger.error("Error reconciling Topology with {}", file, ex);
+        }
+    }
+}
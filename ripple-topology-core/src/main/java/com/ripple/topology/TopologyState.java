@@ -0,0 +1,98 @@
+package com.ripple.topology;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The contents of a Topology's state file: how far the top-level Elements got in starting, and what
+ * {@link Resumable} Elements need to adopt the resources they created.
+ *
+ * @author jfulton
+ */
+@JsonInclude(Include.NON_EMPTY)
+public class TopologyState {
+
+    public enum Status {
+        STARTING, STARTED, FAILED
+    }
+
+    private List<ElementState> elements = new ArrayList<>();
+
+    public List<ElementState> getElements() {
+        return elements;
+    }
+
+    public TopologyState setElements(final List<ElementState> elements) {
+        this.elements = Objects.requireNonNull(elements);
+        return this;
+    }
+
+    @JsonInclude(Include.NON_EMPTY)
+    public static class ElementState {
+
+        private String id;
+        private String specHash;
+        private Status status;
+        private Map<String, String> state = new LinkedHashMap<>();
+
+        public ElementState() {
+        }
+
+        public ElementState(final String id) {
+            this.id = Objects.requireNonNull(id);
+        }
+
+        /**
+         * @return the Element's Resource key, or for Elements that aren't Resources, its type and the keys of the
+         * Resources it contains
+         */
+        public String getId() {
+            return id;
+        }
+
+        public ElementState setId(final String id) {
+            this.id = id;
+            return this;
+        }
+
+        /**
+         * @return the hash of the Element's configuration when it was started, so that changed Elements aren't resumed
+         */
+        public String getSpecHash() {
+            return specHash;
+        }
+
+        public ElementState setSpecHash(final String specHash) {
+            this.specHash = specHash;
+            return this;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public ElementState setStatus(final Status status) {
+            this.status = status;
+            return this;
+        }
+
+        public Map<String, String> getState() {
+            return state;
+        }
+
+        public ElementState setState(final Map<String, String> state) {
+            this.state = state != null ? new LinkedHashMap<>(state) : new LinkedHashMap<>();
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return id + " " + status;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ripple.topology;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.ripple.topology.TopologyState.ElementState;
+import com.ripple.topology.TopologyState.Status;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the progress of a Topology's top-level Elements in a state file, rewritten after every transition, so that a
+ * Topology restarted after a failure or crash resumes where it left off.
+ * <p>
+ * When a Topology starts with an existing state file, each {@link Resumable} Element that was recorded as started,
+ * and whose configuration hasn't changed since, is asked to verify and adopt its recorded resources instead of being
+ * started again.  Other Lifecycles are always started, since their effects are typically local to the process.
+ *
+ * @author jfulton
+ */
+public class TopologyStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopologyStateStore.class);
+
+    private final Topology topology;
+    private final Path file;
+    private final TopologyMarshaller marshaller;
+    private final Map<String, ElementState> elements = new LinkedHashMap<>();
+    private volatile Map<Element, String> ids;
+
+    public TopologyStateStore(final Topology topology, final Path file, final TopologyMarshaller marshaller) {
+        this.topology = Objects.requireNonNull(topology);
+        this.file = Objects.requireNonNull(file).toAbsolutePath();
+        this.marshaller = Objects.requireNonNull(marshaller);
+        // IDs depend on the top-level Elements, so are only identified again once they change
+        topology.getElements().onAdd(element -> ids = null);
+        topology.getElements().onRemove(element -> ids = null);
+        topology.getElements().onSort(() -> ids = null);
+        if (Files.exists(this.file)) {
+            load();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Adopts a Resumable Element's recorded resources, if it was started by an earlier process, hasn't changed since,
+     * and its resources are still alive.
+     *
+     * @return whether the Element was resumed, and shouldn't be started
+     */
+    public boolean resume(final Element element) {
+        final String id = id(element);
+        final ElementState recorded;
+        synchronized (this) {
+            recorded = id != null ? elements.get(id) : null;
+        }
+        if (recorded == null || recorded.getStatus() != Status.STARTED || !(element instanceof Resumable)) {
+            return false;
+        }
+        if (!topology.specHash(element).equals(recorded.getSpecHash())) {
+            logger.info("'{}' has changed since it was recorded in {}, starting it again", id, file);
+            return false;
+        }
+
+        boolean alive;
+        try {
+            alive = ((Resumable) element).restoreState(topology, recorded.getState());
+        } catch (RuntimeException ex) {
+            logger.warn("Error verifying '{}' recorded in {}", id, file, ex);
+            alive = false;
+        }
+        if (alive) {
+            logger.info("Resumed '{}' from {}", id, file);
+            started(element);
+        } else {
+            logger.info("'{}' recorded in {} is no longer alive, starting it again", id, file);
+        }
+        return alive;
+    }
+
+    public void starting(final Element element) {
+        record(element, Status.STARTING);
+    }
+
+    public void started(final Element element) {
+        record(element, Status.STARTED);
+    }
+
+    public void failed(final Element element) {
+        record(element, Status.FAILED);
+    }
+
+    /**
+     * Forgets a stopped Element.  Once every Element has been forgotten, the state file is deleted.
+     */
+    public synchronized void stopped(final Element element) {
+        final String id = id(element);
+        if (id != null && elements.remove(id) != null) {
+            write();
+        }
+    }
+
+    private synchronized void record(final Element element, final Status status) {
+        final String id = id(element);
+        if (id == null) {
+            return;
+        }
+        final ElementState state = new ElementState(id)
+            .setSpecHash(topology.specHash(element))
+            .setStatus(status);
+        if (status == Status.STARTED && element instanceof Resumable) {
+            state.setState(((Resumable) element).saveState());
+        }
+        elements.put(id, state);
+        write();
+    }
+
+    private String id(final Element element) {
+        Map<Element, String> current = ids;
+        if (current == null) {
+            current = new IdentityHashMap<>();
+            for (Entry<String, Element> pair : Reconciler.identify(topology.getElements()).entrySet()) {
+                current.put(pair.getValue(), pair.getKey());
+            }
+            ids = current;
+        }
+        return current.get(element);
+    }
+
+    private void load() {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            final TopologyState state = marshaller.readState(inputStream);
+            final Map<String, Element> current = Reconciler.identify(topology.getElements());
+            int started = 0;
+            for (ElementState element : state.getElements()) {
+                if (!current.containsKey(element.getId())) {
+                    logger.warn("'{}' recorded in {} is no longer in the Topology, and won't be stopped",
+                        element.getId(), file);
+                    continue;
+                }
+                elements.put(element.getId(), element);
+                if (element.getStatus() == Status.STARTED) {
+                    started++;
+                }
+            }
+            logger.info("Resuming Topology from {}: {} of {} recorded Element(s) had started", file, started,
+                elements.size());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read Topology state from " + file, e);
+        }
+    }
+
+    private void write() {
+        try {
+            if (elements.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(temp)) {
+                marshaller.writeState(new TopologyState().setElements(new ArrayList<>(elements.values())),
+                    outputStream);
+            }
+            try {
+                Files.move(temp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // The state file is an aid to recovery, so failing to write it shouldn't fail the Topology
+            logger.error("Unable to write Topology state to {}", file, e);
+        }
+    }
+}
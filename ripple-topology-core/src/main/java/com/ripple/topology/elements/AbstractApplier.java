@@ -1,9 +1,14 @@
 package com.ripple.topology.elements;
 
+import com.ripple.topology.DependencyAware;
 import com.ripple.topology.Resource;
 import com.ripple.topology.ScopedVariableSource;
+import com.ripple.topology.TimeoutAware;
 import com.ripple.topology.Topology;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -18,9 +23,13 @@ import java.util.Objects;
  * @author jfulton
  */
 @SuppressWarnings("unchecked")
-public abstract class AbstractApplier<T extends AbstractApplier<T, R>, R extends Resource> implements Configurer, ScopedVariableSource<T> {
+public abstract class AbstractApplier<T extends AbstractApplier<T, R>, R extends Resource>
+    implements Configurer, ScopedVariableSource<T>, DependencyAware, TimeoutAware {
 
     private Map<String, Object> variables = new LinkedHashMap<>();
+    private final List<String> dependsOn = new ArrayList<>();
+    private Duration startTimeout;
+    private Duration stopTimeout;
 
     private Class<R> type;
     private String keyEqualsCriteria;
@@ -44,11 +53,46 @@ public abstract class AbstractApplier<T extends AbstractApplier<T, R>, R extends
 
     public abstract void applyTo(R resource);
 
+    /**
+     * Whether this Applier would apply itself to the given Resource when configured.
+     *
+     * @param resource a candidate Resource
+     * @return true if the Resource is of the Applier's type, and complies with all of its criteria
+     */
+    public boolean appliesTo(Resource resource) {
+        return type.isAssignableFrom(resource.getClass()) && shouldApplyTo(resource);
+    }
+
     @Override
     public Map<String, Object> getVariables() {
         return variables;
     }
 
+    @Override
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    @Override
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public T setStartTimeout(final Duration startTimeout) {
+        this.startTimeout = startTimeout;
+        return (T) this;
+    }
+
+    @Override
+    public Duration getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public T setStopTimeout(final Duration stopTimeout) {
+        this.stopTimeout = stopTimeout;
+        return (T) this;
+    }
+
     public String getApplyToKeyEqualing() {
         return keyEqualsCriteria;
     }
@@ -1,18 +1,86 @@
 package com.ripple.topology.elements;
 
+import com.ripple.topology.DependencyAware;
 import com.ripple.topology.Element;
 import com.ripple.topology.ElementGroup;
+import com.ripple.topology.ElementIndex;
+import com.ripple.topology.TimeoutAware;
 import com.ripple.topology.utils.ObservableList;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
 
 /**
  * @author jfulton
  */
-public abstract class AbstractElementGroup<T extends ElementGroup<T>> implements ElementGroup<T> {
+@SuppressWarnings("unchecked")
+public abstract class AbstractElementGroup<T extends ElementGroup<T>> implements ElementGroup<T>, DependencyAware,
+    TimeoutAware {
 
     private ObservableList<Element> elements = new ObservableList<>();
+    private volatile ElementIndex index;
+    private final List<String> dependsOn = new ArrayList<>();
+    private Duration startTimeout;
+    private Duration stopTimeout;
 
     @Override
     public ObservableList<Element> getElements() {
         return elements;
     }
+
+    /**
+     * Reads an index of this group's descendants, built on first use, rather than walking them.
+     */
+    @Override
+    public <E extends Element> List<E> getElements(final Class<E> type, final Predicate<E> predicate) {
+        Objects.requireNonNull(predicate, "'predicate' may not be null");
+        final List<E> results = new ArrayList<>();
+        for (E element : index().getElements(type)) {
+            if (predicate.test(element)) {
+                results.add(element);
+            }
+        }
+        return results;
+    }
+
+    private ElementIndex index() {
+        ElementIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = ElementIndex.tracking(elements);
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    @Override
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public T setStartTimeout(final Duration startTimeout) {
+        this.startTimeout = startTimeout;
+        return (T) this;
+    }
+
+    @Override
+    public Duration getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public T setStopTimeout(final Duration stopTimeout) {
+        this.stopTimeout = stopTimeout;
+        return (T) this;
+    }
 }
@@ -1,14 +1,18 @@
 package com.ripple.topology.elements;
 
+import com.ripple.topology.DependencyAware;
 import com.ripple.topology.Resource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * @author jfulton
  */
-public abstract class AbstractResource implements Resource {
+public abstract class AbstractResource implements Resource, DependencyAware {
 
     private final String key;
+    private final List<String> dependsOn = new ArrayList<>();
 
     public AbstractResource(final String key) {
         this.key = Objects.requireNonNull(key, "key must not be null");
@@ -18,4 +22,9 @@ public abstract class AbstractResource implements Resource {
     public String getKey() {
         return key;
     }
+
+    @Override
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
 }
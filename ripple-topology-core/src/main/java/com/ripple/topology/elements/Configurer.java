@@ -2,6 +2,7 @@ package com.ripple.topology.elements;
 
 import com.ripple.topology.Lifecycle;
 import com.ripple.topology.Topology;
+import com.ripple.topology.scheduling.StartupReport.Phase;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -13,7 +14,10 @@ public interface Configurer extends Lifecycle {
 
     @Override
     default CompletableFuture<Void> start(final Topology topology) {
-        return CompletableFuture.runAsync(() -> configure(topology));
+        return topology.getExecutor().runAsync(() -> {
+            configure(topology);
+            topology.startupReport().record(this, Phase.CONFIGURED);
+        });
     }
 
     @Override
@@ -7,16 +7,24 @@ import com.ripple.topology.ScopedVariableSource;
 import com.ripple.topology.Topology;
 import com.ripple.topology.VariableResolver;
 import com.ripple.topology.VariableResolverAware;
+import com.ripple.topology.scheduling.Bulkhead;
+import com.ripple.topology.scheduling.StartupReport;
+import com.ripple.topology.scheduling.StartupReport.Phase;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Warning: Topology is NOT threadsafe.  Care should be taken when running things in parallel.  It is generally safe
- * to start up resources in parallel, and perhaps run parallel configurations against remote resources in parallel, but
- * it is generally not safe to manipulate the Topology instance in any way, asynchronously.
+ * Starts all of its Elements concurrently.  The Topology's resources, variables and element lists are safe to read and
+ * modify from parallel Elements, but Elements themselves generally are not: care should be taken that Elements
+ * started in parallel don't modify the same Resources.
  *
  * @author jfulton
  */
@@ -24,36 +32,177 @@ import java.util.concurrent.CompletableFuture;
 public class ParallelElementGroup extends AbstractElementGroup<ParallelElementGroup> implements Lifecycle, ScopedVariableSource<ParallelElementGroup>,
     VariableResolverAware {
 
+    private static final Logger logger = LoggerFactory.getLogger(ParallelElementGroup.class);
+
     private final Map<String, Object> variables = new LinkedHashMap<>();
     private VariableResolver variableResolver;
+    private boolean failFast;
+    private int maxConcurrency;
 
     @Override
     public CompletableFuture<Void> start(final Topology topology) {
         List<CompletableFuture> futures = new ArrayList<>();
         // Only substitute variables based on resources outside this parallel group, making substitution deterministic.
         // We don't want resources within this group depending on each other, with random results.
+        final StartupReport report = topology.startupReport();
         for (Element element : getElements()) {
+            report.record(element, Phase.SUBSTITUTING);
             topology.substituteVariables(element, variableResolver.clone());
+            report.record(element, Phase.SUBSTITUTED);
         }
+        final List<Element> lifecycles = new ArrayList<>();
+        final List<CompletableFuture<Void>> starts = new ArrayList<>();
+        final Optional<Bulkhead> limit = limit(topology);
         for (Element element : getElements()) {
             if (element instanceof Lifecycle) {
-                futures.add(((Lifecycle) element).start(topology));
+                report.record(element, Phase.SUBMITTED);
+                final Supplier<CompletableFuture<Void>> call = () -> topology.startElement((Lifecycle) element);
+                final CompletableFuture<Void> start = limit.map(bulkhead -> bulkhead.submit(call)).orElseGet(call);
+                lifecycles.add(element);
+                starts.add(start);
+                futures.add(report.track(element, start));
             }
         }
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{}));
+        final boolean failFast = isFailFast() || topology.isFailFast();
+        final GroupStart result = new GroupStart(topology, lifecycles, starts, failFast);
+        if (failFast) {
+            for (int i = 0; i < starts.size(); i++) {
+                final Element element = lifecycles.get(i);
+                starts.get(i).whenComplete((aVoid, throwable) -> {
+                    if (throwable != null) {
+                        result.rollBack().ifPresent(stop -> {
+                            logger.warn("{} failed to start, rolling back the parallel group", element);
+                            stop.whenComplete((v, t) -> result.completeExceptionally(throwable));
+                        });
+                    }
+                });
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{})).whenComplete((aVoid, throwable) -> {
+            if (throwable == null) {
+                result.complete(null);
+            } else if (!failFast) {
+                result.completeExceptionally(throwable);
+            }
+        });
+        return result;
     }
 
     @Override
     public CompletableFuture<Void> stop(final Topology topology) {
+        return stop(topology, getElements());
+    }
+
+    private CompletableFuture<Void> stop(final Topology topology, final List<Element> elements) {
         List<CompletableFuture> futures = new ArrayList<>();
-        for (Element element : getElements()) {
+        final StartupReport report = topology.startupReport();
+        final Optional<Bulkhead> limit = limit(topology);
+        for (Element element : elements) {
             if (element instanceof Lifecycle) {
-                futures.add(((Lifecycle) element).stop(topology));
+                report.record(element, Phase.STOPPING);
+                final Supplier<CompletableFuture<Void>> call = () -> topology.stopElement((Lifecycle) element);
+                futures.add(limit.map(bulkhead -> bulkhead.submit(call)).orElseGet(call)
+                    .whenComplete((aVoid, throwable) -> report.record(element, Phase.STOPPED)));
             }
         }
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{}));
     }
 
+    /**
+     * @return whether, as soon as any Element fails to start, the Elements still starting are cancelled by
+     * interrupting them, and the Elements already started are stopped.  Groups also fail fast when their Topology
+     * does.
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public ParallelElementGroup setFailFast(final boolean failFast) {
+        this.failFast = failFast;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of Elements the group starts or stops at once, or 0 if unlimited.  Elements beyond the
+     * limit wait, in order, for one to finish.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public ParallelElementGroup setMaxConcurrency(final int maxConcurrency) {
+        if (maxConcurrency < 0) {
+            throw new IllegalArgumentException("maxConcurrency cannot be negative");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * The start of the group.  Like the futures of {@link com.ripple.topology.scheduling.TopologyExecutor}, cancelling
+     * it cancels the Elements still starting, so cancellation reaches the Elements of nested groups.  When failing
+     * fast, it also stops the Elements that already started, since the group won't be stopped itself.
+     */
+    private final class GroupStart extends CompletableFuture<Void> {
+
+        private final Topology topology;
+        private final List<Element> lifecycles;
+        private final List<CompletableFuture<Void>> starts;
+        private final boolean failFast;
+        private final AtomicBoolean rolledBack = new AtomicBoolean(false);
+
+        private GroupStart(final Topology topology, final List<Element> lifecycles,
+            final List<CompletableFuture<Void>> starts, final boolean failFast) {
+            this.topology = topology;
+            this.lifecycles = lifecycles;
+            this.starts = starts;
+            this.failFast = failFast;
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (failFast) {
+                rollBack();
+            } else {
+                starts.forEach(start -> start.cancel(mayInterruptIfRunning));
+            }
+            return cancelled;
+        }
+
+        /**
+         * Cancels the Elements still starting and, once every start has settled, stops only the Elements whose start
+         * completed normally.  Cancelled Elements may still have been waiting to run, so aren't stopped.
+         *
+         * @return the stopping of the started Elements, or empty if the group is already rolling back
+         */
+        private Optional<CompletableFuture<Void>> rollBack() {
+            if (!rolledBack.compareAndSet(false, true)) {
+                return Optional.empty();
+            }
+            starts.forEach(start -> start.cancel(true));
+            return Optional.of(CompletableFuture.allOf(starts.toArray(new CompletableFuture[]{}))
+                .handle((aVoid, throwable) -> {
+                    final List<Element> started = new ArrayList<>();
+                    for (int i = 0; i < starts.size(); i++) {
+                        if (!starts.get(i).isCompletedExceptionally()) {
+                            started.add(lifecycles.get(i));
+                        }
+                    }
+                    logger.warn("Stopping {} element(s) of the parallel group that started", started.size());
+                    return started;
+                })
+                .thenCompose(started -> stop(topology, started)));
+        }
+    }
+
+    private Optional<Bulkhead> limit(final Topology topology) {
+        if (maxConcurrency == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Bulkhead("parallel", maxConcurrency, topology.getExecutor(), topology.metrics()));
+    }
+
     @Override
     public Map<String, Object> getVariables() {
         return variables;
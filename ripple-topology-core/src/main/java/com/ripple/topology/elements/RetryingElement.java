@@ -0,0 +1,320 @@
+package com.ripple.topology.elements;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.ripple.topology.Element;
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Topology;
+import com.ripple.topology.VariableResolver;
+import com.ripple.topology.VariableResolverAware;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.scheduling.StartupReport;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import com.ripple.topology.utils.Backoff;
+import com.ripple.topology.utils.ObservableList;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps a single {@link Lifecycle} Element, retrying its start with exponential backoff when it fails, so that a
+ * transient failure, such as a refused connection, doesn't fail the whole Topology.  The Element is stopped between
+ * attempts, so each attempt starts from a clean slate.
+ * <pre>
+ * - type: retry
+ *   attempts: 5
+ *   initialDelay: 1s
+ *   maxDelay: 30s
+ *   retryOn:
+ *   - java.net.ConnectException
+ *   element:
+ *     type: nomad-job
+ *     ...
+ * </pre>
+ * Each attempt is bound by the wrapped Element's own start timeout, while all attempts together are bound by this
+ * Element's {@link Topology#deadline(Element) deadline}.  An attempt that times out is retried, but no attempt is made
+ * once the deadline has expired, and cancellations are never retried.
+ *
+ * @author jfulton
+ */
+@JsonTypeName("retry")
+public class RetryingElement extends AbstractElementGroup<RetryingElement> implements Lifecycle,
+    VariableResolverAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryingElement.class);
+
+    public static final int DEFAULT_ATTEMPTS = 3;
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(30);
+    public static final double DEFAULT_JITTER = 0.2;
+
+    private int attempts = DEFAULT_ATTEMPTS;
+    private Duration initialDelay = DEFAULT_INITIAL_DELAY;
+    private Duration maxDelay = DEFAULT_MAX_DELAY;
+    private double multiplier = 2;
+    private double jitter = DEFAULT_JITTER;
+    private final List<String> retryOn = new ArrayList<>();
+    private final List<Class<?>> retryOnTypes = new ArrayList<>();
+    private Predicate<Throwable> retryable = throwable -> true;
+    private VariableResolver variableResolver;
+
+    public RetryingElement() {
+        // Jackson
+    }
+
+    public RetryingElement(final Lifecycle element) {
+        setElement(element);
+    }
+
+    @JsonIgnore
+    @Override
+    public ObservableList<Element> getElements() {
+        return super.getElements();
+    }
+
+    /**
+     * Only a single Element may be wrapped; see {@link #setElement(Element)}.
+     */
+    @Override
+    public RetryingElement addElement(final Element element) {
+        return setElement(element);
+    }
+
+    public Element getElement() {
+        return getElements().isEmpty() ? null : getElements().get(0);
+    }
+
+    public RetryingElement setElement(final Element element) {
+        if (!(element instanceof Lifecycle)) {
+            throw new IllegalArgumentException("Only Lifecycle elements can be retried, not " + element);
+        }
+        if (!getElements().isEmpty()) {
+            getElements().remove(0);
+        }
+        getElements().add(element);
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<Void> start(final Topology topology) {
+        final Lifecycle element = lifecycle();
+        final StartupReport report = topology.startupReport();
+        if (variableResolver != null) {
+            report.record(element, Phase.SUBSTITUTING);
+            topology.substituteVariables(element, variableResolver.clone());
+            report.record(element, Phase.SUBSTITUTED);
+        }
+        return topology.getExecutor().runAsync(() -> {
+            for (int attempt = 1; ; attempt++) {
+                report.record(element, Phase.SUBMITTED);
+                final CompletableFuture<Void> start = topology.startElement(element);
+                try {
+                    report.track(element, start).get();
+                    return;
+                } catch (InterruptedException ex) {
+                    start.cancel(true);
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted while starting " + element);
+                } catch (ExecutionException | CancellationException ex) {
+                    final Throwable cause = unwrap(ex);
+                    if (attempt >= attempts || !isRetryable(cause) || topology.deadline(this).isExpired()) {
+                        throw cause instanceof RuntimeException ? (RuntimeException) cause
+                            : new CompletionException(cause);
+                    }
+                    final Duration delay = topology.deadline(this).cap(backoff().delay(attempt - 1));
+                    logger.warn("{} failed to start on attempt {} of {}, retrying in {} millis", element, attempt,
+                        attempts, delay.toMillis(), cause);
+                    topology.metrics().counter(MetricNames.RETRIES, "kind", "element").increment();
+                    stopQuietly(topology, element);
+                    pause(delay);
+                }
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> stop(final Topology topology) {
+        return topology.stopElement(lifecycle());
+    }
+
+    /**
+     * @return whether a start that failed with the given cause should be retried: cancellations never are, attempts
+     * that timed out always are, and otherwise the cause, or one of its own causes, must be one of the
+     * {@link #getRetryOn() retryOn} types, if any, and satisfy the {@link #setRetryable(Predicate) retryable} predicate
+     */
+    public boolean isRetryable(final Throwable cause) {
+        if (cause instanceof CancellationException || cause instanceof InterruptedException) {
+            return false;
+        }
+        if (cause instanceof TimeoutException) {
+            return true;
+        }
+        if (!retryOnTypes.isEmpty() && !matchesRetryOn(cause)) {
+            return false;
+        }
+        return retryable.test(cause);
+    }
+
+    private boolean matchesRetryOn(final Throwable cause) {
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            for (Class<?> type : retryOnTypes) {
+                if (type.isInstance(current)) {
+                    return true;
+                }
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    public Backoff backoff() {
+        return Backoff.exponential(initialDelay, maxDelay).withMultiplier(multiplier).withJitter(jitter);
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public RetryingElement setAttempts(final int attempts) {
+        if (attempts < 1) {
+            throw new IllegalArgumentException("attempts must be at least 1");
+        }
+        this.attempts = attempts;
+        return this;
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    public RetryingElement setInitialDelay(final Duration initialDelay) {
+        this.initialDelay = Objects.requireNonNull(initialDelay);
+        return this;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public RetryingElement setMaxDelay(final Duration maxDelay) {
+        this.maxDelay = Objects.requireNonNull(maxDelay);
+        return this;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public RetryingElement setMultiplier(final double multiplier) {
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @param jitter the fraction, between 0 and 1, by which each delay may be randomly shortened
+     */
+    public RetryingElement setJitter(final double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * @return the fully qualified names of the exception types that are retried, or empty if all are
+     */
+    public List<String> getRetryOn() {
+        return Collections.unmodifiableList(retryOn);
+    }
+
+    public RetryingElement setRetryOn(final List<String> retryOn) {
+        final List<Class<?>> types = new ArrayList<>();
+        for (String name : retryOn) {
+            types.add(loadThrowable(name));
+        }
+        this.retryOn.clear();
+        this.retryOn.addAll(retryOn);
+        this.retryOnTypes.clear();
+        this.retryOnTypes.addAll(types);
+        return this;
+    }
+
+    public RetryingElement addRetryOn(final Class<? extends Throwable> type) {
+        retryOn.add(type.getName());
+        retryOnTypes.add(type);
+        return this;
+    }
+
+    /**
+     * @param retryable further limits which failures are retried, in addition to {@link #getRetryOn() retryOn}
+     */
+    public RetryingElement setRetryable(final Predicate<Throwable> retryable) {
+        this.retryable = Objects.requireNonNull(retryable);
+        return this;
+    }
+
+    @Override
+    public void resolveVariables(final Topology topology, final VariableResolver resolver) {
+        this.variableResolver = resolver;
+    }
+
+    private Lifecycle lifecycle() {
+        final Element element = getElement();
+        if (element == null) {
+            throw new IllegalStateException("No element to retry");
+        }
+        return (Lifecycle) element;
+    }
+
+    private static void stopQuietly(final Topology topology, final Lifecycle element) {
+        try {
+            topology.stopElement(element).join();
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to stop {} before retrying it", element, ex);
+        }
+    }
+
+    private static void pause(final Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting to retry");
+        }
+    }
+
+    private static Throwable unwrap(final Throwable throwable) {
+        Throwable current = throwable;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+            && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    private static Class<?> loadThrowable(final String name) {
+        try {
+            final Class<?> type = Class.forName(name, false, Thread.currentThread().getContextClassLoader());
+            if (!Throwable.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException(name + " is not an exception type");
+            }
+            return type;
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalArgumentException("Unknown exception type " + name, ex);
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.ripple.topology.elements;
 
 import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.google.common.collect.Lists;
 import com.ripple.topology.Element;
 import com.ripple.topology.Lifecycle;
 import com.ripple.topology.ScopedVariableSource;
 import com.ripple.topology.Topology;
 import com.ripple.topology.VariableResolver;
 import com.ripple.topology.VariableResolverAware;
+import com.ripple.topology.scheduling.StartupReport;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * @author jfulton
@@ -20,26 +28,93 @@ public class SerialElementGroup extends AbstractElementGroup<SerialElementGroup>
     private final Map<String, Object> variables = new LinkedHashMap<>();
     private VariableResolver variableResolver;
 
+    /**
+     * Starts each Element in turn, on the Topology's executor.  If the Topology {@link Topology#isFailFast() fails
+     * fast}, the Elements already started are stopped, in reverse order, when one fails to start.  Cancelling the start
+     * cancels the Element still starting and stops those already started, since a cancelled group isn't stopped itself.
+     */
     @Override
     public CompletableFuture<Void> start(final Topology topology) {
+        return topology.getExecutor().runAsync(() -> startElements(topology));
+    }
+
+    private void startElements(final Topology topology) {
+        final StartupReport report = topology.startupReport();
+        final List<Element> started = new ArrayList<>();
         for (Element element : getElements()) {
             assert variableResolver != null;
+            report.record(element, Phase.SUBSTITUTING);
             topology.substituteVariables(element, variableResolver.clone());
+            report.record(element, Phase.SUBSTITUTED);
             if (element instanceof Lifecycle) {
-                ((Lifecycle) element).start(topology).join();
+                report.record(element, Phase.SUBMITTED);
+                final CompletableFuture<Void> start = topology.startElement((Lifecycle) element);
+                report.track(element, start);
+                try {
+                    await(start);
+                    started.add(element);
+                } catch (RuntimeException ex) {
+                    if (ex instanceof CancellationException || topology.isFailFast()) {
+                        stop(topology, started).exceptionally(throwable -> null).join();
+                    }
+                    throw ex;
+                }
             }
         }
-        return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Waits for an Element to start.  If the group's start is cancelled, interrupting the wait, the Element's start is
+     * cancelled too, so that cancellation reaches the Elements of nested groups.
+     */
+    private static void await(final CompletableFuture<Void> start) {
+        try {
+            start.get();
+        } catch (InterruptedException e) {
+            start.cancel(true);
+            final CancellationException cancellation = new CancellationException("Interrupted while starting");
+            cancellation.initCause(e);
+            throw cancellation;
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops each Element in the reverse of the order they were started in, continuing past any that fail to stop.
+     *
+     * @return a future that completes exceptionally with the first failure, with any others suppressed, if any
+     * Element failed to stop
+     */
     @Override
     public CompletableFuture<Void> stop(final Topology topology) {
-        for (Element element : getElements()) {
+        return stop(topology, getElements());
+    }
+
+    private CompletableFuture<Void> stop(final Topology topology, final List<Element> elements) {
+        RuntimeException failure = null;
+        for (Element element : Lists.reverse(elements)) {
             if (element instanceof Lifecycle) {
-                ((Lifecycle) element).stop(topology).join();
+                try {
+                    topology.startupReport().record(element, Phase.STOPPING);
+                    topology.stopElement((Lifecycle) element).join();
+                    topology.startupReport().record(element, Phase.STOPPED);
+                } catch (RuntimeException ex) {
+                    if (failure == null) {
+                        failure = ex;
+                    } else {
+                        failure.addSuppressed(ex);
+                    }
+                }
             }
         }
-        return CompletableFuture.completedFuture(null);
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(null);
+        }
+        return result;
     }
 
     @Override
@@ -0,0 +1,13 @@
+package com.ripple.topology.metrics;
+
+/**
+ * @author jfulton
+ */
+public interface Counter {
+
+    void increment(long amount);
+
+    default void increment() {
+        increment(1);
+    }
+}
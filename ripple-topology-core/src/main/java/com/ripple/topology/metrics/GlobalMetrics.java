@@ -0,0 +1,24 @@
+package com.ripple.topology.metrics;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds {@link Metrics#global()}.
+ *
+ * @author jfulton
+ */
+final class GlobalMetrics {
+
+    private static final AtomicReference<Metrics> instance = new AtomicReference<>(Metrics.noop());
+
+    private GlobalMetrics() {
+    }
+
+    static Metrics get() {
+        return instance.get();
+    }
+
+    static void set(final Metrics metrics) {
+        instance.set(metrics);
+    }
+}
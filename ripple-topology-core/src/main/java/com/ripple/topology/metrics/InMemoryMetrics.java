@@ -0,0 +1,188 @@
+package com.ripple.topology.metrics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the count, total and maximum of every timer, the count of every counter, and every gauge, in memory.
+ * Metrics are identified by their name followed by their tags, such as
+ * {@code topology.aws.call{service=ec2,operation=runInstances}}.
+ *
+ * @author jfulton
+ */
+public class InMemoryMetrics implements Metrics {
+
+    private final ConcurrentMap<String, InMemoryTimer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, InMemoryCounter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public Timer timer(final String name, final String... tags) {
+        return timers.computeIfAbsent(id(name, tags), id -> new InMemoryTimer());
+    }
+
+    @Override
+    public Counter counter(final String name, final String... tags) {
+        return counters.computeIfAbsent(id(name, tags), id -> new InMemoryCounter());
+    }
+
+    @Override
+    public void gauge(final String name, final Supplier<? extends Number> value, final String... tags) {
+        gauges.put(id(name, tags), Objects.requireNonNull(value));
+    }
+
+    @Override
+    public void removeGauge(final String name, final String... tags) {
+        gauges.remove(id(name, tags));
+    }
+
+    /**
+     * @return the current value of the gauge, if registered
+     */
+    public Optional<Double> getGauge(final String name, final String... tags) {
+        return Optional.ofNullable(gauges.get(id(name, tags))).map(value -> value.get().doubleValue());
+    }
+
+    public Optional<TimerSnapshot> getTimer(final String name, final String... tags) {
+        return Optional.ofNullable(timers.get(id(name, tags))).map(InMemoryTimer::snapshot);
+    }
+
+    public long getCount(final String name, final String... tags) {
+        final InMemoryCounter counter = counters.get(id(name, tags));
+        return counter == null ? 0 : counter.count.sum();
+    }
+
+    /**
+     * @return a snapshot of every timer, sorted by id
+     */
+    public Map<String, TimerSnapshot> getTimers() {
+        final Map<String, TimerSnapshot> results = new TreeMap<>();
+        timers.forEach((id, timer) -> results.put(id, timer.snapshot()));
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * @return the count of every counter, sorted by id
+     */
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> results = new TreeMap<>();
+        counters.forEach((id, counter) -> results.put(id, counter.count.sum()));
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * @return the sum of the counts of every timer with the given name, whatever its tags
+     */
+    public long getTotalCount(final String name) {
+        return timers.entrySet().stream().filter(entry -> name(entry.getKey()).equals(name))
+            .mapToLong(entry -> entry.getValue().count.sum()).sum();
+    }
+
+    public void clear() {
+        timers.clear();
+        counters.clear();
+        gauges.clear();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        getTimers().forEach((id, timer) -> builder.append(id).append(' ').append(timer).append('\n'));
+        getCounters().forEach((id, count) -> builder.append(id).append(" count=").append(count).append('\n'));
+        new TreeMap<>(gauges).forEach((id, value) -> builder.append(id).append(" value=").append(value.get())
+            .append('\n'));
+        return builder.toString();
+    }
+
+    static String id(final String name, final String... tags) {
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be given as keys and values: " + String.join(",", tags));
+        }
+        if (tags.length == 0) {
+            return name;
+        }
+        final StringBuilder builder = new StringBuilder(name).append('{');
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String name(final String id) {
+        final int tags = id.indexOf('{');
+        return tags < 0 ? id : id.substring(0, tags);
+    }
+
+    private static final class InMemoryTimer implements Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        @Override
+        public void record(final long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        private TimerSnapshot snapshot() {
+            return new TimerSnapshot(count.sum(), total.sum(), max.get());
+        }
+    }
+
+    private static final class InMemoryCounter implements Counter {
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void increment(final long amount) {
+            count.add(amount);
+        }
+    }
+
+    public static final class TimerSnapshot {
+
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private TimerSnapshot(final long count, final long totalNanos, final long maxNanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Duration getTotal() {
+            return Duration.ofNanos(totalNanos);
+        }
+
+        public Duration getMax() {
+            return Duration.ofNanos(maxNanos);
+        }
+
+        public Duration getMean() {
+            return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos / count);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d total=%d ms mean=%.3f ms max=%.3f ms", count, getTotal().toMillis(),
+                getMean().toNanos() / 1e6, maxNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ripple.topology.metrics;
+
+/**
+ * The names of the metrics reported by Topologies and the Elements shipped with them.
+ *
+ * @author jfulton
+ */
+public final class MetricNames {
+
+    /**
+     * Timer of each Element's start, tagged with {@code element} and {@code outcome}
+     */
+    public static final String ELEMENT_START = "topology.element.start";
+
+    /**
+     * Timer of each Element's stop, tagged with {@code element}
+     */
+    public static final String ELEMENT_STOP = "topology.element.stop";
+
+    /**
+     * Timer of each health probe, tagged with {@code outcome}
+     */
+    public static final String HEALTH_PROBE = "topology.health.probe";
+
+    /**
+     * Counter of health probes
+     */
+    public static final String HEALTH_ATTEMPTS = "topology.health.attempts";
+
+    /**
+     * Timer of variable substitution for each Element
+     */
+    public static final String VARIABLE_RESOLUTION = "topology.variables.resolve";
+
+    /**
+     * Gauges of the lifecycle tasks waiting to run on a Topology's executor, and running on it
+     */
+    public static final String EXECUTOR_QUEUED = "topology.executor.queued";
+    public static final String EXECUTOR_ACTIVE = "topology.executor.active";
+
+    /**
+     * Timer of Nomad API calls, tagged with {@code operation} and {@code outcome}
+     */
+    public static final String NOMAD_CALL = "topology.nomad.call";
+
+    /**
+     * Gauges of the HTTP connections to each Nomad server that are in use, idle, awaited and allowed, tagged with
+     * {@code host}
+     */
+    public static final String NOMAD_POOL_LEASED = "topology.nomad.pool.leased";
+    public static final String NOMAD_POOL_AVAILABLE = "topology.nomad.pool.available";
+    public static final String NOMAD_POOL_PENDING = "topology.nomad.pool.pending";
+    public static final String NOMAD_POOL_MAX = "topology.nomad.pool.max";
+
+    /**
+     * Counter of Nomad jobs found already running unchanged, and so not registered again
+     */
+    public static final String NOMAD_JOBS_UNCHANGED = "topology.nomad.jobs.unchanged";
+
+    /**
+     * Timer of AWS API calls, tagged with {@code service}, {@code operation} and {@code outcome}
+     */
+    public static final String AWS_CALL = "topology.aws.call";
+
+    /**
+     * Timer of how long each AWS request, including each retry, waited for the shared rate limiter, tagged with
+     * {@code region}
+     */
+    public static final String AWS_RATE_LIMIT_WAIT = "topology.aws.ratelimit.wait";
+
+    /**
+     * Counter of AWS requests throttled by AWS, including those the client retried, tagged with {@code service} and
+     * {@code operation}
+     */
+    public static final String AWS_THROTTLED = "topology.aws.throttled";
+
+    /**
+     * Timer of JDBC calls, tagged with {@code operation} and {@code outcome}
+     */
+    public static final String JDBC_CALL = "topology.jdbc.call";
+
+    /**
+     * Timer of SSH calls, tagged with {@code operation} and {@code outcome}
+     */
+    public static final String SSH_CALL = "topology.ssh.call";
+
+    /**
+     * Timer of how long each task waited for a {@link com.ripple.topology.scheduling.Bulkhead Bulkhead} permit, tagged
+     * with {@code bulkhead}
+     */
+    public static final String BULKHEAD_WAIT = "topology.bulkhead.wait";
+
+    /**
+     * Counter of retried operations, tagged with {@code kind}
+     */
+    public static final String RETRIES = "topology.retries";
+
+    /**
+     * Counter of failures, tagged with the failing {@code element} or {@code metric}
+     */
+    public static final String FAILURES = "topology.failures";
+
+    private MetricNames() {
+    }
+}
@@ -0,0 +1,72 @@
+package com.ripple.topology.metrics;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A minimal metrics facade, so Elements can report timings and counts without depending on a metrics library.  Tags
+ * are given as alternating keys and values.  Bridge to a real metrics library by implementing this interface, or use
+ * {@link InMemoryMetrics} to compare runs.
+ *
+ * @author jfulton
+ * @see MetricNames
+ */
+public interface Metrics {
+
+    Timer timer(String name, String... tags);
+
+    Counter counter(String name, String... tags);
+
+    /**
+     * Registers a gauge, whose value is read whenever the metric is reported, such as the size of a pool.  Registering
+     * the same gauge again replaces its value.  Gauges are ignored unless the Metrics support them.
+     */
+    default void gauge(String name, Supplier<? extends Number> value, String... tags) {
+    }
+
+    /**
+     * Unregisters a gauge, so its value is no longer read or held, such as when its pool is closed.
+     */
+    default void removeGauge(String name, String... tags) {
+    }
+
+    /**
+     * Times a call, tagging the latency with its outcome, and counts it as a {@link MetricNames#FAILURES failure} if
+     * it throws.
+     */
+    default <T> T timeCall(String name, Supplier<T> call, String... tags) {
+        final long start = System.nanoTime();
+        try {
+            final T result = call.get();
+            timer(name, withTag(tags, "outcome", "success")).record(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            timer(name, withTag(tags, "outcome", "failure")).record(System.nanoTime() - start);
+            counter(MetricNames.FAILURES, withTag(tags, "metric", name)).increment();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return the Metrics that Topologies report to unless given their own, initially {@link #noop()}
+     */
+    static Metrics global() {
+        return GlobalMetrics.get();
+    }
+
+    static void setGlobal(Metrics metrics) {
+        GlobalMetrics.set(Objects.requireNonNull(metrics));
+    }
+
+    static Metrics noop() {
+        return NoopMetrics.INSTANCE;
+    }
+
+    static String[] withTag(String[] tags, String key, String value) {
+        final String[] results = Arrays.copyOf(tags, tags.length + 2);
+        results[tags.length] = key;
+        results[tags.length + 1] = value;
+        return results;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ripple.topology.metrics;
+
+/**
+ * Discards everything, at close to no cost.
+ *
+ * @author jfulton
+ */
+final class NoopMetrics implements Metrics {
+
+    static final NoopMetrics INSTANCE = new NoopMetrics();
+    private static final Timer TIMER = nanos -> { };
+    private static final Counter COUNTER = amount -> { };
+
+    private NoopMetrics() {
+    }
+
+    @Override
+    public Timer timer(final String name, final String... tags) {
+        return TIMER;
+    }
+
+    @Override
+    public Counter counter(final String name, final String... tags) {
+        return COUNTER;
+    }
+
+    @Override
+    public String toString() {
+        return "NoopMetrics";
+    }
+}
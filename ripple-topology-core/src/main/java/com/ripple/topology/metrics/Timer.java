@@ -0,0 +1,34 @@
+package com.ripple.topology.metrics;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * @author jfulton
+ */
+public interface Timer {
+
+    void record(long nanos);
+
+    default void record(Duration duration) {
+        record(duration.toNanos());
+    }
+
+    default <T> T time(Supplier<T> supplier) {
+        final long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    default void time(Runnable runnable) {
+        final long start = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ripple.topology.scheduling;
+
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many asynchronous tasks run at once, queueing the rest in the order they were submitted.  Tasks hold
+ * their permit until the future they return completes, and no thread is blocked while a task waits for a permit.
+ * <p>
+ * Topologies keep a named Bulkhead per backend, such as {@link #NOMAD} or {@link #AWS}, so that a slow backend can't
+ * starve the others; see {@link com.ripple.topology.BulkheadAware}.
+ *
+ * @author jfulton
+ */
+public final class Bulkhead {
+
+    public static final String NOMAD = "nomad";
+    public static final String AWS = "aws";
+    public static final String SSH = "ssh";
+    public static final String JDBC = "jdbc";
+
+    private final String name;
+    private final int maxConcurrent;
+    private final Executor executor;
+    private final Metrics metrics;
+    private final Queue<Permit<?>> queue = new ArrayDeque<>();
+    private int active;
+
+    /**
+     * @param executor runs the tasks that had to wait for a permit
+     */
+    public Bulkhead(final String name, final int maxConcurrent, final Executor executor, final Metrics metrics) {
+        this.name = Objects.requireNonNull(name);
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.executor = Objects.requireNonNull(executor);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Runs the task once a permit is available, immediately on the calling thread if one is free, otherwise later on
+     * the Bulkhead's executor.
+     *
+     * @return a future completing like the task's.  Cancelling it before the task runs removes the task from the queue,
+     * and cancelling it afterwards cancels the task's future.
+     */
+    public <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> task) {
+        final Permit<T> permit = new Permit<>(Objects.requireNonNull(task));
+        final boolean acquired;
+        synchronized (this) {
+            acquired = active < maxConcurrent;
+            if (acquired) {
+                active++;
+            } else {
+                queue.add(permit);
+            }
+        }
+        if (acquired) {
+            run(permit);
+        }
+        return permit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized int getActive() {
+        return active;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    private <T> void run(final Permit<T> permit) {
+        metrics.timer(MetricNames.BULKHEAD_WAIT, "bulkhead", name).record(System.nanoTime() - permit.submitted);
+        if (permit.isDone()) {
+            release();
+            return;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = permit.task.get();
+        } catch (RuntimeException ex) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        permit.running = future;
+        if (permit.isCancelled()) {
+            future.cancel(true);
+        }
+        future.whenComplete((value, throwable) -> {
+            release();
+            if (throwable != null) {
+                permit.completeExceptionally(throwable);
+            } else {
+                permit.complete(value);
+            }
+        });
+    }
+
+    private void release() {
+        Permit<?> next;
+        synchronized (this) {
+            next = queue.poll();
+            while (next != null && next.isDone()) {
+                next = queue.poll();
+            }
+            if (next == null) {
+                active--;
+                return;
+            }
+        }
+        final Permit<?> dequeued = next;
+        try {
+            executor.execute(() -> run(dequeued));
+        } catch (RuntimeException ex) {
+            dequeued.completeExceptionally(ex);
+            release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{name=" + name + ", maxConcurrent=" + maxConcurrent + "}";
+    }
+
+    private static final class Permit<T> extends CompletableFuture<T> {
+
+        private final Supplier<CompletableFuture<T>> task;
+        private final long submitted = System.nanoTime();
+        private volatile CompletableFuture<T> running;
+
+        private Permit(final Supplier<CompletableFuture<T>> task) {
+            this.task = task;
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            final CompletableFuture<T> current = running;
+            if (current != null) {
+                current.cancel(mayInterruptIfRunning);
+            }
+            return cancelled;
+        }
+    }
+}
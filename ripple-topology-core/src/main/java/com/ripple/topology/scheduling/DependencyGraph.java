@@ -0,0 +1,382 @@
+package com.ripple.topology.scheduling;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ripple.topology.DependencyAware;
+import com.ripple.topology.Element;
+import com.ripple.topology.ElementGroup;
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Resource;
+import com.ripple.topology.ScopedVariableSource;
+import com.ripple.topology.Topology;
+import com.ripple.topology.VariableSource;
+import com.ripple.topology.elements.AbstractApplier;
+import com.ripple.topology.serialization.modules.DurationModule;
+import com.ripple.topology.serialization.modules.HostAndPortModule;
+import com.ripple.topology.serialization.modules.HttpUrlModule;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A directed acyclic graph of the top-level {@link Element}s of a {@link Topology}, where an Element depends on every
+ * Element that must be started before it.
+ * <p>
+ * Dependencies are derived from:
+ * <ul>
+ * <li>References to Resource keys in any of an Element's (or its children's) variables, properties, environment, and
+ * other serialized fields, such as {@code ${key.hostAndPort}}, including references made indirectly through Topology
+ * variables and global {@link VariableSource}s.</li>
+ * <li>Fields whose value is exactly the key of another Resource, such as an SSH configurer's {@code hostKey}.</li>
+ * <li>Explicit {@link DependencyAware#getDependsOn()} hints.</li>
+ * <li>{@link AbstractApplier}s, which keep their declared order relative to every Resource they apply to.</li>
+ * <li>Global {@link VariableSource}s, which every subsequent Element depends on.</li>
+ * </ul>
+ * <p>
+ * {@link Lifecycle} Elements that are not {@link DependencyAware} can't be analyzed, and so are treated as barriers:
+ * they depend on every Element declared before them, and every Element declared after them depends on them.  Element
+ * groups are scheduled as a whole, so a {@link com.ripple.topology.elements.SerialElementGroup} or
+ * {@link com.ripple.topology.elements.ParallelElementGroup} keeps its own semantics for its children.
+ *
+ * @author jfulton
+ */
+public class DependencyGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGraph.class);
+    private static final Pattern REFERENCE = Pattern.compile("\\$!?\\{?([a-zA-Z][a-zA-Z0-9_-]*)");
+    private static final ObjectMapper mapper = new ObjectMapper()
+        .registerModule(new HttpUrlModule())
+        .registerModule(new HostAndPortModule())
+        .registerModule(new DurationModule());
+
+    private final List<Element> elements;
+    private final List<Set<Integer>> dependencies;
+    private final List<Set<Integer>> dependents;
+    private final List<Set<String>> references;
+    private final List<Integer> order = new ArrayList<>();
+
+    private DependencyGraph(final List<Element> elements, final List<Set<Integer>> dependencies,
+        final List<Set<String>> references) {
+        this.elements = elements;
+        this.dependencies = dependencies;
+        this.references = references;
+        this.dependents = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i++) {
+            dependents.add(new TreeSet<>());
+        }
+        for (int i = 0; i < elements.size(); i++) {
+            for (Integer dependency : dependencies.get(i)) {
+                dependents.get(dependency).add(i);
+            }
+        }
+        checkForCycles();
+    }
+
+    public static DependencyGraph of(final Topology topology) {
+        Objects.requireNonNull(topology);
+        final List<Element> elements = new ArrayList<>(topology.getElements());
+        final int size = elements.size();
+
+        final Map<String, Set<String>> globalReferences = globalVariableReferences(topology);
+        final Map<String, Integer> keyOwners = new HashMap<>();
+        final List<Analysis> analyses = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Analysis analysis = new Analysis(elements.get(i), globalReferences);
+            analyses.add(analysis);
+            for (String key : analysis.keys) {
+                keyOwners.putIfAbsent(key, i);
+            }
+        }
+
+        final List<Set<Integer>> dependencies = new ArrayList<>();
+        for (int j = 0; j < size; j++) {
+            final Analysis later = analyses.get(j);
+            final Set<Integer> found = new TreeSet<>();
+            for (int i = 0; i < j; i++) {
+                final Analysis earlier = analyses.get(i);
+                if (earlier.opaque || later.opaque || earlier.globalVariableSource
+                    || !Collections.disjoint(later.references, earlier.keys)
+                    || earlier.appliesTo(later) || later.appliesTo(earlier)) {
+                    found.add(i);
+                }
+            }
+            for (String key : later.dependsOn) {
+                final Integer owner = keyOwners.get(key);
+                if (owner == null) {
+                    throw new IllegalStateException(
+                        "Element " + describe(elements.get(j)) + " depends on unknown Resource '" + key + "'");
+                } else if (owner != j) {
+                    found.add(owner);
+                }
+            }
+            dependencies.add(found);
+        }
+        final List<Set<String>> references = new ArrayList<>();
+        for (Analysis analysis : analyses) {
+            references.add(analysis.analyzed ? analysis.references : null);
+        }
+        return new DependencyGraph(elements, dependencies, references);
+    }
+
+    /**
+     * @return a graph where every Element depends on the Element declared before it, for when a Topology can't be
+     * analyzed
+     */
+    public static DependencyGraph sequential(final List<Element> elements) {
+        final List<Set<Integer>> dependencies = new ArrayList<>();
+        final List<Set<String>> references = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i++) {
+            final Set<Integer> found = new TreeSet<>();
+            if (i > 0) {
+                found.add(i - 1);
+            }
+            dependencies.add(found);
+            references.add(null);
+        }
+        return new DependencyGraph(new ArrayList<>(elements), dependencies, references);
+    }
+
+    /**
+     * @return the top-level Elements of the Topology, in their declared order
+     */
+    public List<Element> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    public List<Element> getDependencies(final Element element) {
+        return resolve(dependencies.get(indexOf(element)));
+    }
+
+    public List<Element> getDependents(final Element element) {
+        return resolve(dependents.get(indexOf(element)));
+    }
+
+    /**
+     * @return whether the Element, or any of its children, refers to any of the given Topology variables, directly or
+     * through other variables.  Elements that couldn't be analyzed are assumed to.
+     */
+    public boolean references(final Element element, final Set<String> variables) {
+        final Set<String> found = references.get(indexOf(element));
+        return found == null || !Collections.disjoint(found, variables);
+    }
+
+    /**
+     * @param element a top-level Element
+     * @return a human readable name for the Element, being its key if it's a Resource
+     */
+    public static String describe(final Element element) {
+        if (element instanceof Resource) {
+            return ((Resource) element).getKey();
+        }
+        return element.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(element));
+    }
+
+    int indexOf(final Element element) {
+        for (int i = 0; i < elements.size(); i++) {
+            if (elements.get(i) == element) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Element " + describe(element) + " is not a top-level Element");
+    }
+
+    /**
+     * @return the indexes of the Elements in an order where every Element comes after everything it depends on, which
+     * differs from their declared order when an explicit hint depends on an Element declared later
+     */
+    List<Integer> topologicalOrder() {
+        return Collections.unmodifiableList(order);
+    }
+
+    Set<Integer> dependencyIndexes(final int index) {
+        return dependencies.get(index);
+    }
+
+    Set<Integer> dependentIndexes(final int index) {
+        return dependents.get(index);
+    }
+
+    private List<Element> resolve(final Set<Integer> indexes) {
+        final List<Element> results = new ArrayList<>();
+        for (Integer index : indexes) {
+            results.add(elements.get(index));
+        }
+        return results;
+    }
+
+    private void checkForCycles() {
+        final int[] remaining = new int[elements.size()];
+        final Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < elements.size(); i++) {
+            remaining[i] = dependencies.get(i).size();
+            if (remaining[i] == 0) {
+                ready.add(i);
+            }
+        }
+        while (!ready.isEmpty()) {
+            final int index = ready.poll();
+            order.add(index);
+            for (Integer dependent : dependents.get(index)) {
+                if (--remaining[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() < elements.size()) {
+            final List<String> cyclic = new ArrayList<>();
+            for (int i = 0; i < elements.size(); i++) {
+                if (remaining[i] > 0) {
+                    cyclic.add(describe(elements.get(i)));
+                }
+            }
+            throw new IllegalStateException("Dependency cycle between Elements " + cyclic);
+        }
+    }
+
+    private static Map<String, Set<String>> globalVariableReferences(final Topology topology) {
+        final Map<String, Set<String>> references = new HashMap<>();
+        for (VariableSource source : topology.getElements(VariableSource.class,
+            variableSource -> !(variableSource instanceof ScopedVariableSource))) {
+            collectVariableReferences(((VariableSource<?>) source).getVariables(), references);
+        }
+        collectVariableReferences(topology.getVariables(), references);
+        return references;
+    }
+
+    private static void collectVariableReferences(final Map<String, Object> variables,
+        final Map<String, Set<String>> references) {
+        variables.forEach((key, value) -> {
+            final Set<String> found = references.computeIfAbsent(key, k -> new HashSet<>());
+            if (value instanceof String) {
+                found.addAll(identifiers((String) value));
+            }
+        });
+    }
+
+    private static Set<String> identifiers(final String text) {
+        final Set<String> results = new HashSet<>();
+        if (text.indexOf('$') >= 0) {
+            final Matcher matcher = REFERENCE.matcher(text);
+            while (matcher.find()) {
+                results.add(matcher.group(1));
+            }
+        }
+        return results;
+    }
+
+    private static List<Element> flatten(final Element element) {
+        final List<Element> results = new ArrayList<>();
+        final Deque<Element> pending = new ArrayDeque<>();
+        pending.push(element);
+        while (!pending.isEmpty()) {
+            final Element current = pending.pop();
+            results.add(current);
+            if (current instanceof ElementGroup) {
+                final List<Element> children = ((ElementGroup<?>) current).getElements();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.push(children.get(i));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Everything the graph needs to know about a single top-level Element, and its children.
+     */
+    private static final class Analysis {
+
+        private final Set<String> keys = new LinkedHashSet<>();
+        private final Set<String> references = new HashSet<>();
+        private final Set<String> dependsOn = new LinkedHashSet<>();
+        private final List<Resource> resources = new ArrayList<>();
+        private final List<AbstractApplier<?, ?>> appliers = new ArrayList<>();
+        private boolean opaque;
+        private boolean analyzed = true;
+        private boolean globalVariableSource;
+
+        private Analysis(final Element element, final Map<String, Set<String>> globalReferences) {
+            for (Element member : flatten(element)) {
+                if (member instanceof Resource) {
+                    resources.add((Resource) member);
+                    keys.add(((Resource) member).getKey());
+                }
+                if (member instanceof AbstractApplier) {
+                    appliers.add((AbstractApplier<?, ?>) member);
+                }
+                if (member instanceof DependencyAware) {
+                    dependsOn.addAll(((DependencyAware) member).getDependsOn());
+                } else if (member instanceof Lifecycle) {
+                    opaque = true;
+                }
+                if (member instanceof VariableSource && !(member instanceof ScopedVariableSource)) {
+                    globalVariableSource = true;
+                }
+            }
+            try {
+                collect(mapper.valueToTree(element));
+            } catch (RuntimeException ex) {
+                logger.debug("Unable to analyze {}, treating it as opaque", describe(element), ex);
+                opaque = true;
+                analyzed = false;
+            }
+            expand(globalReferences);
+        }
+
+        private void collect(final JsonNode node) {
+            if (node.isTextual()) {
+                references.addAll(identifiers(node.asText()));
+                references.add(node.asText());
+            } else if (node.isContainerNode()) {
+                final Iterator<Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    references.addAll(identifiers(fields.next().getKey()));
+                }
+                for (JsonNode child : node) {
+                    collect(child);
+                }
+            }
+        }
+
+        private void expand(final Map<String, Set<String>> globalReferences) {
+            final Deque<String> pending = new ArrayDeque<>(references);
+            final Set<String> visited = new HashSet<>(references);
+            while (!pending.isEmpty()) {
+                for (String reference : globalReferences.getOrDefault(pending.pop(), Collections.emptySet())) {
+                    if (visited.add(reference)) {
+                        references.add(reference);
+                        pending.push(reference);
+                    }
+                }
+            }
+            // An Element never depends on itself
+            references.removeAll(keys);
+        }
+
+        private boolean appliesTo(final Analysis other) {
+            for (AbstractApplier<?, ?> applier : appliers) {
+                for (Resource resource : other.resources) {
+                    if (applier.appliesTo(resource)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
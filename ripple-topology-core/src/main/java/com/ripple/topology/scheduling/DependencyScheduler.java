@@ -0,0 +1,199 @@
+package com.ripple.topology.scheduling;
+
+import com.ripple.topology.Element;
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Resumable;
+import com.ripple.topology.Topology;
+import com.ripple.topology.TopologyStateStore;
+import com.ripple.topology.scheduling.ScheduleReport.Entry;
+import com.ripple.topology.scheduling.ScheduleReport.Status;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts the top-level Elements of a {@link Topology} as soon as everything they depend on, according to a
+ * {@link DependencyGraph}, has started.  Independent Elements start concurrently.
+ * <p>
+ * Once any Element fails to start, no further Elements are started.  Elements already starting are allowed to finish
+ * or, if the Topology {@link Topology#isFailFast() fails fast}, are cancelled by interrupting them.
+ *
+ * @author jfulton
+ */
+public class DependencyScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyScheduler.class);
+    private final Topology topology;
+    private final DependencyGraph graph;
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+    private final Object substitutionLock = new Object();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<Integer> restarted = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, CompletableFuture<Void>> starting = new ConcurrentHashMap<>();
+    private long origin;
+
+    public DependencyScheduler(final Topology topology, final DependencyGraph graph) {
+        this.topology = Objects.requireNonNull(topology);
+        this.graph = Objects.requireNonNull(graph);
+        for (Element element : graph.getElements()) {
+            entries.add(new Entry(element));
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            for (Integer dependency : graph.dependencyIndexes(i)) {
+                entries.get(i).addDependency(entries.get(dependency));
+            }
+        }
+    }
+
+    /**
+     * @return a future that completes once every Element has either started, failed or been skipped.  The future
+     * never completes exceptionally; use {@link #hasFailed()} to determine the outcome.
+     */
+    public CompletableFuture<ScheduleReport> start() {
+        origin = System.nanoTime();
+        final List<Element> elements = graph.getElements();
+        final CompletableFuture<?>[] futures = new CompletableFuture[elements.size()];
+        // Dependencies may be declared after their dependents, so futures are created in topological order
+        for (Integer index : graph.topologicalOrder()) {
+            final Element element = elements.get(index);
+            final Entry entry = entries.get(index);
+            final List<CompletableFuture<?>> dependencies = new ArrayList<>();
+            for (Integer dependency : graph.dependencyIndexes(index)) {
+                dependencies.add(futures[dependency]);
+            }
+            futures[index] = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0]))
+                .thenComposeAsync(aVoid -> start(index, element, entry), topology.getExecutor());
+        }
+        return CompletableFuture.allOf(futures)
+            .thenApply(aVoid -> {
+                final ScheduleReport report = getReport();
+                topology.startupReport().scheduled(report);
+                return report;
+            });
+    }
+
+    public boolean hasFailed() {
+        return failed.get();
+    }
+
+    public ScheduleReport getReport() {
+        return new ScheduleReport(entries);
+    }
+
+    /**
+     * @return the Elements that started or were resumed, in declaration order.  Elements cancelled while starting
+     * aren't included, since they may not have run at all.
+     */
+    public List<Element> getStarted() {
+        final List<Element> started = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            final Status status = entries.get(i).getStatus();
+            if (status == Status.SUCCEEDED || status == Status.RESUMED) {
+                started.add(graph.getElements().get(i));
+            }
+        }
+        return started;
+    }
+
+    private CompletableFuture<Void> start(final int index, final Element element, final Entry entry) {
+        entry.ready(elapsed());
+        if (failed.get()) {
+            entry.skipped();
+            return CompletableFuture.completedFuture(null);
+        }
+        entry.started(elapsed());
+        final StartupReport report = topology.startupReport();
+        final Optional<TopologyStateStore> store = topology.stateStore();
+        // Elements depending on an Element that had to be started again aren't resumed
+        final boolean resumable = resumable(index);
+        if (!resumable) {
+            restarted.add(index);
+        }
+        try {
+            // Substitution reads shared Topology state, and Elements like VariablesConfigurers may write it
+            report.record(element, Phase.SUBSTITUTING);
+            synchronized (substitutionLock) {
+                topology.substituteVariables(element);
+            }
+            report.record(element, Phase.SUBSTITUTED);
+            if (!(element instanceof Lifecycle)) {
+                entry.finished(elapsed(), Status.SUCCEEDED);
+                return CompletableFuture.completedFuture(null);
+            }
+            report.record(element, Phase.SUBMITTED);
+            if (store.isPresent() && resumable && store.get().resume(element)) {
+                report.record(element, Phase.RESUMED);
+                topology.invalidateVariables();
+                entry.finished(elapsed(), Status.RESUMED);
+                return CompletableFuture.completedFuture(null);
+            }
+            if (element instanceof Resumable) {
+                restarted.add(index);
+            }
+            store.ifPresent(s -> s.starting(element));
+            final CompletableFuture<Void> start = topology.startElement((Lifecycle) element);
+            starting.put(index, start);
+            // An Element failing concurrently may have missed this one when cancelling
+            if (failed.get() && topology.isFailFast()) {
+                start.cancel(true);
+            }
+            return report.track(element, start).handle((aVoid, throwable) -> {
+                starting.remove(index);
+                topology.invalidateVariables();
+                if (throwable != null) {
+                    store.ifPresent(s -> s.failed(element));
+                    if (start.isCancelled() && failed.get()) {
+                        entry.finished(elapsed(), Status.CANCELLED);
+                    } else {
+                        fail(element, entry, throwable);
+                    }
+                } else {
+                    store.ifPresent(s -> s.started(element));
+                    entry.finished(elapsed(), Status.SUCCEEDED);
+                }
+                return null;
+            });
+        } catch (Exception ex) {
+            if (element instanceof Lifecycle) {
+                report.record(element, Phase.FAILED);
+                store.ifPresent(s -> s.failed(element));
+            }
+            fail(element, entry, ex);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * @return whether none of the Element's dependencies had to be started again
+     */
+    private boolean resumable(final int index) {
+        for (Integer dependency : graph.dependencyIndexes(index)) {
+            if (restarted.contains(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fail(final Element element, final Entry entry, final Throwable throwable) {
+        entry.finished(elapsed(), Status.FAILED);
+        failed.set(true);
+        logger.error("Error starting topology due to an exception in a Lifecycle: {}", element, throwable);
+        if (topology.isFailFast()) {
+            starting.values().forEach(start -> start.cancel(true));
+        }
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - origin;
+    }
+}
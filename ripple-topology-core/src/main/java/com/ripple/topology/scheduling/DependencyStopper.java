@@ -0,0 +1,171 @@
+package com.ripple.topology.scheduling;
+
+import com.ripple.topology.Element;
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Topology;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import com.ripple.topology.scheduling.StopReport.Outcome;
+import com.ripple.topology.utils.Deadline;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Stops the top-level Elements of a {@link Topology} in the reverse of the order they were started in, according to a
+ * {@link DependencyGraph}: an Element is stopped as soon as every Element that depends on it has stopped, or failed to
+ * stop, so independent Elements stop concurrently.
+ * <p>
+ * Stopping is bounded by a single deadline.  Elements that haven't stopped by then are reported as timed out, and
+ * Elements still waiting on them aren't stopped at all.
+ *
+ * @author jfulton
+ */
+public class DependencyStopper {
+
+    private final Topology topology;
+    private final DependencyGraph graph;
+    private final Duration timeout;
+    private final Set<Element> targets;
+    private final List<Progress> progress = new ArrayList<>();
+    private volatile boolean expired;
+    private long origin;
+
+    public DependencyStopper(final Topology topology, final DependencyGraph graph, final Duration timeout) {
+        this(topology, graph, timeout, graph.getElements());
+    }
+
+    /**
+     * @param targets the top-level Elements to stop, such as only those that started.  Other Elements aren't stopped,
+     * but are still waited for as dependents.
+     */
+    public DependencyStopper(final Topology topology, final DependencyGraph graph, final Duration timeout,
+        final Collection<? extends Element> targets) {
+        this.topology = Objects.requireNonNull(topology);
+        this.graph = Objects.requireNonNull(graph);
+        this.timeout = Objects.requireNonNull(timeout);
+        this.targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.targets.addAll(targets);
+        for (Element element : graph.getElements()) {
+            progress.add(new Progress(DependencyGraph.describe(element)));
+        }
+    }
+
+    /**
+     * @return a future that completes once every Element has stopped or failed to stop, or the deadline has passed.
+     * Elements failing to stop are reported, so the future only completes exceptionally if the stopper itself fails.
+     */
+    public CompletableFuture<StopReport> stop() {
+        origin = System.nanoTime();
+        final List<Element> elements = graph.getElements();
+        final CompletableFuture<?>[] futures = new CompletableFuture[elements.size()];
+        // Dependents come after the Elements they depend on in topological order, so are created first in reverse
+        final List<Integer> order = graph.topologicalOrder();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            final int index = order.get(i);
+            final List<CompletableFuture<?>> dependents = new ArrayList<>();
+            for (Integer dependent : graph.dependentIndexes(index)) {
+                dependents.add(futures[dependent]);
+            }
+            futures[index] = CompletableFuture.allOf(dependents.toArray(new CompletableFuture[0]))
+                .thenComposeAsync(aVoid -> stop(elements.get(index), progress.get(index)), topology.getExecutor());
+        }
+        // The deadline is enforced by a timer rather than a waiting thread, so even a single-threaded executor can
+        // stop every Element
+        return Deadline.after(timeout).enforce(CompletableFuture.allOf(futures), "Stopping the topology")
+            .handle((aVoid, throwable) -> {
+                if (throwable instanceof TimeoutException) {
+                    expired = true;
+                } else if (throwable != null) {
+                    // Stopping an individual Element never fails the whole, so this is a failure of the stopper itself
+                    throw throwable instanceof CompletionException ? (CompletionException) throwable
+                        : new CompletionException(throwable);
+                }
+                return getReport();
+            });
+    }
+
+    public StopReport getReport() {
+        final long now = System.nanoTime();
+        final List<StopReport.Entry> entries = new ArrayList<>();
+        final List<Element> elements = graph.getElements();
+        for (int i = 0; i < elements.size(); i++) {
+            if (isTarget(elements.get(i))) {
+                entries.add(progress.get(i).toEntry(now));
+            }
+        }
+        return new StopReport(entries, Duration.ofNanos(now - origin));
+    }
+
+    private boolean isTarget(final Element element) {
+        return element instanceof Lifecycle && targets.contains(element);
+    }
+
+    private CompletableFuture<Void> stop(final Element element, final Progress progress) {
+        if (!isTarget(element) || expired || topology.deadline(element).isExpired()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final StartupReport report = topology.startupReport();
+        progress.started();
+        CompletableFuture<Void> future;
+        try {
+            report.record(element, Phase.STOPPING);
+            future = topology.stopElement((Lifecycle) element);
+        } catch (RuntimeException ex) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        return future.handle((aVoid, throwable) -> {
+            if (throwable == null) {
+                report.record(element, Phase.STOPPED);
+                topology.stateStore().ifPresent(s -> s.stopped(element));
+                progress.finished(Outcome.STOPPED, null);
+            } else {
+                final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+                progress.finished(cause instanceof TimeoutException ? Outcome.TIMED_OUT : Outcome.FAILED, cause);
+            }
+            return null;
+        });
+    }
+
+    private static final class Progress {
+        private final String name;
+        private volatile boolean started;
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        private volatile Outcome outcome;
+        private volatile Throwable failure;
+
+        private Progress(final String name) {
+            this.name = name;
+        }
+
+        private void started() {
+            this.startedNanos = System.nanoTime();
+            this.started = true;
+        }
+
+        private void finished(final Outcome outcome, final Throwable failure) {
+            this.finishedNanos = System.nanoTime();
+            this.failure = failure;
+            this.outcome = outcome;
+        }
+
+        private StopReport.Entry toEntry(final long now) {
+            final Outcome current = outcome;
+            if (current == null) {
+                return new StopReport.Entry(name, Outcome.TIMED_OUT,
+                    started ? Duration.ofNanos(now - startedNanos) : Duration.ZERO, null);
+            }
+            return new StopReport.Entry(name, current, Duration.ofNanos(finishedNanos - startedNanos), failure);
+        }
+    }
+}
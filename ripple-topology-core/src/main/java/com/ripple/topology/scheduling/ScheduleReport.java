@@ -0,0 +1,169 @@
+package com.ripple.topology.scheduling;
+
+import com.ripple.topology.Element;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The outcome of a {@link DependencyScheduler} run, recording when each top-level Element became ready, started and
+ * finished, and the critical path: the chain of dependencies that determined the total startup time.
+ *
+ * @author jfulton
+ */
+public class ScheduleReport {
+
+    public enum Status {
+        PENDING, STARTED, SUCCEEDED, RESUMED, FAILED, CANCELLED, SKIPPED
+    }
+
+    private final List<Entry> entries;
+
+    ScheduleReport(final List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public Duration getTotalDuration() {
+        long end = 0;
+        for (Entry entry : entries) {
+            end = Math.max(end, entry.finishedNanos);
+        }
+        return Duration.ofNanos(end);
+    }
+
+    /**
+     * @return the chain of Elements, in start order, where each Element was the last of its dependencies to finish,
+     * ending with the Element that finished last overall
+     */
+    public List<Entry> getCriticalPath() {
+        Entry current = null;
+        for (Entry entry : entries) {
+            if (entry.status != Status.SKIPPED && entry.status != Status.PENDING
+                && (current == null || entry.finishedNanos > current.finishedNanos)) {
+                current = entry;
+            }
+        }
+        final List<Entry> path = new ArrayList<>();
+        while (current != null) {
+            path.add(current);
+            Entry latest = null;
+            for (Entry dependency : current.dependencies) {
+                if (latest == null || dependency.finishedNanos > latest.finishedNanos) {
+                    latest = dependency;
+                }
+            }
+            current = latest;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Topology started %d element(s) in %d ms%n", entries.size(),
+            getTotalDuration().toMillis()));
+        for (Entry entry : entries) {
+            builder.append(String.format("  %-40s %-9s ready=%6d ms start=%6d ms end=%6d ms after=%s%n", entry.name,
+                entry.status, millis(entry.readyNanos), millis(entry.startedNanos), millis(entry.finishedNanos),
+                entry.getDependencyNames()));
+        }
+        builder.append("Critical path:");
+        for (Entry entry : getCriticalPath()) {
+            builder.append(String.format("%n  %-40s %6d ms", entry.name, entry.getDuration().toMillis()));
+        }
+        return builder.toString();
+    }
+
+    private static long millis(final long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * Timing for a single top-level Element.  All times are relative to the start of the schedule.
+     */
+    public static final class Entry {
+
+        private final Element element;
+        private final String name;
+        private final List<Entry> dependencies = new ArrayList<>();
+        private volatile Status status = Status.PENDING;
+        private volatile long readyNanos;
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+
+        Entry(final Element element) {
+            this.element = Objects.requireNonNull(element);
+            this.name = DependencyGraph.describe(element);
+        }
+
+        Element getElement() {
+            return element;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getDependencyNames() {
+            final List<String> names = new ArrayList<>();
+            for (Entry dependency : dependencies) {
+                names.add(dependency.name);
+            }
+            return names;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Duration getReady() {
+            return Duration.ofNanos(readyNanos);
+        }
+
+        public Duration getStarted() {
+            return Duration.ofNanos(startedNanos);
+        }
+
+        public Duration getFinished() {
+            return Duration.ofNanos(finishedNanos);
+        }
+
+        public Duration getDuration() {
+            return Duration.ofNanos(Math.max(0, finishedNanos - startedNanos));
+        }
+
+        void addDependency(final Entry dependency) {
+            dependencies.add(dependency);
+        }
+
+        void ready(final long nanos) {
+            readyNanos = nanos;
+        }
+
+        void started(final long nanos) {
+            startedNanos = nanos;
+            status = Status.STARTED;
+        }
+
+        void finished(final long nanos, final Status status) {
+            finishedNanos = nanos;
+            this.status = status;
+        }
+
+        void skipped() {
+            status = Status.SKIPPED;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + status + ")";
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package com.ripple.topology.scheduling;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ripple.topology.Element;
+import com.ripple.topology.Topology;
+import com.ripple.topology.metrics.MetricNames;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A timeline of the phases each Element went through while a {@link Topology} started and stopped, with timestamps
+ * relative to the start of the Topology.  It can be rendered as text, including the critical path, the chain of
+ * Elements that bounded the total startup time, or as a Chrome trace (load it in chrome://tracing or Perfetto).
+ * <p>
+ * Lifecycles report their own intermediate phases, such as {@link Phase#PROVISIONED}, through
+ * {@link Topology#startupReport()}.
+ *
+ * @author jfulton
+ */
+public class StartupReport {
+
+    public enum Phase {
+        SUBSTITUTING, SUBSTITUTED, SUBMITTED, PROVISIONED, HEALTHY, CONFIGURED, STARTED, RESUMED, FAILED, STOPPING,
+        STOPPED
+    }
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Topology topology;
+    private final long origin = System.nanoTime();
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final Map<Element, Long> submitted = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<Element, Long> stopping = Collections.synchronizedMap(new IdentityHashMap<>());
+    private volatile ScheduleReport schedule;
+
+    public StartupReport(final Topology topology) {
+        this.topology = topology;
+    }
+
+    /**
+     * Records the phase, and reports the time each Element took to start or stop to the Topology's
+     * {@link Topology#metrics() Metrics}.
+     */
+    public void record(final Element element, final Phase phase) {
+        final List<Element> path = topology.getPath(element);
+        final Element parent = path.size() > 1 ? path.get(path.size() - 2) : null;
+        final String name = DependencyGraph.describe(element);
+        final long nanos = System.nanoTime() - origin;
+        events.add(new Event(element, name, parent, parent != null ? DependencyGraph.describe(parent) : null,
+            path.get(0), phase, nanos, Thread.currentThread().getName()));
+        report(element, name, phase, nanos);
+    }
+
+    /**
+     * Records the outcome of a dependency-scheduled start, whose critical path the report builds on.
+     */
+    void scheduled(final ScheduleReport schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * Records that the Element was submitted for starting, and that it started or failed once the future completes.
+     *
+     * @return the given future
+     */
+    public <T> CompletableFuture<T> track(final Element element, final CompletableFuture<T> start) {
+        return start.whenComplete((result, throwable) -> record(element, throwable == null ? Phase.STARTED
+            : Phase.FAILED));
+    }
+
+    public List<Event> getEvents() {
+        return Collections.unmodifiableList(new ArrayList<>(events));
+    }
+
+    /**
+     * @return each Element's start span, in the order Elements were submitted
+     */
+    public List<Span> getSpans() {
+        final Map<Element, Span> spans = new IdentityHashMap<>();
+        final List<Span> results = new ArrayList<>();
+        for (Event event : events) {
+            Span span = spans.get(event.source);
+            if (span == null) {
+                span = new Span(event);
+                spans.put(event.source, span);
+                results.add(span);
+            }
+            span.phases.putIfAbsent(event.phase, event.nanos);
+        }
+        results.removeIf(span -> !span.getStart().isPresent());
+        return results;
+    }
+
+    /**
+     * @return the time from the start of the Topology until the last Element finished starting
+     */
+    public Duration getDuration() {
+        long end = 0;
+        for (Span span : getSpans()) {
+            end = Math.max(end, span.endNanos());
+        }
+        return Duration.ofNanos(end);
+    }
+
+    /**
+     * The top-level Elements on the critical path are those on the {@link ScheduleReport#getCriticalPath() critical
+     * path} of a dependency-scheduled start, or otherwise every top-level Element, since each started after the one
+     * before it.  Each is then expanded into the innermost Elements that bounded its own start, since groups merely
+     * contain their Elements' spans.
+     *
+     * @return the chain of Elements that bounded the total startup time, in start order
+     */
+    public List<Span> getCriticalPath() {
+        final List<Span> spans = getSpans();
+        final Map<Element, List<Span>> byRoot = new IdentityHashMap<>();
+        final Set<Element> parents = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Span span : spans) {
+            byRoot.computeIfAbsent(span.root, root -> new ArrayList<>()).add(span);
+            if (span.parentElement != null) {
+                parents.add(span.parentElement);
+            }
+        }
+        final List<Element> roots = new ArrayList<>();
+        final ScheduleReport current = schedule;
+        if (current != null) {
+            for (ScheduleReport.Entry entry : current.getCriticalPath()) {
+                roots.add(entry.getElement());
+            }
+        } else {
+            for (Span span : spans) {
+                if (span.parentElement == null) {
+                    roots.add(span.element);
+                }
+            }
+        }
+        final List<Span> path = new ArrayList<>();
+        for (Element root : roots) {
+            final List<Span> leaves = new ArrayList<>();
+            for (Span span : byRoot.getOrDefault(root, Collections.emptyList())) {
+                if (!parents.contains(span.element)) {
+                    leaves.add(span);
+                }
+            }
+            path.addAll(chain(leaves));
+        }
+        return path;
+    }
+
+    /**
+     * Works back from the Span that finished last, each time choosing the Span that finished last before the current
+     * one was submitted.
+     */
+    private static List<Span> chain(final List<Span> leaves) {
+        if (leaves.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // A stable sort, so the first submitted of several Elements finishing at once is preferred
+        leaves.sort(Comparator.comparingLong(Span::endNanos));
+        final long[] ends = new long[leaves.size()];
+        for (int i = 0; i < ends.length; i++) {
+            ends[i] = leaves.get(i).endNanos();
+        }
+
+        final List<Span> path = new ArrayList<>();
+        final Set<Span> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Span current = leaves.get(firstEndingWith(ends, ends.length - 1));
+        while (current != null) {
+            path.add(current);
+            visited.add(current);
+            final long submitted = current.phases.get(Phase.SUBMITTED);
+            Span previous = null;
+            int last = lastEndingBy(ends, submitted);
+            while (previous == null && last >= 0) {
+                final int first = firstEndingWith(ends, last);
+                for (int i = first; i <= last && previous == null; i++) {
+                    if (!visited.contains(leaves.get(i))) {
+                        previous = leaves.get(i);
+                    }
+                }
+                last = first - 1;
+            }
+            current = previous;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // The index of the last Span ending at or before the given time, or -1
+    private static int lastEndingBy(final long[] ends, final long nanos) {
+        int low = 0;
+        int high = ends.length - 1;
+        int result = -1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (ends[middle] <= nanos) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    // The index of the first Span ending at the same time as the Span at the given index
+    private static int firstEndingWith(final long[] ends, final int index) {
+        int first = index;
+        while (first > 0 && ends[first - 1] == ends[index]) {
+            first--;
+        }
+        return first;
+    }
+
+    /**
+     * @return a summary of the critical path, with each Element's phases
+     */
+    public String getCriticalPathSummary() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Topology started in %d ms. Critical path:", getDuration().toMillis()));
+        for (Span span : getCriticalPath()) {
+            builder.append(String.format("%n  %-40s start=%7d ms end=%7d ms took=%7d ms", span.name,
+                millis(span.phases.get(Phase.SUBMITTED)), millis(span.endNanos()), span.getDuration().toMillis()));
+            for (Map.Entry<Phase, Long> phase : span.phases.entrySet()) {
+                if (phase.getKey() != Phase.SUBMITTED) {
+                    builder.append(String.format(" %s=%d", phase.getKey().name().toLowerCase(),
+                        millis(phase.getValue())));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the timeline in the Chrome trace event format, with a row per Element
+     */
+    public String toChromeTrace() {
+        final ObjectNode trace = mapper.createObjectNode();
+        final ArrayNode traceEvents = trace.putArray("traceEvents");
+        final Map<Element, Integer> rows = new IdentityHashMap<>();
+        final List<String> names = new ArrayList<>();
+        final Map<Element, Map<Phase, Event>> byElement = new IdentityHashMap<>();
+        for (Event event : events) {
+            Integer row = rows.get(event.source);
+            if (row == null) {
+                names.add(event.element);
+                row = names.size();
+                rows.put(event.source, row);
+            }
+            final Map<Phase, Event> phases = byElement.computeIfAbsent(event.source, element -> new EnumMap<>(
+                Phase.class));
+            phases.putIfAbsent(event.phase, event);
+            switch (event.phase) {
+                case SUBSTITUTED:
+                    complete(traceEvents, row, "substitute variables", phases.get(Phase.SUBSTITUTING), event);
+                    break;
+                case STARTED:
+                case RESUMED:
+                case FAILED:
+                    complete(traceEvents, row, event.phase.name().toLowerCase(), phases.get(Phase.SUBMITTED), event);
+                    break;
+                case STOPPED:
+                    complete(traceEvents, row, "stop", phases.get(Phase.STOPPING), event);
+                    break;
+                case PROVISIONED:
+                case HEALTHY:
+                case CONFIGURED:
+                    traceEvents.addObject().put("name", event.phase.name().toLowerCase()).put("ph", "i")
+                        .put("s", "t").put("ts", micros(event.nanos)).put("pid", 1).put("tid", row);
+                    break;
+                default:
+                    break;
+            }
+        }
+        for (int row = 1; row <= names.size(); row++) {
+            final ObjectNode metadata = traceEvents.addObject().put("name", "thread_name").put("ph", "M")
+                .put("pid", 1).put("tid", row);
+            metadata.putObject("args").put("name", names.get(row - 1));
+            traceEvents.addObject().put("name", "thread_sort_index").put("ph", "M").put("pid", 1)
+                .put("tid", row).putObject("args").put("sort_index", row);
+        }
+        try {
+            return mapper.writeValueAsString(trace);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void writeChromeTrace(final Path file) {
+        try {
+            Files.write(file, toChromeTrace().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getCriticalPathSummary();
+    }
+
+    private void report(final Element element, final String name, final Phase phase, final long nanos) {
+        final Long began;
+        switch (phase) {
+            case SUBMITTED:
+                submitted.put(element, nanos);
+                break;
+            case STOPPING:
+                stopping.put(element, nanos);
+                break;
+            case STARTED:
+            case FAILED:
+                began = submitted.remove(element);
+                if (began != null) {
+                    topology.metrics().timer(MetricNames.ELEMENT_START, "element", name, "outcome",
+                        phase == Phase.STARTED ? "success" : "failure").record(nanos - began);
+                }
+                if (phase == Phase.FAILED) {
+                    topology.metrics().counter(MetricNames.FAILURES, "element", name).increment();
+                }
+                break;
+            case STOPPED:
+                began = stopping.remove(element);
+                if (began != null) {
+                    topology.metrics().timer(MetricNames.ELEMENT_STOP, "element", name).record(nanos - began);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void complete(final ArrayNode traceEvents, final int row, final String name, final Event begin,
+        final Event end) {
+        if (begin == null) {
+            return;
+        }
+        final ObjectNode event = traceEvents.addObject().put("name", name).put("ph", "X")
+            .put("ts", micros(begin.nanos)).put("dur", micros(end.nanos - begin.nanos)).put("pid", 1)
+            .put("tid", row);
+        event.putObject("args").put("thread", begin.thread);
+    }
+
+    private static long micros(final long nanos) {
+        return nanos / 1_000;
+    }
+
+    private static long millis(final long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * A single phase of a single Element.
+     */
+    public static final class Event {
+
+        private final Element source;
+        private final String element;
+        private final Element parentElement;
+        private final String parent;
+        private final Element root;
+        private final Phase phase;
+        private final long nanos;
+        private final String thread;
+
+        private Event(final Element source, final String element, final Element parentElement, final String parent,
+            final Element root, final Phase phase, final long nanos, final String thread) {
+            this.source = source;
+            this.element = element;
+            this.parentElement = parentElement;
+            this.parent = parent;
+            this.root = root;
+            this.phase = phase;
+            this.nanos = nanos;
+            this.thread = thread;
+        }
+
+        public String getElement() {
+            return element;
+        }
+
+        /**
+         * @return the ElementGroup directly containing the Element, or empty for top-level Elements
+         */
+        public Optional<String> getParent() {
+            return Optional.ofNullable(parent);
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public Duration getTime() {
+            return Duration.ofNanos(nanos);
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        @Override
+        public String toString() {
+            return element + " " + phase + " " + millis(nanos) + " ms";
+        }
+    }
+
+    /**
+     * The phases of a single Element, from when it was submitted for starting.
+     */
+    public static final class Span {
+
+        private final Element element;
+        private final String name;
+        private final Element parentElement;
+        private final String parent;
+        private final Element root;
+        private final Map<Phase, Long> phases = new EnumMap<>(Phase.class);
+
+        private Span(final Event event) {
+            this.element = event.source;
+            this.name = event.element;
+            this.parentElement = event.parentElement;
+            this.parent = event.parent;
+            this.root = event.root;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Optional<String> getParent() {
+            return Optional.ofNullable(parent);
+        }
+
+        public Optional<Duration> getTime(final Phase phase) {
+            return Optional.ofNullable(phases.get(phase)).map(Duration::ofNanos);
+        }
+
+        public Optional<Duration> getStart() {
+            return getTime(Phase.SUBMITTED);
+        }
+
+        /**
+         * @return the time from submission until the Element started, failed or was resumed
+         */
+        public Duration getDuration() {
+            return Duration.ofNanos(endNanos() - phases.get(Phase.SUBMITTED));
+        }
+
+        private long endNanos() {
+            for (Phase phase : new Phase[] {Phase.STARTED, Phase.RESUMED, Phase.FAILED}) {
+                if (phases.containsKey(phase)) {
+                    return phases.get(phase);
+                }
+            }
+            // Still starting
+            return phases.values().stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + getDuration().toMillis() + " ms";
+        }
+    }
+}
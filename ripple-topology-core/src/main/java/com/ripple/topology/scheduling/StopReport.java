@@ -0,0 +1,138 @@
+package com.ripple.topology.scheduling;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The outcome of stopping a {@link com.ripple.topology.Topology Topology}: which top-level {@link
+ * com.ripple.topology.Lifecycle} Elements stopped, which failed to stop, and which hadn't stopped by the deadline.
+ *
+ * @author jfulton
+ */
+public class StopReport {
+
+    public enum Outcome {
+        STOPPED, FAILED, TIMED_OUT
+    }
+
+    private final List<Entry> entries;
+    private final Duration duration;
+
+    StopReport(final List<Entry> entries, final Duration duration) {
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        this.duration = Objects.requireNonNull(duration);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public List<String> getStopped() {
+        return names(Outcome.STOPPED);
+    }
+
+    /**
+     * @return the failure of each Element that failed to stop, by name
+     */
+    public Map<String, Throwable> getFailed() {
+        final Map<String, Throwable> results = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            if (entry.outcome == Outcome.FAILED) {
+                results.put(entry.name, entry.failure);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the Elements that were still stopping, or still waiting for the Elements depending on them to stop, when
+     * the deadline passed
+     */
+    public List<String> getTimedOut() {
+        return names(Outcome.TIMED_OUT);
+    }
+
+    /**
+     * @return whether every Element stopped
+     */
+    public boolean isSuccessful() {
+        return getStopped().size() == entries.size();
+    }
+
+    private List<String> names(final Outcome outcome) {
+        final List<String> results = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.outcome == outcome) {
+                results.add(entry.name);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Topology stopped %d of %d element(s) in %d ms, %d failed, %d timed out",
+            getStopped().size(), entries.size(), duration.toMillis(), getFailed().size(), getTimedOut().size()));
+        for (Entry entry : entries) {
+            builder.append(String.format("%n  %-40s %-9s %6d ms", entry.name, entry.outcome,
+                entry.duration.toMillis()));
+            if (entry.failure != null) {
+                builder.append(" ").append(entry.failure);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The outcome for a single top-level Element.
+     */
+    public static final class Entry {
+
+        private final String name;
+        private final Outcome outcome;
+        private final Duration duration;
+        private final Throwable failure;
+
+        Entry(final String name, final Outcome outcome, final Duration duration, final Throwable failure) {
+            this.name = Objects.requireNonNull(name);
+            this.outcome = Objects.requireNonNull(outcome);
+            this.duration = Objects.requireNonNull(duration);
+            this.failure = failure;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * @return how long the Element took to stop, or had been stopping when the deadline passed
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public Optional<Throwable> getFailure() {
+            return Optional.ofNullable(failure);
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + outcome + ")";
+        }
+    }
+}
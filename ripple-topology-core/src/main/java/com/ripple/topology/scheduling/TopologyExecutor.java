@@ -0,0 +1,286 @@
+package com.ripple.topology.scheduling;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link Executor} that runs all of a {@link com.ripple.topology.Topology Topology's} lifecycle work: starting and
+ * stopping Elements, running Configurers, and waiting on remote resources.
+ * <p>
+ * Lifecycle work mostly blocks, on {@code join()}, sleeps and remote calls, so the default {@link Mode#CACHED} mode
+ * gives every task its own daemon thread rather than sharing the small common ForkJoinPool.  On JDK 21 and later,
+ * {@link Mode#VIRTUAL} runs every task on its own virtual thread instead; on older JDKs it falls back to
+ * {@link Mode#CACHED}.
+ * <p>
+ * The underlying threads are created lazily, and released by {@link #shutdown()}, after which the executor may still be
+ * reused.
+ *
+ * @author jfulton
+ */
+@JsonInclude(Include.NON_DEFAULT)
+public class TopologyExecutor implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopologyExecutor.class);
+    private static final AtomicInteger poolCounter = new AtomicInteger();
+
+    public enum Mode {
+        /**
+         * Use {@link ForkJoinPool#commonPool()}, as lifecycle work did historically.
+         */
+        COMMON,
+        /**
+         * Use an unbounded pool of reusable daemon threads.
+         */
+        CACHED,
+        /**
+         * Use a fixed number of daemon threads, queueing any additional tasks.  Since lifecycle tasks often wait on
+         * other lifecycle tasks, too few threads can stall startup.
+         */
+        FIXED,
+        /**
+         * Use a new virtual thread per task, on JDK 21 and later.
+         */
+        VIRTUAL;
+
+        @JsonCreator
+        public static Mode fromValue(final String value) {
+            return Mode.valueOf(Objects.requireNonNull(value, "'mode' cannot be null").trim().toUpperCase(Locale.ROOT));
+        }
+
+        @JsonValue
+        public String toValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Mode mode;
+    private final int threads;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile ExecutorService delegate;
+
+    public TopologyExecutor() {
+        this(Mode.CACHED, 0);
+    }
+
+    @JsonCreator
+    public TopologyExecutor(@JsonProperty("mode") final Mode mode, @JsonProperty("threads") final int threads) {
+        this.mode = mode == null ? Mode.CACHED : mode;
+        if (this.mode == Mode.FIXED && threads < 1) {
+            throw new IllegalArgumentException("'threads' must be at least 1 in fixed mode");
+        }
+        this.threads = threads;
+    }
+
+    public static TopologyExecutor virtual() {
+        return new TopologyExecutor(Mode.VIRTUAL, 0);
+    }
+
+    public static TopologyExecutor fixed(final int threads) {
+        return new TopologyExecutor(Mode.FIXED, threads);
+    }
+
+    public static TopologyExecutor common() {
+        return new TopologyExecutor(Mode.COMMON, 0);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the number of tasks that have been submitted, but haven't started running yet
+     */
+    @JsonIgnore
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * @return the number of tasks currently running
+     */
+    @JsonIgnore
+    public int getActiveTasks() {
+        return active.get();
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        Objects.requireNonNull(command);
+        queued.incrementAndGet();
+        delegate().execute(() -> {
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                command.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * @return a future that, if cancelled with {@code mayInterruptIfRunning}, interrupts the thread running the task
+     */
+    public CompletableFuture<Void> runAsync(final Runnable runnable) {
+        Objects.requireNonNull(runnable);
+        return supplyAsync(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return a future that, if cancelled with {@code mayInterruptIfRunning}, interrupts the thread running the task
+     */
+    public <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier) {
+        Objects.requireNonNull(supplier);
+        final InterruptibleFuture<T> future = new InterruptibleFuture<>();
+        execute(() -> future.run(supplier));
+        return future;
+    }
+
+    /**
+     * Releases any idle threads.  Tasks already submitted continue to run.
+     */
+    public void shutdown() {
+        final ExecutorService current;
+        synchronized (this) {
+            current = delegate;
+            delegate = null;
+        }
+        if (current != null) {
+            current.shutdown();
+        }
+    }
+
+    private Executor delegate() {
+        if (mode == Mode.COMMON) {
+            return ForkJoinPool.commonPool();
+        }
+        ExecutorService current = delegate;
+        if (current == null) {
+            synchronized (this) {
+                current = delegate;
+                if (current == null) {
+                    current = create();
+                    delegate = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private ExecutorService create() {
+        if (mode == Mode.VIRTUAL) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Virtual threads require JDK 21 or later, using cached threads instead");
+            }
+        }
+        final ThreadFactory threadFactory = daemonThreadFactory();
+        if (mode == Mode.FIXED) {
+            return Executors.newFixedThreadPool(threads, threadFactory);
+        }
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        final int pool = poolCounter.incrementAndGet();
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "topology-" + pool + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A future that interrupts the thread computing it when cancelled, so that tasks blocked in sleeps, waits and
+     * interruptible I/O stop promptly.
+     */
+    private static final class InterruptibleFuture<T> extends CompletableFuture<T> {
+
+        private Thread runner;
+
+        private void run(final Supplier<T> supplier) {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(supplier.get());
+            } catch (Throwable throwable) {
+                // Wrap failures as CompletableFuture.supplyAsync does, so that dependent stages see the same exceptions
+                completeExceptionally(throwable instanceof CompletionException ? throwable
+                    : new CompletionException(throwable));
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                // Don't leave a pooled thread interrupted
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TopologyExecutor that = (TopologyExecutor) o;
+        return threads == that.threads && mode == that.mode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, threads);
+    }
+
+    @Override
+    public String toString() {
+        return "TopologyExecutor{mode=" + mode.toValue() + ", threads=" + threads + ", queueDepth=" + getQueueDepth()
+            + ", activeTasks=" + getActiveTasks() + "}";
+    }
+}
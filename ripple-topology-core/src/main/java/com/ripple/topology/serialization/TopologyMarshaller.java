@@ -8,8 +8,11 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.NamedType;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.hash.Hashing;
 import com.ripple.topology.Element;
 import com.ripple.topology.Topology;
+import com.ripple.topology.TopologyState;
+import com.ripple.topology.serialization.modules.DurationModule;
 import com.ripple.topology.serialization.modules.HostAndPortModule;
 import com.ripple.topology.serialization.modules.HttpUrlModule;
 import java.io.IOException;
@@ -36,6 +39,7 @@ public class TopologyMarshaller {
         ObjectMapper mapper = new ObjectMapper(yamlFactory)
             .registerModule(new HttpUrlModule())
             .registerModule(new HostAndPortModule())
+            .registerModule(new DurationModule())
             .setSerializationInclusion(NON_DEFAULT)
             ;
         for (Element element : loader) {
@@ -97,6 +101,34 @@ public class TopologyMarshaller {
         }
     }
 
+    public TopologyState readState(InputStream state) {
+        try {
+            return mapper.readValue(state, TopologyState.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void writeState(TopologyState state, OutputStream outputStream) {
+        try {
+            mapper.writeValue(outputStream, state);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return a SHA-256 hash of the Element's serialized configuration, which changes whenever any of its (or its
+     * children's) serialized properties change
+     */
+    public String specHash(Element element) {
+        try {
+            return Hashing.sha256().hashBytes(mapper.writerFor(Element.class).writeValueAsBytes(element)).toString();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public ObjectMapper getObjectMapper() {
         return mapper;
     }
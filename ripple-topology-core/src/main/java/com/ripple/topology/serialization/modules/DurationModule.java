@@ -0,0 +1,116 @@
+package com.ripple.topology.serialization.modules;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.FromStringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads and writes {@link Duration}s as short strings such as {@code 500ms}, {@code 90s}, {@code 5m} or {@code 1h}.
+ * ISO-8601 durations such as {@code PT1M30S}, and plain numbers of milliseconds, are also accepted.
+ *
+ * @author jfulton
+ */
+public class DurationModule extends SimpleModule {
+
+    private static final Pattern SHORT = Pattern.compile("(\\d+)\\s*(ms|s|m|h|d)");
+
+    public DurationModule() {
+        super(
+            "DurationModule",
+            new Version(1, 0, 0, null, "com.ripple.topology", "ripple-topology-core")
+        );
+
+        this.addSerializer(Duration.class, new DurationSerializer());
+        this.addDeserializer(Duration.class, new DurationDeserializer());
+    }
+
+    public static Duration parse(final String value) {
+        final String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        if (trimmed.startsWith("p")) {
+            return Duration.parse(trimmed.toUpperCase(Locale.ROOT));
+        }
+        if (trimmed.matches("\\d+")) {
+            return Duration.ofMillis(Long.parseLong(trimmed));
+        }
+        final Matcher matcher = SHORT.matcher(trimmed);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("'" + value + "' is not a duration, such as 500ms, 90s, 5m or 1h");
+        }
+        final long amount = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            default:
+                return Duration.ofDays(amount);
+        }
+    }
+
+    /**
+     * @return the shortest of the forms read by {@link #parse(String)} that represents the Duration exactly
+     */
+    public static String format(final Duration duration) {
+        if (duration.isNegative() || duration.getNano() % 1_000_000 != 0) {
+            return duration.toString();
+        }
+        final long millis = duration.toMillis();
+        if (millis == 0 || millis % 1000 != 0) {
+            return millis + "ms";
+        } else if (millis % 3_600_000 == 0) {
+            return millis / 3_600_000 + "h";
+        } else if (millis % 60_000 == 0) {
+            return millis / 60_000 + "m";
+        }
+        return millis / 1000 + "s";
+    }
+
+    public static class DurationSerializer extends StdSerializer<Duration> {
+
+        public DurationSerializer() {
+            super(Duration.class);
+        }
+
+        @Override
+        public void serialize(final Duration value, final JsonGenerator generator, final SerializerProvider provider)
+            throws IOException {
+            generator.writeString(format(value));
+        }
+    }
+
+    public static class DurationDeserializer extends FromStringDeserializer<Duration> {
+
+        public DurationDeserializer() {
+            super(Duration.class);
+        }
+
+        @Override
+        public Duration deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                return Duration.ofMillis(p.getLongValue());
+            }
+            return parse(p.getValueAsString());
+        }
+
+        @Override
+        protected Duration _deserialize(final String s, final DeserializationContext deserializationContext)
+            throws IOException {
+            return parse(s);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ripple.topology.utils;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long to pause between attempts: an initial delay, growing by a multiplier up to a maximum, with an optional
+ * random jitter so that many waiters don't retry in lockstep.
+ *
+ * @author jfulton
+ */
+public final class Backoff {
+
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final double multiplier;
+    private final double jitter;
+
+    private Backoff(final Duration initialDelay, final Duration maxDelay, final double multiplier,
+        final double jitter) {
+        this.initialDelay = Objects.requireNonNull(initialDelay);
+        this.maxDelay = Objects.requireNonNull(maxDelay);
+        if (initialDelay.isNegative() || maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("Delays must satisfy 0 <= initialDelay <= maxDelay");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("multiplier must be at least 1");
+        }
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        }
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+    }
+
+    public static Backoff fixed(final Duration delay) {
+        return new Backoff(delay, delay, 1, 0);
+    }
+
+    /**
+     * @return a Backoff doubling from the initial delay up to the maximum
+     */
+    public static Backoff exponential(final Duration initialDelay, final Duration maxDelay) {
+        return new Backoff(initialDelay, maxDelay, 2, 0);
+    }
+
+    public Backoff withMultiplier(final double multiplier) {
+        return new Backoff(initialDelay, maxDelay, multiplier, jitter);
+    }
+
+    /**
+     * @param jitter the fraction, between 0 and 1, by which each delay may be randomly shortened
+     */
+    public Backoff withJitter(final double jitter) {
+        return new Backoff(initialDelay, maxDelay, multiplier, jitter);
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @param attempt the number of attempts already made, starting at 0
+     * @return the delay before the next attempt
+     */
+    public Duration delay(final int attempt) {
+        double millis = initialDelay.toMillis() * Math.pow(multiplier, Math.max(0, attempt));
+        millis = Math.min(millis, maxDelay.toMillis());
+        if (jitter > 0) {
+            millis -= millis * jitter * ThreadLocalRandom.current().nextDouble();
+        }
+        return Duration.ofMillis((long) millis);
+    }
+
+    @Override
+    public String toString() {
+        return "Backoff{initialDelay=" + initialDelay + ", maxDelay=" + maxDelay + ", multiplier=" + multiplier
+            + ", jitter=" + jitter + "}";
+    }
+}
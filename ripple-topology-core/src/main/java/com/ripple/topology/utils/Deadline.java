@@ -0,0 +1,163 @@
+package com.ripple.topology.utils;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A point in time by which work must be done, such as a Topology's total start budget, or the start timeout of a single
+ * Element.  Deadlines only ever get earlier as they're passed down: a nested Element's deadline is the earliest of its
+ * own timeout and its parent's deadline.
+ *
+ * @author jfulton
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(0, false);
+
+    private final long nanos;
+    private final boolean bounded;
+
+    private Deadline(final long nanos, final boolean bounded) {
+        this.nanos = nanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * @return a deadline that never passes
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * @return a deadline the given time from now, or {@link #none()} if the timeout is null
+     */
+    public static Deadline after(final Duration timeout) {
+        if (timeout == null) {
+            return NONE;
+        }
+        return new Deadline(System.nanoTime() + timeout.toNanos(), true);
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - nanos >= 0;
+    }
+
+    /**
+     * @return the time left until the deadline, never negative, or empty if the deadline never passes
+     */
+    public Optional<Duration> remaining() {
+        if (!bounded) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(Math.max(0, nanos - System.nanoTime())));
+    }
+
+    /**
+     * @return the given wait, shortened if necessary so it ends by the deadline
+     */
+    public Duration cap(final Duration wait) {
+        Objects.requireNonNull(wait);
+        return remaining().filter(remaining -> remaining.compareTo(wait) < 0).orElse(wait);
+    }
+
+    /**
+     * @return the earlier of this deadline and the given one
+     */
+    public Deadline min(final Deadline other) {
+        Objects.requireNonNull(other);
+        if (!other.bounded) {
+            return this;
+        } else if (!bounded) {
+            return other;
+        }
+        return nanos - other.nanos <= 0 ? this : other;
+    }
+
+    /**
+     * @return the earlier of this deadline and the given time from now, or this deadline if the timeout is null
+     */
+    public Deadline limit(final Duration timeout) {
+        return timeout == null ? this : min(after(timeout));
+    }
+
+    /**
+     * @return a future that completes like the given one, or exceptionally with a {@link TimeoutException} if it hasn't
+     * completed by the deadline, in which case the given future is cancelled, interrupting it if possible.  Cancelling
+     * the returned future also cancels the given one.
+     */
+    public <T> CompletableFuture<T> enforce(final CompletableFuture<T> future, final String subject) {
+        Objects.requireNonNull(future);
+        if (!bounded || future.isDone()) {
+            return future;
+        }
+        final Bounded<T> result = new Bounded<>(future);
+        final TimeoutException timeout = new TimeoutException(subject + " did not complete by its deadline");
+        final AtomicBoolean expired = new AtomicBoolean();
+        // The source is cancelled before the result times out, so callers never see a timeout while it's still running
+        final ScheduledFuture<?> timer = Timer.instance.schedule(() -> {
+            expired.set(true);
+            future.cancel(true);
+            result.completeExceptionally(timeout);
+        }, Math.max(0, nanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        future.whenComplete((value, throwable) -> {
+            timer.cancel(false);
+            if (expired.get() && future.isCancelled()) {
+                result.completeExceptionally(timeout);
+            } else if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return remaining().map(remaining -> "Deadline{remaining=" + remaining.toMillis() + " ms}")
+            .orElse("Deadline{none}");
+    }
+
+    private static final class Bounded<T> extends CompletableFuture<T> {
+
+        private final CompletableFuture<T> source;
+
+        private Bounded(final CompletableFuture<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            source.cancel(mayInterruptIfRunning);
+            return cancelled;
+        }
+    }
+
+    // Lazily starts the timer thread only when the first deadline is enforced
+    private static final class Timer {
+        private static final ScheduledThreadPoolExecutor instance = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "topology-deadline");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
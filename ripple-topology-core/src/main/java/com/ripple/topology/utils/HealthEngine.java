@@ -0,0 +1,262 @@
+package com.ripple.topology.utils;
+
+import com.ripple.topology.AsyncHealthCheck;
+import com.ripple.topology.Element;
+import com.ripple.topology.HealthCheck;
+import com.ripple.topology.Resource;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Waits for any number of health checks on a fixed number of threads.  Pauses between probes are scheduled on a
+ * single timer thread rather than slept, and blocking {@link HealthCheck}s are probed on a small, bounded pool, so the
+ * thread count stays constant no matter how many checks are waiting.
+ * <p>
+ * A check is probed until it's healthy or the maximum wait has elapsed, after which it's given one last chance.
+ *
+ * @author jfulton
+ */
+public class HealthEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthEngine.class);
+    private static final Duration WATCHDOG_GRACE = Duration.ofSeconds(1);
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ExecutorService probes;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Metrics metrics;
+
+    public HealthEngine(final int probeThreads) {
+        this(probeThreads, null);
+    }
+
+    /**
+     * @param metrics the Metrics to report probe latencies and attempts to, or null to report to
+     * {@link Metrics#global()}
+     */
+    public HealthEngine(final int probeThreads, final Metrics metrics) {
+        this.metrics = metrics;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, daemonThreadFactory("topology-health-scheduler"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.probes = Executors.newFixedThreadPool(probeThreads, daemonThreadFactory("topology-health-probe"));
+    }
+
+    /**
+     * @return the engine shared by {@link HealthUtils} and Elements that wait for health
+     */
+    public static HealthEngine shared() {
+        return Shared.instance;
+    }
+
+    /**
+     * @return whether the Element is a {@link HealthCheck} or an {@link AsyncHealthCheck}
+     */
+    public static boolean isHealthCheck(final Element element) {
+        return element instanceof HealthCheck || element instanceof AsyncHealthCheck;
+    }
+
+    /**
+     * @return the number of checks currently being waited for
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public CompletableFuture<Boolean> waitForHealth(final Duration maxWait, final Backoff backoff,
+        final String healthSubject, final HealthCheck healthCheck) {
+        Objects.requireNonNull(healthCheck);
+        return waitForHealth(maxWait, backoff, healthSubject, asAsync(healthCheck));
+    }
+
+    /**
+     * @return a future completing with whether the check became healthy within the maximum wait.  It completes
+     * exceptionally if a probe fails, and cancelling it stops probing.
+     */
+    public CompletableFuture<Boolean> waitForHealth(final Duration maxWait, final Backoff backoff,
+        final String healthSubject, final AsyncHealthCheck healthCheck) {
+        waiting.incrementAndGet();
+        final Wait wait = new Wait(Objects.requireNonNull(maxWait), Objects.requireNonNull(backoff),
+            Objects.requireNonNull(healthSubject), Objects.requireNonNull(healthCheck), new Result());
+
+        // Don't wait forever for a probe that never completes
+        final long watchdog = maxWait.plus(backoff.getMaxDelay()).plus(WATCHDOG_GRACE).toMillis();
+        final ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+            if (wait.result.complete(false)) {
+                logger.warn("{} did not respond to health checks within {} millis", healthSubject, watchdog);
+            }
+        }, watchdog, TimeUnit.MILLISECONDS);
+        wait.result.whenComplete((healthy, throwable) -> timeout.cancel(false));
+
+        probe(wait);
+        return wait.result;
+    }
+
+    /**
+     * Waits for several checks at once, each of which must be a {@link HealthCheck} or an {@link AsyncHealthCheck}.
+     *
+     * @return a future completing with whether every check became healthy within the maximum wait
+     */
+    public CompletableFuture<Boolean> waitForAll(final Duration maxWait, final Backoff backoff,
+        final Collection<? extends Element> healthChecks) {
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (Element element : healthChecks) {
+            final String id = subject(element);
+            if (element instanceof AsyncHealthCheck) {
+                futures.add(waitForHealth(maxWait, backoff, id, (AsyncHealthCheck) element));
+            } else if (element instanceof HealthCheck) {
+                futures.add(waitForHealth(maxWait, backoff, id, (HealthCheck) element));
+            } else {
+                throw new IllegalArgumentException(element.getClass().getName() + " is not a health check");
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(aVoid -> {
+            final long successes = futures.stream().filter(CompletableFuture::join).count();
+            if (successes < futures.size()) {
+                logger.warn("{} out of {} health checks failed to be healthy within {} millis",
+                    futures.size() - successes, futures.size(), maxWait.toMillis());
+            }
+            return successes == futures.size();
+        });
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        probes.shutdownNow();
+    }
+
+    private Metrics metrics() {
+        return metrics != null ? metrics : Metrics.global();
+    }
+
+    static String subject(final Element element) {
+        return element instanceof Resource ? ((Resource) element).getKey() : element.getClass().getName();
+    }
+
+    private AsyncHealthCheck asAsync(final HealthCheck healthCheck) {
+        return () -> CompletableFuture.supplyAsync(healthCheck::isHealthy, probes);
+    }
+
+    private void probe(final Wait wait) {
+        if (wait.result.isDone()) {
+            return;
+        }
+        final Metrics metrics = metrics();
+        metrics.counter(MetricNames.HEALTH_ATTEMPTS).increment();
+        final long probeStart = System.nanoTime();
+        final CompletableFuture<Boolean> probe;
+        try {
+            probe = wait.healthCheck.isHealthyAsync();
+        } catch (RuntimeException ex) {
+            metrics.timer(MetricNames.HEALTH_PROBE, "outcome", "failure").record(System.nanoTime() - probeStart);
+            wait.result.completeExceptionally(ex);
+            return;
+        }
+        probe.whenComplete((healthy, throwable) -> {
+            metrics.timer(MetricNames.HEALTH_PROBE, "outcome", throwable != null ? "failure"
+                : Boolean.TRUE.equals(healthy) ? "healthy" : "unhealthy").record(System.nanoTime() - probeStart);
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wait.startNanos);
+            if (throwable != null) {
+                wait.result.completeExceptionally(throwable instanceof CompletionException && throwable.getCause()
+                    != null ? throwable.getCause() : throwable);
+            } else if (Boolean.TRUE.equals(healthy)) {
+                logger.info("{} available within {} millis", wait.healthSubject, elapsed);
+                wait.result.complete(true);
+            } else if (elapsed >= wait.maxWait.toMillis()) {
+                wait.result.complete(false);
+            } else {
+                logger.info("Waiting a maximum of {} millis for {} availability", wait.maxWait.toMillis() - elapsed,
+                    wait.healthSubject);
+                final long delay = wait.backoff.delay(wait.attempts++).toMillis();
+                metrics.counter(MetricNames.RETRIES, "kind", "health").increment();
+                try {
+                    scheduler.schedule(() -> probe(wait), delay, TimeUnit.MILLISECONDS);
+                } catch (RuntimeException ex) {
+                    wait.result.completeExceptionally(ex);
+                }
+            }
+        });
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Wait {
+        private final Duration maxWait;
+        private final Backoff backoff;
+        private final String healthSubject;
+        private final AsyncHealthCheck healthCheck;
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<Boolean> result;
+        private int attempts;
+
+        private Wait(final Duration maxWait, final Backoff backoff, final String healthSubject,
+            final AsyncHealthCheck healthCheck, final CompletableFuture<Boolean> result) {
+            this.maxWait = maxWait;
+            this.backoff = backoff;
+            this.healthSubject = healthSubject;
+            this.healthCheck = healthCheck;
+            this.result = result;
+        }
+    }
+
+    /**
+     * The result of a wait, which stops counting as waiting before it completes, so callers never see a finished wait
+     * still being counted.
+     */
+    private final class Result extends CompletableFuture<Boolean> {
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        @Override
+        public boolean complete(final Boolean value) {
+            return finish() && super.complete(value);
+        }
+
+        @Override
+        public boolean completeExceptionally(final Throwable throwable) {
+            return finish() && super.completeExceptionally(throwable);
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            return finish() && super.cancel(mayInterruptIfRunning);
+        }
+
+        private boolean finish() {
+            if (finished.compareAndSet(false, true)) {
+                waiting.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Lazily starts the shared engine's threads only when the first health check is waited for
+    private static final class Shared {
+        private static final HealthEngine instance = new HealthEngine(
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+}
@@ -1,20 +1,20 @@
 package com.ripple.topology.utils;
 
+import com.ripple.topology.Element;
 import com.ripple.topology.HealthCheck;
-import com.ripple.topology.Resource;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Blocking waits for health, run on the shared {@link HealthEngine}.
+ *
  * @author jfulton
  */
 public class HealthUtils {
@@ -22,9 +22,7 @@ public class HealthUtils {
     private static final Logger logger = LoggerFactory.getLogger(HealthUtils.class);
 
     public static boolean waitForHealth(Duration maxWait, Duration retryPause, HealthCheck healthCheck) {
-        String id = healthCheck instanceof Resource ? ((Resource) healthCheck).getKey()
-            : healthCheck.getClass().getName();
-        return waitForHealth(maxWait, retryPause, id, healthCheck);
+        return waitForHealth(maxWait, retryPause, HealthEngine.subject(healthCheck), healthCheck);
     }
 
     public static boolean waitForHealth(Duration maxWait, Duration retryPause, String healthSubject, HealthCheck healthCheck) {
@@ -35,53 +33,60 @@ public class HealthUtils {
         if (maxWait.compareTo(retryPause) <= 0) {
             throw new RuntimeException("maxWait must be larger than retryPause");
         }
-        final long startTime = System.currentTimeMillis();
-        final long timeout = startTime + maxWait.toMillis();
-        while (System.currentTimeMillis() < timeout) {
-            if (healthCheck.isHealthy()) {
-                logger.info("{} available within {} millis", healthSubject, System.currentTimeMillis() - startTime);
-                return true;
-            } else {
-                logger.info("Waiting a maximum of {} millis for {} availability", maxWait.toMillis() - (System.currentTimeMillis() - startTime), healthSubject);
-                try {
-                    Thread.sleep(retryPause.toMillis());
-                } catch (InterruptedException ex) {
-                    logger.error("Interrupted", ex);               
-                }
-            }
-        }
-        return healthCheck.isHealthy();
+        return await(HealthEngine.shared().waitForHealth(maxWait, Backoff.fixed(retryPause), healthSubject,
+            healthCheck));
+    }
+
+    /**
+     * Waits for a HealthCheck, pausing between probes according to the given Backoff.
+     */
+    public static boolean waitForHealth(Duration maxWait, Backoff backoff, String healthSubject,
+        HealthCheck healthCheck) {
+        return await(HealthEngine.shared().waitForHealth(maxWait, backoff, healthSubject, healthCheck));
     }
 
     public static boolean waitForHealth(Duration maxWait, Duration retryPause, List<HealthCheck> healthChecks) {
         if (healthChecks.size() > 0) {
-            Executor executor = Executors.newFixedThreadPool(healthChecks.size());
-            CountDownLatch latch = new CountDownLatch(healthChecks.size());
-            final AtomicInteger healthCheckSuccesses = new AtomicInteger();
-
-            for (HealthCheck healthCheck : healthChecks) {
-                executor.execute(() -> {
-                    if (waitForHealth(maxWait, retryPause, healthCheck)) {
-                        healthCheckSuccesses.incrementAndGet();
-                    }
-                    latch.countDown();
-                });
+            if (maxWait.compareTo(retryPause) <= 0) {
+                throw new RuntimeException("maxWait must be larger than retryPause");
             }
+            return await(HealthEngine.shared().waitForAll(maxWait, Backoff.fixed(retryPause), healthChecks));
+        }
+        return true;
+    }
 
-            try {
-                latch.await(maxWait.toMillis() + 1000, TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                logger.error("Error awaiting latch", e);
-            } finally {
-                ((ExecutorService) executor).shutdown();
-            }
-            if (healthCheckSuccesses.get() < healthChecks.size()) {
-                logger.warn("{} out of {} health checks failed to be healthy within {} millis",
-                    (healthChecks.size() - healthCheckSuccesses.get()), healthChecks.size(),
-                    maxWait);
+    /**
+     * Waits for several checks at once, each of which must be a {@link HealthCheck} or an
+     * {@link com.ripple.topology.AsyncHealthCheck}.
+     */
+    public static boolean waitForAll(Duration maxWait, Backoff backoff, Collection<? extends Element> healthChecks) {
+        return await(HealthEngine.shared().waitForAll(maxWait, backoff, healthChecks));
+    }
+
+    /**
+     * Waits are cancelled when the waiting thread is interrupted, such as when a fail-fast start cancels the
+     * Lifecycles still starting.
+     *
+     * @throws CancellationException if the waiting thread is interrupted, leaving it interrupted
+     */
+    private static boolean await(CompletableFuture<Boolean> healthy) {
+        try {
+            return healthy.get();
+        } catch (InterruptedException e) {
+            healthy.cancel(false);
+            Thread.currentThread().interrupt();
+            logger.debug("Interrupted while waiting for health");
+            final CancellationException cancellation =
+                new CancellationException("Interrupted while waiting for health");
+            cancellation.initCause(e);
+            throw cancellation;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
             }
-            return healthCheckSuccesses.get() == healthChecks.size();
+            throw new RuntimeException(e.getCause());
         }
-        return true;
     }
 }
@@ -1,7 +1,11 @@
 package com.ripple.topology.utils;
 
+import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
+import java.net.Socket;
+import java.time.Duration;
 import java.util.Enumeration;
 
 /**
@@ -55,4 +59,16 @@ public class HostUtils {
             throw unknownHostException;
         }
     }
+
+    /**
+     * @return whether something accepts TCP connections on the given host and port, within the given connect timeout
+     */
+    public static boolean isListening(String host, int port, Duration connectTimeout) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), (int) connectTimeout.toMillis());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
 }
@@ -3,19 +3,27 @@ package com.ripple.topology.utils;
 import com.google.common.collect.ForwardingList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
+ * A List that notifies listeners of additions, removals and reordering, once the list has changed.  By default, the
+ * list and its listeners are backed by {@link CopyOnWriteArrayList}s, so they may be read and modified concurrently;
+ * reads, which vastly outnumber writes in a Topology, never block.
+ *
  * @author jfulton
  */
 @SuppressWarnings({"NullableProblems", "unchecked"})
 public class ObservableList<T> extends ForwardingList<T> {
 
     private List<T> delegate;
-    private ArrayList<Consumer<T>> onAddListeners = new ArrayList<>();
-    private ArrayList<Consumer<T>> onRemoveListeners = new ArrayList<>();
+    private final List<Consumer<T>> onAddListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<T>> onRemoveListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> onSortListeners = new CopyOnWriteArrayList<>();
     private Class<T> type;
 
     public ObservableList(final List<T> observed) {
@@ -23,7 +31,7 @@ public class ObservableList<T> extends ForwardingList<T> {
     }
 
     public ObservableList() {
-        this.delegate = new ArrayList<>();
+        this.delegate = new CopyOnWriteArrayList<>();
     }
 
     @Override
@@ -33,20 +41,22 @@ public class ObservableList<T> extends ForwardingList<T> {
 
     @Override
     public void add(final int index, final T element) {
-        fireOnAdd(element);
         super.add(index, element);
+        fireOnAdd(element);
     }
 
     @Override
     public boolean add(final T element) {
+        final boolean added = super.add(element);
         fireOnAdd(element);
-        return super.add(element);
+        return added;
     }
 
     @Override
     public boolean addAll(final int index, final Collection<? extends T> elements) {
+        final boolean added = super.addAll(index, elements);
         elements.forEach(this::fireOnAdd);
-        return super.addAll(index, elements);
+        return added;
     }
 
     @Override
@@ -67,10 +77,33 @@ public class ObservableList<T> extends ForwardingList<T> {
 
     @Override
     public boolean removeAll(final Collection<?> collection) {
-        for (Object o : collection) {
-            fireOnRemove((T)o);
+        final List<T> removed = new ArrayList<>();
+        for (T element : delegate) {
+            if (collection.contains(element)) {
+                removed.add(element);
+            }
         }
-        return super.removeAll(collection);
+        final boolean changed = super.removeAll(collection);
+        removed.forEach(this::fireOnRemove);
+        return changed;
+    }
+
+    @Override
+    public boolean removeIf(final Predicate<? super T> filter) {
+        Objects.requireNonNull(filter);
+        boolean removed = false;
+        for (T element : new ArrayList<>(delegate)) {
+            if (filter.test(element)) {
+                removed |= remove(element);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void sort(final Comparator<? super T> comparator) {
+        delegate.sort(comparator);
+        onSortListeners.forEach(Runnable::run);
     }
 
     @Override
@@ -83,8 +116,9 @@ public class ObservableList<T> extends ForwardingList<T> {
 
     @Override
     public boolean addAll(final Collection<? extends T> collection) {
+        final boolean added = super.addAll(collection);
         collection.forEach(this::fireOnAdd);
-        return super.addAll(collection);
+        return added;
     }
 
     public void onRemove(Consumer<T> onRemove) {
@@ -95,6 +129,10 @@ public class ObservableList<T> extends ForwardingList<T> {
         onAddListeners.add(onAdd);
     }
 
+    public void onSort(Runnable onSort) {
+        onSortListeners.add(onSort);
+    }
+
     private void fireOnAdd(T element){
         onAddListeners.forEach(listener -> listener.accept(element));
     }
@@ -103,12 +141,16 @@ public class ObservableList<T> extends ForwardingList<T> {
         onRemoveListeners.forEach(listener -> listener.accept(element));
     }
 
-    public ArrayList<Consumer<T>> getOnAddListeners() {
+    public List<Consumer<T>> getOnAddListeners() {
         return onAddListeners;
     }
 
-    public ArrayList<Consumer<T>> getOnRemoveListeners() {
+    public List<Consumer<T>> getOnRemoveListeners() {
         return onRemoveListeners;
     }
+
+    public List<Runnable> getOnSortListeners() {
+        return onSortListeners;
+    }
 }
 
@@ -0,0 +1,108 @@
+package com.ripple.topology.variables;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.ExecutionException;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.context.Context;
+import org.apache.velocity.context.InternalContextAdapterImpl;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.exception.TemplateInitException;
+import org.apache.velocity.exception.VelocityException;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+
+/**
+ * A bounded cache of parsed and initialized Velocity templates, keyed by template text, so that templates resolved
+ * repeatedly are only parsed once.  Parsed templates are immutable once initialized, so a single cache is safely shared
+ * by every {@link VelocityVariableResolver}, including clones.
+ *
+ * @author jfulton
+ */
+public class TemplateCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final TemplateCache shared = new TemplateCache(DEFAULT_MAXIMUM_SIZE);
+
+    private final Cache<String, SimpleNode> templates;
+
+    public TemplateCache(final long maximumSize) {
+        this.templates = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * @return the cache shared by all VelocityVariableResolvers by default
+     */
+    public static TemplateCache shared() {
+        return shared;
+    }
+
+    /**
+     * Renders the template against the given context, parsing it only if it isn't already cached.
+     */
+    public void render(final Context context, final Writer writer, final String logTag, final String template) {
+        final SimpleNode node = get(logTag, template);
+        final InternalContextAdapterImpl ica = new InternalContextAdapterImpl(context);
+        ica.pushCurrentTemplateName(logTag);
+        try {
+            node.render(ica, writer);
+        } catch (IOException e) {
+            throw new VelocityException("IO Error rendering '" + logTag + "'", e);
+        } finally {
+            ica.popCurrentTemplateName();
+        }
+    }
+
+    public CacheStats stats() {
+        return templates.stats();
+    }
+
+    public long size() {
+        return templates.size();
+    }
+
+    public void clear() {
+        templates.invalidateAll();
+    }
+
+    private SimpleNode get(final String logTag, final String template) {
+        try {
+            return templates.get(template, () -> parse(logTag, template));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new VelocityException("Error parsing '" + logTag + "'", e.getCause());
+        }
+    }
+
+    private static SimpleNode parse(final String logTag, final String template) {
+        final RuntimeServices runtime = RuntimeSingleton.getRuntimeServices();
+        final SimpleNode node;
+        try {
+            node = runtime.parse(new StringReader(template), logTag);
+        } catch (ParseException e) {
+            throw new ParseErrorException(e, null);
+        }
+        final InternalContextAdapterImpl ica = new InternalContextAdapterImpl(new VelocityContext());
+        ica.pushCurrentTemplateName(logTag);
+        try {
+            node.init(ica, runtime);
+        } catch (TemplateInitException e) {
+            throw new ParseErrorException(e, null);
+        } finally {
+            ica.popCurrentTemplateName();
+        }
+        return node;
+    }
+}
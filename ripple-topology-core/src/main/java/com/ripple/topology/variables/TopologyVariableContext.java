@@ -0,0 +1,93 @@
+package com.ripple.topology.variables;
+
+import com.ripple.topology.Resource;
+import com.ripple.topology.VariableResolver;
+import com.ripple.topology.VariableSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.velocity.VelocityContext;
+
+/**
+ * The variable context shared by every Element in a {@link com.ripple.topology.Topology}, maintained incrementally
+ * rather than rebuilt for each Element.
+ * <p>
+ * The context has two layers.  The resource layer holds every registered Resource by key, and is updated as Resources
+ * are registered and deregistered.  The variables layer, chained on top of it, holds the resolved variables of global
+ * {@link VariableSource}s and the Topology itself.  Since those variables may reference Resources, the variables layer
+ * is only rebuilt when a Resource is registered or deregistered, when {@link #invalidate()} is called after Resources
+ * may have changed state, or when the variable sources themselves change.  Each Element then gets its own resolver,
+ * chained on top of both layers, so nothing is copied per Element.
+ *
+ * @author jfulton
+ */
+public class TopologyVariableContext {
+
+    private final VelocityContext resources = new VelocityContext(new ConcurrentHashMap<>());
+    private VelocityContext variables;
+    private int fingerprint;
+
+    public void putResource(final Resource resource) {
+        resources.put(resource.getKey(), resource);
+        invalidate();
+    }
+
+    public void removeResource(final Resource resource) {
+        resources.remove(resource.getKey());
+        invalidate();
+    }
+
+    /**
+     * Forces variables to be re-resolved on next use, such as after Resources they reference have started.
+     */
+    public synchronized void invalidate() {
+        variables = null;
+    }
+
+    /**
+     * @param sources the global variable sources, in declaration order
+     * @param topologyVariables the Topology's own variables, which override those of any source
+     * @return a new resolver for a single Element, sharing the resolved Resources and variables
+     */
+    public VariableResolver newResolver(final List<? extends VariableSource<?>> sources,
+        final Map<String, Object> topologyVariables) {
+        return new VelocityVariableResolver(new VelocityContext(variables(sources, topologyVariables)));
+    }
+
+    private synchronized VelocityContext variables(final List<? extends VariableSource<?>> sources,
+        final Map<String, Object> topologyVariables) {
+        final int current = fingerprint(sources, topologyVariables);
+        if (variables == null || current != fingerprint) {
+            final VelocityContext layer = new VelocityContext(resources);
+            final VelocityVariableResolver resolver = new VelocityVariableResolver(layer);
+            for (VariableSource<?> source : sources) {
+                resolver.putAll(source.getVariables());
+            }
+            topologyVariables.forEach(resolver::put);
+            variables = layer;
+            fingerprint = current;
+        }
+        return variables;
+    }
+
+    private static int fingerprint(final List<? extends VariableSource<?>> sources,
+        final Map<String, Object> topologyVariables) {
+        int result = 1;
+        for (VariableSource<?> source : sources) {
+            result = 31 * result + System.identityHashCode(source);
+            result = 31 * result + fingerprint(source.getVariables());
+        }
+        return 31 * result + fingerprint(topologyVariables);
+    }
+
+    private static int fingerprint(final Map<String, Object> variables) {
+        // forEach, unlike iteration, is atomic for synchronized and concurrent maps
+        final int[] result = {1};
+        variables.forEach((key, value) -> {
+            result[0] = 31 * result[0] + Objects.hashCode(key);
+            result[0] = 31 * result[0] + Objects.hashCode(value);
+        });
+        return result[0];
+    }
+}
@@ -20,11 +20,12 @@ public class VariableUtils {
      */
     public static void overrideFromSystemProperties(final Map<String, Object> variables, final String sourceType) {
         Objects.requireNonNull(variables);
-        for (String key : variables.keySet()) {
+        variables.replaceAll((key, value) -> {
             if (System.getProperties().containsKey(key)) {
                 logger.info("Replacing {} '{}' from System Property", sourceType, key);
-                variables.put(key, System.getProperty(key));
+                return System.getProperty(key);
             }
-        }
+            return value;
+        });
     }
 }
@@ -6,31 +6,41 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
 
 /**
+ * Resolves variables using Velocity templates.  Parsed templates are kept in a {@link TemplateCache}, shared with every
+ * clone, and strings that can't contain any Velocity references or directives are returned as-is.
+ *
  * @author jfulton
  */
 public class VelocityVariableResolver implements VariableResolver {
 
     private static final String LOG_TAG = "variables";
     private final VelocityContext context;
+    private final TemplateCache templateCache;
 
     public VelocityVariableResolver() {
         this (new VelocityContext());
     }
 
     public VelocityVariableResolver(final VelocityContext context) {
+        this(context, TemplateCache.shared());
+    }
+
+    public VelocityVariableResolver(final VelocityContext context, final TemplateCache templateCache) {
         this.context = Objects.requireNonNull(context);
+        this.templateCache = Objects.requireNonNull(templateCache);
     }
 
     @Override
     public String resolve(final String template) {
         if (template == null) {
             return null;
+        } else if (template.indexOf('$') < 0 && template.indexOf('#') < 0) {
+            return template;
         } else {
             StringWriter writer = new StringWriter();
-            Velocity.evaluate(context, writer, LOG_TAG, template);
+            templateCache.render(context, writer, LOG_TAG, template);
             return writer.toString();
         }
     }
@@ -52,6 +62,6 @@ public class VelocityVariableResolver implements VariableResolver {
 
     @Override
     public VariableResolver clone() {
-        return new VelocityVariableResolver((VelocityContext) context.clone());
+        return new VelocityVariableResolver((VelocityContext) context.clone(), templateCache);
     }
 }
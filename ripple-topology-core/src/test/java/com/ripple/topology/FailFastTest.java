@@ -0,0 +1,229 @@
+package com.ripple.topology;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.ripple.topology.elements.AbstractPropertiesAwareResource;
+import com.ripple.topology.elements.ParallelElementGroup;
+import com.ripple.topology.elements.SerialElementGroup;
+import com.ripple.topology.scheduling.ScheduleReport.Entry;
+import com.ripple.topology.scheduling.ScheduleReport.Status;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import com.ripple.topology.utils.HealthUtils;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class FailFastTest {
+
+    private static final long FAIL = -1;
+    private static final long UNHEALTHY = -2;
+
+    private final List<String> stopped = new CopyOnWriteArrayList<>();
+    private final List<String> cancelled = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void setUp() {
+        stopped.clear();
+        cancelled.clear();
+    }
+
+    @Test(timeOut = 10000)
+    public void testParallelGroupCancelsSiblings() {
+        CountDownLatch running = new CountDownLatch(2);
+        ParallelElementGroup group = new ParallelElementGroup().setFailFast(true);
+        group.addElement(new StartingResource("slow", UNHEALTHY).signal(running));
+        group.addElement(new StartingResource("broken", FAIL).await(running));
+        group.addElement(new StartingResource("fast", 10).signal(running));
+
+        long start = System.nanoTime();
+        Topology topology = new Topology().addElement(group).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(5000L));
+        awaitCancelled("slow");
+        // Cancelled Elements may not have run, so only those that started are stopped
+        assertThat(stopped, contains("fast"));
+    }
+
+    @Test(timeOut = 10000)
+    public void testCancellationReachesNestedGroups() {
+        CountDownLatch running = new CountDownLatch(1);
+        ParallelElementGroup nested = new ParallelElementGroup();
+        nested.addElement(new StartingResource("nested", UNHEALTHY).signal(running));
+        ParallelElementGroup group = new ParallelElementGroup().setFailFast(true);
+        group.addElement(nested);
+        group.addElement(new StartingResource("broken", FAIL).await(running));
+
+        Topology topology = new Topology().addElement(group).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        awaitCancelled("nested");
+        assertThat(stopped, is(empty()));
+    }
+
+    @Test(timeOut = 10000)
+    public void testCancellationReachesNestedSerialGroups() {
+        CountDownLatch running = new CountDownLatch(1);
+        SerialElementGroup nested = new SerialElementGroup();
+        nested.addElement(new StartingResource("first", 10));
+        nested.addElement(new StartingResource("second", UNHEALTHY).signal(running));
+        nested.addElement(new StartingResource("never", 10));
+        ParallelElementGroup group = new ParallelElementGroup().setFailFast(true);
+        group.addElement(nested);
+        group.addElement(new StartingResource("broken", FAIL).await(running));
+
+        Topology topology = new Topology().addElement(group).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        awaitCancelled("second");
+        // The cancelled serial group stops the Elements it started, and starts no more
+        assertThat(stopped, contains("first"));
+    }
+
+    @Test(timeOut = 10000)
+    public void testFailingSerialGroupRollsBackParallelSiblings() {
+        CountDownLatch running = new CountDownLatch(1);
+        SerialElementGroup nested = new SerialElementGroup();
+        nested.addElement(new StartingResource("broken", FAIL).await(running));
+        ParallelElementGroup group = new ParallelElementGroup().setFailFast(true);
+        group.addElement(nested);
+        group.addElement(new StartingResource("fast", 10).signal(running));
+
+        Topology topology = new Topology().addElement(group).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(stopped, contains("fast"));
+    }
+
+    @Test(timeOut = 10000)
+    public void testGroupIsNotFailFastByDefault() {
+        ParallelElementGroup group = new ParallelElementGroup();
+        group.addElement(new StartingResource("broken", FAIL));
+        group.addElement(new StartingResource("fast", 200));
+
+        Topology topology = new Topology().addElement(group).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(stopped, is(empty()));
+    }
+
+    @Test(timeOut = 10000)
+    public void testTopologyRollsBackStartedElements() {
+        Topology topology = new Topology().setFailFast(true)
+            .addElement(new StartingResource("db", 10))
+            .addElement(new StartingResource("cache", 10))
+            .addElement(new StartingResource("app", FAIL))
+            .addElement(new StartingResource("never", 10))
+            .startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(stopped, containsInAnyOrder("db", "cache"));
+        // The Topology is left stopped
+        assertThat(topology.stopSync().getStopped(), containsInAnyOrder("db", "cache"));
+        assertThat(stopped.size(), is(2));
+    }
+
+    @Test(timeOut = 10000)
+    public void testDependencyScheduledCancelsInFlight() {
+        CountDownLatch running = new CountDownLatch(1);
+        long start = System.nanoTime();
+        Topology topology = new Topology().setFailFast(true).setScheduleByDependencies(true)
+            .addElement(new StartingResource("slow", UNHEALTHY).signal(running))
+            .addElement(new StartingResource("broken", 50))
+            .addElement(new StartingResource("app", FAIL).await(running).addProperty("db", "${broken.key}"))
+            .startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(5000L));
+        Entry slow = topology.scheduleReport().get().getEntries().get(0);
+        assertThat(slow.getStatus(), is(Status.CANCELLED));
+        awaitCancelled("slow");
+        assertThat(stopped, contains("broken"));
+    }
+
+    @Test
+    public void testSerialization() {
+        String yaml = "---\n"
+            + "failFast: true\n"
+            + "elements:\n"
+            + "- type: \"parallel\"\n"
+            + "  failFast: true\n";
+
+        Topology topology = TopologyMarshaller.forYaml().read(yaml);
+        assertThat(topology.isFailFast(), is(true));
+        assertThat(((ParallelElementGroup) topology.getElements().get(0)).isFailFast(), is(true));
+    }
+
+    private void awaitCancelled(final String key) {
+        while (!cancelled.contains(key)) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Starts after a delay, fails, or never becomes healthy.  A failing resource may {@link #await(CountDownLatch)
+     * await} its siblings, each of which {@link #signal(CountDownLatch) signals} once it's waiting for health or has
+     * started, so the failure reliably interrupts the former and rolls back the latter.
+     */
+    private class StartingResource extends AbstractPropertiesAwareResource<StartingResource> implements Lifecycle {
+
+        private final long millis;
+        private CountDownLatch signal = new CountDownLatch(0);
+        private CountDownLatch await = new CountDownLatch(0);
+
+        StartingResource(final String key, final long millis) {
+            super(key);
+            this.millis = millis;
+        }
+
+        StartingResource signal(final CountDownLatch signal) {
+            this.signal = signal;
+            return this;
+        }
+
+        StartingResource await(final CountDownLatch await) {
+            this.await = await;
+            return this;
+        }
+
+        @Override
+        public CompletableFuture<Void> start(final Topology topology) {
+            CompletableFuture<Void> future = topology.getExecutor().runAsync(() -> {
+                try {
+                    if (millis == FAIL) {
+                        await.await();
+                        throw new IllegalStateException("Failed to start " + getKey());
+                    }
+                    if (millis == UNHEALTHY) {
+                        signal.countDown();
+                        HealthUtils.waitForHealth(Duration.ofSeconds(30), Duration.ofMillis(100), getKey(),
+                            () -> false);
+                    } else {
+                        Thread.sleep(millis);
+                    }
+                } catch (CancellationException | InterruptedException e) {
+                    cancelled.add(getKey());
+                    throw new CancellationException();
+                }
+            });
+            if (millis >= 0) {
+                future.thenRun(signal::countDown);
+            }
+            return future;
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(final Topology topology) {
+            stopped.add(getKey());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.ripple.topology;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.ripple.topology.elements.AbstractPropertiesAwareResource;
+import com.ripple.topology.elements.HostAndPortResource;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class ReconcileTest {
+
+    @Test
+    public void testReconcile() {
+        Topology running = prototype("postgres:5432").startSync();
+        CountingResource db = running.getResource("db", CountingResource.class);
+        CountingResource app = running.getResource("app", CountingResource.class);
+        CountingResource other = running.getResource("other", CountingResource.class);
+        CountingResource old = running.getResource("old", CountingResource.class);
+
+        Topology desired = prototype("postgres:5433");
+        desired.getElements().remove(desired.getResource("old", CountingResource.class));
+        desired.addElement(new CountingResource("new"));
+
+        ReconcileReport report = running.reconcile(desired).join();
+
+        assertThat(report.getChanged(), contains("db"));
+        assertThat(report.getDependents(), contains("app"));
+        assertThat(report.getAdded(), contains("new"));
+        assertThat(report.getRemoved(), contains("old"));
+        assertThat(report.getUnchanged(), contains("other"));
+        assertThat(report.isFailed(), is(false));
+
+        assertThat(db.stops, is(1));
+        assertThat(app.stops, is(1));
+        assertThat(old.stops, is(1));
+        assertThat(other.stops, is(0));
+        assertThat(running.getResource("other", CountingResource.class), is(sameInstance(other)));
+        assertThat(running.getResourceOptional("old", CountingResource.class).isPresent(), is(false));
+
+        CountingResource newApp = running.getResource("app", CountingResource.class);
+        assertThat(newApp.starts, is(1));
+        assertThat(newApp.getProperties().getProperty("db"), is("postgres:5433"));
+
+        // Elements that nothing depends on are added and removed without disturbing the others
+        ReconcileReport second = running.reconcile(prototype("postgres:5433")).join();
+        assertThat(second.getAdded(), contains("old"));
+        assertThat(second.getRemoved(), contains("new"));
+        assertThat(second.getChanged().isEmpty(), is(true));
+        assertThat(second.getUnchanged(), contains("db", "other", "app"));
+        assertThat(running.getResource("app", CountingResource.class), is(sameInstance(newApp)));
+    }
+
+    @Test
+    public void testNoChanges() {
+        Topology running = prototype("postgres:5432").startSync();
+        ReconcileReport report = running.reconcile(prototype("postgres:5432")).join();
+        assertThat(report.hasChanges(), is(false));
+        assertThat(report.getUnchanged().size(), is(4));
+        assertThat(running.getResource("db", CountingResource.class).stops, is(0));
+    }
+
+    @Test
+    public void testVariableChangeRestartsOnlyReferencingElements() {
+        List<String> stopped = new CopyOnWriteArrayList<>();
+        Topology running = prototype("postgres:5432").addVariable("region", "us");
+        running.getResource("db", CountingResource.class).addProperty("region", "${region}");
+        running.startSync();
+        running.getElements(CountingResource.class).forEach(resource -> resource.logStopsTo(stopped));
+        CountingResource other = running.getResource("other", CountingResource.class);
+
+        Topology desired = prototype("postgres:5432").addVariable("region", "eu");
+        desired.getResource("db", CountingResource.class).addProperty("region", "${region}");
+        ReconcileReport report = running.reconcile(desired).join();
+
+        assertThat(report.isVariablesChanged(), is(true));
+        assertThat(report.getChanged(), contains("db"));
+        assertThat(report.getDependents(), contains("app"));
+        assertThat(report.getUnchanged(), contains("other", "old"));
+        assertThat(running.getResource("other", CountingResource.class), is(sameInstance(other)));
+        // Dependents stop before the Elements they depend on
+        assertThat(stopped, contains("app", "db"));
+        assertThat(running.getResource("db", CountingResource.class).getProperties().getProperty("region"),
+            is("eu"));
+    }
+
+    @Test
+    public void testFileWatcher() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("topology");
+        Path file = directory.resolve("topology.yaml");
+        Files.write(file, yaml("localhost:5432").getBytes(StandardCharsets.UTF_8));
+
+        Topology running = TopologyMarshaller.forYaml().read(Files.readAllBytes(file)).startSync();
+        CompletableFuture<ReconcileReport> reconciled = new CompletableFuture<>();
+        try (TopologyFileWatcher watcher = new TopologyFileWatcher(running, file).setQuietPeriodMillis(100)
+            .onReconcile(reconciled::complete).start()) {
+
+            Files.write(file, yaml("localhost:5433").getBytes(StandardCharsets.UTF_8));
+            ReconcileReport report = reconciled.join();
+            assertThat(report.getChanged(), contains("pg"));
+            assertThat(running.getResource("pg", HostAndPortResource.class).getHostAndPort().getPort(), is(5433));
+        }
+    }
+
+    private static String yaml(String hostAndPort) {
+        return "---\n"
+            + "elements:\n"
+            + "- type: \"StaticHostAndPort\"\n"
+            + "  key: \"pg\"\n"
+            + "  hostAndPort: \"" + hostAndPort + "\"\n"
+            + "- type: \"StaticHostAndPort\"\n"
+            + "  key: \"other\"\n"
+            + "  hostAndPort: \"localhost:80\"\n";
+    }
+
+    private static Topology prototype(String db) {
+        return new Topology()
+            .addElement(new CountingResource("db").addProperty("endpoint", db))
+            .addElement(new CountingResource("other"))
+            .addElement(new CountingResource("app").addProperty("db", "${db.properties.endpoint}"))
+            .addElement(new CountingResource("old"));
+    }
+
+    public static class CountingResource extends AbstractPropertiesAwareResource<CountingResource> implements
+        Lifecycle {
+
+        int starts;
+        int stops;
+        private List<String> stopped = new ArrayList<>();
+
+        CountingResource(final String key) {
+            super(key);
+        }
+
+        void logStopsTo(final List<String> stopped) {
+            this.stopped = stopped;
+        }
+
+        @Override
+        public CompletableFuture<Void> start(final Topology topology) {
+            starts++;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(final Topology topology) {
+            stops++;
+            stopped.add(getKey());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
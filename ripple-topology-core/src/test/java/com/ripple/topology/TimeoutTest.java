@@ -0,0 +1,162 @@
+package com.ripple.topology;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.ripple.topology.elements.AbstractPropertiesAwareResource;
+import com.ripple.topology.elements.ParallelElementGroup;
+import com.ripple.topology.elements.SerialElementGroup;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import com.ripple.topology.serialization.modules.DurationModule;
+import com.ripple.topology.utils.Backoff;
+import com.ripple.topology.utils.HealthUtils;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class TimeoutTest {
+
+    private final Map<String, Duration> waits = new ConcurrentHashMap<>();
+
+    @BeforeMethod
+    public void setUp() {
+        waits.clear();
+    }
+
+    @Test
+    public void testDurations() {
+        assertThat(DurationModule.parse("500ms"), is(Duration.ofMillis(500)));
+        assertThat(DurationModule.parse("90s"), is(Duration.ofSeconds(90)));
+        assertThat(DurationModule.parse("5m"), is(Duration.ofMinutes(5)));
+        assertThat(DurationModule.parse("1h"), is(Duration.ofHours(1)));
+        assertThat(DurationModule.parse("PT1M30S"), is(Duration.ofSeconds(90)));
+        assertThat(DurationModule.parse("250"), is(Duration.ofMillis(250)));
+        assertThat(DurationModule.format(Duration.ofSeconds(90)), is("90s"));
+        assertThat(DurationModule.format(Duration.ofMinutes(5)), is("5m"));
+        assertThat(DurationModule.format(Duration.ofMillis(1500)), is("1500ms"));
+    }
+
+    @Test
+    public void testSerialization() {
+        String yaml = "---\n"
+            + "startTimeout: \"10m\"\n"
+            + "stopTimeout: 90s\n"
+            + "elements:\n"
+            + "- type: \"parallel\"\n"
+            + "  startTimeout: 5000\n"
+            + "  stopTimeout: \"PT1M\"\n";
+
+        TopologyMarshaller marshaller = TopologyMarshaller.forYaml();
+        Topology topology = marshaller.read(yaml);
+        assertThat(topology.getStartTimeout(), is(Duration.ofMinutes(10)));
+        assertThat(topology.getStopTimeout(), is(Duration.ofSeconds(90)));
+        ParallelElementGroup group = (ParallelElementGroup) topology.getElements().get(0);
+        assertThat(group.getStartTimeout(), is(Duration.ofSeconds(5)));
+        assertThat(group.getStopTimeout(), is(Duration.ofMinutes(1)));
+
+        String written = marshaller.writeAsString(topology);
+        assertThat(written, containsString("startTimeout: 10m"));
+        assertThat(written, containsString("stopTimeout: 90s"));
+        assertThat(marshaller.read(written).getStopTimeout(), is(Duration.ofSeconds(90)));
+    }
+
+    @Test(timeOut = 10000)
+    public void testElementTimeoutFailsStart() {
+        WaitingResource slow = new WaitingResource("slow", Duration.ofSeconds(30))
+            .setStartTimeout(Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        Topology topology = new Topology().addElement(slow).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(5000L));
+    }
+
+    @Test(timeOut = 10000)
+    public void testTopologyBudgetPropagatesToNestedElements() {
+        ParallelElementGroup parallel = new ParallelElementGroup().setStartTimeout(Duration.ofMinutes(10));
+        parallel.addElement(new WaitingResource("inner", Duration.ofSeconds(30)));
+
+        Topology topology = new Topology().setStartTimeout(Duration.ofMillis(300))
+            .addElement(new SerialElementGroup().addElement(parallel))
+            .startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(waits.get("inner"), lessThanOrEqualTo(Duration.ofMillis(300)));
+    }
+
+    @Test(timeOut = 10000)
+    public void testGroupTimeoutShortensChildDeadlines() {
+        ParallelElementGroup parallel = new ParallelElementGroup().setStartTimeout(Duration.ofMillis(200));
+        WaitingResource inner = new WaitingResource("inner", Duration.ofSeconds(30))
+            .setStartTimeout(Duration.ofMinutes(5));
+        parallel.addElement(inner);
+
+        Topology topology = new Topology().setStartTimeout(Duration.ofMinutes(10)).addElement(parallel).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(waits.get("inner"), lessThanOrEqualTo(Duration.ofMillis(200)));
+    }
+
+    @Test
+    public void testUnboundedByDefault() {
+        WaitingResource fast = new WaitingResource("fast", Duration.ofMillis(10));
+        Topology topology = new Topology().addElement(fast).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(false));
+        assertThat(waits.get("fast"), is(Duration.ofMillis(10)));
+        assertThat(topology.deadline(fast).isBounded(), is(false));
+    }
+
+    private class WaitingResource extends AbstractPropertiesAwareResource<WaitingResource> implements Lifecycle,
+        TimeoutAware {
+
+        private final Duration wait;
+        private Duration startTimeout;
+
+        WaitingResource(final String key, final Duration wait) {
+            super(key);
+            this.wait = wait;
+        }
+
+        @Override
+        public Duration getStartTimeout() {
+            return startTimeout;
+        }
+
+        WaitingResource setStartTimeout(final Duration startTimeout) {
+            this.startTimeout = startTimeout;
+            return this;
+        }
+
+        @Override
+        public Duration getStopTimeout() {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<Void> start(final Topology topology) {
+            final Duration maxWait = topology.deadline(this).cap(wait);
+            waits.put(getKey(), maxWait);
+            return topology.getExecutor().runAsync(() -> {
+                if (maxWait.equals(wait) && wait.toMillis() <= 100) {
+                    return;
+                }
+                if (!HealthUtils.waitForHealth(maxWait, Backoff.fixed(Duration.ofMillis(20)), getKey(), () -> false)) {
+                    throw new IllegalStateException(getKey() + " is not healthy");
+                }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(final Topology topology) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ripple.topology;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import com.google.common.net.HostAndPort;
+import com.ripple.topology.elements.HostAndPortResource;
+import com.ripple.topology.elements.ParallelElementGroup;
+import com.ripple.topology.elements.StaticHostAndPort;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+/**
+ * Hammers a single Topology from many threads, adding and removing Resources at several levels while reading and
+ * resolving variables, and checks that the registry ends up consistent.
+ *
+ * @author jfulton
+ */
+public class TopologyConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 500;
+
+    @Test
+    public void testConcurrentModification() throws InterruptedException {
+        Topology topology = new Topology();
+        ParallelElementGroup group = new ParallelElementGroup();
+        topology.addElement(group);
+
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            executor.execute(() -> {
+                ready.countDown();
+                try {
+                    ready.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        String key = "r-" + thread + "-" + i;
+                        StaticHostAndPort resource = new StaticHostAndPort(key, HostAndPort.fromParts("localhost", i));
+                        if (i % 2 == 0) {
+                            group.addElement(resource);
+                        } else {
+                            topology.addElement(resource);
+                        }
+                        topology.addVariable("last-" + thread, "${" + key + ".hostAndPort}");
+
+                        assertThat(topology.getResource(key, HostAndPortResource.class), is(resource));
+                        topology.getElements(HostAndPortResource.class);
+
+                        XCurrentResource reader = new XCurrentResource("reader").addProperty("endpoint", "${" + key
+                            + ".hostAndPort}");
+                        topology.substituteVariables(reader);
+                        assertThat(reader.getProperties().getProperty("endpoint"), is("localhost:" + i));
+
+                        // Remove every fourth Resource again
+                        if (i % 4 == 0) {
+                            group.getElements().remove(resource);
+                        } else if (i % 4 == 1) {
+                            topology.getElements().remove(resource);
+                        }
+                    }
+                } catch (Throwable ex) {
+                    errors.add(ex);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES), is(true));
+
+        List<Throwable> failures = new ArrayList<>(errors);
+        assertThat(failures.toString(), failures, is(empty()));
+
+        int expected = THREADS * ITERATIONS / 2;
+        assertThat(topology.getElements(HostAndPortResource.class).size(), is(expected));
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < ITERATIONS; i++) {
+                boolean present = topology.getResourceOptional("r-" + t + "-" + i, HostAndPortResource.class)
+                    .isPresent();
+                assertThat(present, is(i % 4 >= 2));
+            }
+        }
+    }
+}
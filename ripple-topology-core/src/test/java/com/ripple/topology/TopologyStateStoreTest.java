@@ -0,0 +1,169 @@
+package com.ripple.topology;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import com.ripple.topology.TopologyState.ElementState;
+import com.ripple.topology.elements.AbstractPropertiesAwareResource;
+import com.ripple.topology.scheduling.ScheduleReport;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class TopologyStateStoreTest {
+
+    private static final AtomicInteger ids = new AtomicInteger();
+    private static final Set<String> alive = ConcurrentHashMap.newKeySet();
+
+    @Test
+    public void testResumeAfterFailure() throws IOException {
+        Path file = Files.createTempDirectory("topology").resolve("state.yaml");
+
+        Topology first = prototype(file, true).startSync();
+        assertThat(first.hasFailedDuringStartup(), is(true));
+        assertThat(statuses(file), contains("db STARTED", "queue STARTED", "app FAILED"));
+        String db = first.getResource("db", ResumableResource.class).id;
+
+        Topology second = prototype(file, false).startSync();
+        assertThat(second.hasFailedDuringStartup(), is(false));
+        ResumableResource resumedDb = second.getResource("db", ResumableResource.class);
+        assertThat(resumedDb.starts, is(0));
+        assertThat(resumedDb.id, is(db));
+        assertThat(second.getResource("queue", ResumableResource.class).starts, is(0));
+        ResumableResource app = second.getResource("app", ResumableResource.class);
+        assertThat(app.starts, is(1));
+        assertThat(app.getProperties().getProperty("db"), is(db));
+        assertThat(statuses(file), contains("db STARTED", "queue STARTED", "app STARTED"));
+
+        second.stopSync();
+        assertThat(Files.exists(file), is(false));
+    }
+
+    @Test
+    public void testDeadResourcesAreStartedAgain() throws IOException {
+        Path file = Files.createTempDirectory("topology").resolve("state.yaml");
+
+        Topology first = prototype(file, false).startSync();
+        String queue = first.getResource("queue", ResumableResource.class).id;
+        alive.remove(queue);
+
+        Topology second = prototype(file, false).setScheduleByDependencies(true).startSync();
+        assertThat(second.getResource("db", ResumableResource.class).starts, is(0));
+        assertThat(second.getResource("queue", ResumableResource.class).starts, is(1));
+        assertThat(second.getResource("queue", ResumableResource.class).id.equals(queue), is(false));
+
+        // The app only depends on the db, so is resumed even though the queue was started again
+        ScheduleReport report = second.scheduleReport().get();
+        assertThat(report.getEntries().stream().map(e -> e.getStatus()).collect(Collectors.toList()),
+            contains(ScheduleReport.Status.RESUMED, ScheduleReport.Status.SUCCEEDED, ScheduleReport.Status.RESUMED));
+    }
+
+    @Test
+    public void testElementsAfterRestartedElementAreStartedAgain() throws IOException {
+        Path file = Files.createTempDirectory("topology").resolve("state.yaml");
+
+        Topology first = prototype(file, false).startSync();
+        alive.remove(first.getResource("db", ResumableResource.class).id);
+
+        Topology second = prototype(file, false).startSync();
+        assertThat(second.getResource("db", ResumableResource.class).starts, is(1));
+        assertThat(second.getResource("queue", ResumableResource.class).starts, is(1));
+        ResumableResource app = second.getResource("app", ResumableResource.class);
+        assertThat(app.getProperties().getProperty("db"), is(second.getResource("db", ResumableResource.class).id));
+    }
+
+    @Test
+    public void testChangedElementsAreStartedAgain() throws IOException {
+        Path file = Files.createTempDirectory("topology").resolve("state.yaml");
+        prototype(file, false).startSync();
+
+        Topology second = prototype(file, false);
+        second.getResource("app", ResumableResource.class).addProperty("size", "large");
+        second.startSync();
+        assertThat(second.getResource("db", ResumableResource.class).starts, is(0));
+        assertThat(second.getResource("queue", ResumableResource.class).starts, is(0));
+        assertThat(second.getResource("app", ResumableResource.class).starts, is(1));
+    }
+
+    private static Topology prototype(Path file, boolean failApp) {
+        return new Topology()
+            .setStateFile(file.toString())
+            .addElement(new ResumableResource("db"))
+            .addElement(new ResumableResource("queue"))
+            .addElement(new ResumableResource("app").addProperty("db", "${db.id}").setFail(failApp));
+    }
+
+    private static List<String> statuses(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            TopologyState state = TopologyMarshaller.forYaml().readState(inputStream);
+            return state.getElements().stream().map(ElementState::toString).collect(Collectors.toList());
+        }
+    }
+
+    public static class ResumableResource extends AbstractPropertiesAwareResource<ResumableResource> implements
+        Resumable {
+
+        private String id;
+        private boolean fail;
+        int starts;
+
+        ResumableResource(final String key) {
+            super(key);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        ResumableResource setFail(final boolean fail) {
+            this.fail = fail;
+            return this;
+        }
+
+        @Override
+        public CompletableFuture<Void> start(final Topology topology) {
+            starts++;
+            if (fail) {
+                throw new IllegalStateException("Failed to start " + getKey());
+            }
+            id = getKey() + "-" + ids.incrementAndGet();
+            alive.add(id);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(final Topology topology) {
+            alive.remove(id);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public Map<String, String> saveState() {
+            return Collections.singletonMap("id", id);
+        }
+
+        @Override
+        public boolean restoreState(final Topology topology, final Map<String, String> state) {
+            if (!alive.contains(state.get("id"))) {
+                return false;
+            }
+            id = state.get("id");
+            return true;
+        }
+    }
+}
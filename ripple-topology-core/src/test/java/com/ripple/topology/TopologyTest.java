@@ -1,6 +1,7 @@
 package com.ripple.topology;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.testng.Assert.fail;
@@ -15,6 +16,7 @@ import com.ripple.topology.elements.SerialElementGroup;
 import com.ripple.topology.elements.StaticHostAndPort;
 import com.ripple.topology.elements.StaticHttpUrl;
 import java.io.IOException;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -118,6 +120,53 @@ public class TopologyTest {
         assertThat(topology.getElements(HttpUrlResource.class, t -> t.getKey().equals("sf")).size(), is(0));
     }
 
+    @Test
+    public void testIndexTracksChanges() {
+        Topology topology = prototype();
+        SerialElementGroup group = topology.getElements(SerialElementGroup.class).get(0);
+        ParallelElementGroup nested = topology.getElements(ParallelElementGroup.class).get(0);
+
+        StaticHostAndPort added = new StaticHostAndPort("tx", HostAndPort.fromString("localhost:5050"));
+        nested.addElement(added);
+        assertThat(topology.getElements(HostAndPortResource.class).size(), is(3));
+        assertThat(topology.getElements(HostAndPortResource.class).get(1), is(added));
+        assertThat(topology.getParent(added).get(), is(nested));
+        assertThat(topology.getPath(added), contains(group, nested, added));
+        assertThat(topology.getParent(group).isPresent(), is(false));
+
+        topology.getElements().remove(group);
+        assertThat(topology.getElements(HostAndPortResource.class).size(), is(1));
+        assertThat(topology.getElements(ElementGroup.class).size(), is(0));
+        assertThat(topology.getParent(added).isPresent(), is(false));
+    }
+
+    @Test
+    public void testGroupIndexTracksChanges() {
+        Topology topology = prototype();
+        SerialElementGroup group = topology.getElements(SerialElementGroup.class).get(0);
+        ParallelElementGroup nested = topology.getElements(ParallelElementGroup.class).get(0);
+        int before = group.getElements(HostAndPortResource.class).size();
+
+        StaticHostAndPort added = new StaticHostAndPort("tx", HostAndPort.fromString("localhost:5050"));
+        nested.addElement(added);
+        assertThat(group.getElements(HostAndPortResource.class).size(), is(before + 1));
+        assertThat(group.getElements(HostAndPortResource.class, r -> r.getKey().equals("tx")), contains(added));
+
+        nested.getElements().remove(added);
+        assertThat(group.getElements(HostAndPortResource.class).size(), is(before));
+    }
+
+    @Test
+    public void testIndexTracksSort() {
+        StaticHostAndPort b = new StaticHostAndPort("b", HostAndPort.fromString("localhost:5051"));
+        StaticHostAndPort a = new StaticHostAndPort("a", HostAndPort.fromString("localhost:5050"));
+        Topology topology = new Topology().addElement(b).addElement(a);
+        assertThat(topology.getElements(StaticHostAndPort.class), contains(b, a));
+
+        topology.getElements().sort(Comparator.comparing(element -> ((Resource) element).getKey()));
+        assertThat(topology.getElements(StaticHostAndPort.class), contains(a, b));
+    }
+
     @Test
     public void testGlobalVariableSource() {
         Topology topology = new Topology();
@@ -142,6 +191,28 @@ public class TopologyTest {
         assertThat(result.getProperties().getProperty("message3"), is("I will have three margaritas"));
     }
 
+    @Test
+    public void testVariablesTrackChanges() {
+        StaticHostAndPort sf = new StaticHostAndPort("sf", HostAndPort.fromString("localhost:9090"));
+        Topology topology = new Topology().addVariable("endpoint", "${sf.hostAndPort}").addElement(sf);
+
+        XCurrentResource first = new XCurrentResource("first").addProperty("endpoint", "${endpoint}");
+        topology.substituteVariables(first);
+        assertThat(first.getProperties().getProperty("endpoint"), is("localhost:9090"));
+
+        sf.setHostAndPort("localhost:9191");
+        topology.invalidateVariables();
+        XCurrentResource second = new XCurrentResource("second").addProperty("endpoint", "${endpoint}");
+        topology.substituteVariables(second);
+        assertThat(second.getProperties().getProperty("endpoint"), is("localhost:9191"));
+
+        topology.addVariable("endpoint", "${ny.httpUrl}");
+        topology.addElement(new StaticHttpUrl("ny", HttpUrl.parse("http://localhost:8080")));
+        XCurrentResource third = new XCurrentResource("third").addProperty("endpoint", "${endpoint}");
+        topology.substituteVariables(third);
+        assertThat(third.getProperties().getProperty("endpoint"), is("http://localhost:8080/"));
+    }
+
     @Test
     public void testContentLoader() throws IOException {
         Topology topology = new Topology();
@@ -205,4 +276,36 @@ public class TopologyTest {
             return CompletableFuture.completedFuture(null);
         }
     }
+
+    @Test
+    public void testStopsAgainAfterRestart() {
+        ReconcileTest.CountingResource resource = new ReconcileTest.CountingResource("db");
+        Topology topology = new Topology().addElement(resource);
+
+        topology.startSync();
+        assertThat(topology.stopSync().getStopped(), contains("db"));
+        topology.startSync();
+        assertThat(topology.stopSync().getStopped(), contains("db"));
+        assertThat(resource.starts, is(2));
+        assertThat(resource.stops, is(2));
+    }
+
+    @Test
+    public void testServicesAreSharedAndClosedOnStop() {
+        Topology topology = new Topology();
+        ClosableService service = topology.service(ClosableService.class, t -> new ClosableService());
+        assertThat(topology.service(ClosableService.class, t -> new ClosableService()) == service, is(true));
+
+        topology.stopSync();
+        assertThat(service.closed, is(true));
+    }
+
+    private static final class ClosableService implements AutoCloseable {
+        private volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
 }
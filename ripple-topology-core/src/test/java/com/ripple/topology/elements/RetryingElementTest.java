@@ -0,0 +1,159 @@
+package com.ripple.topology.elements;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Topology;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class RetryingElementTest {
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void setUp() {
+        events.clear();
+    }
+
+    @Test
+    public void testRetriesUntilStarted() {
+        FlakyResource flaky = new FlakyResource("flaky", 2, () -> new IllegalStateException("Refused"));
+        Topology topology = new Topology().addElement(retry(flaky)).startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(false));
+        assertThat(flaky.attempts.get(), is(3));
+        assertThat(events, contains("start", "stop", "start", "stop", "start"));
+    }
+
+    @Test
+    public void testGivesUpAfterAttempts() {
+        FlakyResource flaky = new FlakyResource("flaky", 5, () -> new IllegalStateException("Refused"));
+        Topology topology = new Topology().addElement(retry(flaky)).startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(flaky.attempts.get(), is(3));
+    }
+
+    @Test
+    public void testOnlyRetriesMatchingFailures() {
+        FlakyResource refused = new FlakyResource("refused", 1,
+            () -> new UncheckedIOException(new ConnectException("Connection refused")));
+        FlakyResource broken = new FlakyResource("broken", 1, () -> new IllegalArgumentException("Bad config"));
+
+        Topology topology = new Topology()
+            .addElement(retry(refused).addRetryOn(ConnectException.class))
+            .addElement(retry(broken).addRetryOn(ConnectException.class))
+            .startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        assertThat(refused.attempts.get(), is(2));
+        assertThat(broken.attempts.get(), is(1));
+    }
+
+    @Test
+    public void testRetryablePredicate() {
+        RetryingElement retrying = retry(new FlakyResource("flaky", 1, () -> new IllegalStateException("Refused")))
+            .setRetryable(throwable -> throwable.getMessage().contains("Refused"));
+        assertThat(retrying.isRetryable(new IllegalStateException("Refused")), is(true));
+        assertThat(retrying.isRetryable(new IllegalStateException("Other")), is(false));
+        assertThat(retrying.isRetryable(new TimeoutException("Timed out")), is(true));
+    }
+
+    @Test
+    public void testRetriesTimedOutAttempts() {
+        FlakyResource slow = new FlakyResource("slow", 1,
+            () -> new CompletionException(new TimeoutException("Timed out starting slow")));
+        Topology topology = new Topology().addElement(retry(slow).addRetryOn(ConnectException.class)).startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(false));
+        assertThat(slow.attempts.get(), is(2));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsUnknownTypes() {
+        new RetryingElement().setRetryOn(Collections.singletonList("com.example.NoSuchException"));
+    }
+
+    @Test
+    public void testSerialization() {
+        String yaml = "---\n"
+            + "elements:\n"
+            + "- type: \"retry\"\n"
+            + "  attempts: 5\n"
+            + "  initialDelay: \"500ms\"\n"
+            + "  maxDelay: \"1m\"\n"
+            + "  retryOn:\n"
+            + "  - \"java.net.ConnectException\"\n"
+            + "  element:\n"
+            + "    type: \"parallel\"\n";
+
+        TopologyMarshaller marshaller = TopologyMarshaller.forYaml();
+        Topology topology = marshaller.read(yaml);
+        RetryingElement retrying = (RetryingElement) topology.getElements().get(0);
+        assertThat(retrying.getAttempts(), is(5));
+        assertThat(retrying.getInitialDelay(), is(Duration.ofMillis(500)));
+        assertThat(retrying.getMaxDelay(), is(Duration.ofMinutes(1)));
+        assertThat(retrying.getRetryOn(), contains("java.net.ConnectException"));
+        assertThat(retrying.getElement(), instanceOf(ParallelElementGroup.class));
+
+        String written = marshaller.writeAsString(topology);
+        assertThat(written, containsString("element:"));
+        RetryingElement reread = (RetryingElement) marshaller.read(written).getElements().get(0);
+        assertThat(reread.getAttempts(), is(5));
+        assertThat(reread.getElement(), instanceOf(ParallelElementGroup.class));
+    }
+
+    private RetryingElement retry(final Lifecycle element) {
+        return new RetryingElement(element).setInitialDelay(Duration.ofMillis(10)).setMaxDelay(Duration.ofMillis(50));
+    }
+
+    private class FlakyResource extends AbstractPropertiesAwareResource<FlakyResource> implements Lifecycle {
+
+        private final int failures;
+        private final Supplier<RuntimeException> failure;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        FlakyResource(final String key, final int failures, final Supplier<RuntimeException> failure) {
+            super(key);
+            this.failures = failures;
+            this.failure = failure;
+        }
+
+        @Override
+        public CompletableFuture<Void> start(final Topology topology) {
+            events.add("start");
+            if (attempts.incrementAndGet() <= failures) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(failure.get());
+                return failed;
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(final Topology topology) {
+            events.add("stop");
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ripple.topology.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+
+import com.ripple.topology.HealthCheck;
+import com.ripple.topology.metrics.InMemoryMetrics.TimerSnapshot;
+import com.ripple.topology.utils.Backoff;
+import com.ripple.topology.utils.HealthEngine;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class InMemoryMetricsTest {
+
+    @Test
+    public void testTimersAndCounters() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.timer("call", "operation", "a").record(Duration.ofMillis(10));
+        metrics.timer("call", "operation", "a").record(Duration.ofMillis(30));
+        metrics.timer("call", "operation", "b").record(Duration.ofMillis(5));
+        metrics.counter("retries").increment();
+        metrics.counter("retries").increment(2);
+
+        TimerSnapshot a = metrics.getTimer("call", "operation", "a").get();
+        assertThat(a.getCount(), is(2L));
+        assertThat(a.getTotal().toMillis(), is(40L));
+        assertThat(a.getMean().toMillis(), is(20L));
+        assertThat(a.getMax().toMillis(), is(30L));
+        assertThat(metrics.getTotalCount("call"), is(3L));
+        assertThat(metrics.getCount("retries"), is(3L));
+        assertThat(metrics.getTimers(), hasKey("call{operation=b}"));
+        assertThat(metrics.getTimer("call").isPresent(), is(false));
+    }
+
+    @Test
+    public void testTimeCallCountsFailures() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        assertThat(metrics.timeCall("call", () -> "ok", "operation", "a"), is("ok"));
+        try {
+            metrics.timeCall("call", () -> {
+                throw new IllegalStateException("broken");
+            }, "operation", "a");
+            throw new AssertionError("Expected the call to fail");
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+        assertThat(metrics.getTimer("call", "operation", "a", "outcome", "success").get().getCount(), is(1L));
+        assertThat(metrics.getTimer("call", "operation", "a", "outcome", "failure").get().getCount(), is(1L));
+        assertThat(metrics.getCount(MetricNames.FAILURES, "operation", "a", "metric", "call"), is(1L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnpairedTags() {
+        new InMemoryMetrics().counter("retries", "kind");
+    }
+
+    @Test
+    public void testNoopByDefault() {
+        assertThat(Metrics.global() == Metrics.noop(), is(true));
+        Metrics.noop().timer("call").record(Duration.ofMillis(1));
+    }
+
+    @Test
+    public void testHealthProbes() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        HealthEngine engine = new HealthEngine(1, metrics);
+        try {
+            AtomicInteger attempts = new AtomicInteger();
+            boolean healthy = engine.waitForHealth(Duration.ofSeconds(5), Backoff.fixed(Duration.ofMillis(10)),
+                "check", (HealthCheck) () -> attempts.incrementAndGet() >= 3).join();
+            assertThat(healthy, is(true));
+        } finally {
+            engine.shutdown();
+        }
+        assertThat(metrics.getCount(MetricNames.HEALTH_ATTEMPTS), is(3L));
+        assertThat(metrics.getCount(MetricNames.RETRIES, "kind", "health"), is(2L));
+        assertThat(metrics.getTimer(MetricNames.HEALTH_PROBE, "outcome", "unhealthy").get().getCount(), is(2L));
+        assertThat(metrics.getTotalCount(MetricNames.HEALTH_PROBE), greaterThanOrEqualTo(3L));
+    }
+
+    @Test
+    public void testGauges() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        AtomicInteger size = new AtomicInteger(3);
+        metrics.gauge("pool.size", size::get, "host", "nomad");
+        assertThat(metrics.getGauge("pool.size", "host", "nomad").get(), is(3.0));
+        size.set(5);
+        assertThat(metrics.getGauge("pool.size", "host", "nomad").get(), is(5.0));
+        assertThat(metrics.getGauge("pool.size").isPresent(), is(false));
+        // Gauges are ignored by Metrics that don't support them
+        Metrics.noop().gauge("pool.size", size::get);
+    }
+}
@@ -0,0 +1,167 @@
+package com.ripple.topology.scheduling;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.ripple.topology.BulkheadAware;
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Topology;
+import com.ripple.topology.elements.AbstractPropertiesAwareResource;
+import com.ripple.topology.elements.ParallelElementGroup;
+import com.ripple.topology.metrics.InMemoryMetrics;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class BulkheadTest {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void setUp() {
+        active.set(0);
+        maxActive.set(0);
+        started.clear();
+    }
+
+    @Test
+    public void testQueuesBeyondLimitInOrder() {
+        Bulkhead bulkhead = new Bulkhead("test", 2, new TopologyExecutor(), Metrics.noop());
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final String name = "task" + i;
+            final CompletableFuture<Void> task = new CompletableFuture<>();
+            pending.add(task);
+            results.add(bulkhead.submit(() -> {
+                started.add(name);
+                return task.thenApply(aVoid -> name);
+            }));
+        }
+        assertThat(started, contains("task0", "task1"));
+        assertThat(bulkhead.getActive(), is(2));
+        assertThat(bulkhead.getQueued(), is(3));
+
+        results.get(3).cancel(true);
+        pending.get(1).complete(null);
+        assertThat(results.get(1).join(), is("task1"));
+        pending.get(0).complete(null);
+        pending.get(2).complete(null);
+        pending.get(4).complete(null);
+        assertThat(results.get(4).join(), is("task4"));
+        assertThat(results.get(2).join(), is("task2"));
+        // Queued tasks are dispatched in order, but may then run in any order
+        assertThat(started, containsInAnyOrder("task0", "task1", "task2", "task4"));
+        assertThat(bulkhead.getActive(), is(0));
+    }
+
+    @Test
+    public void testCancelsRunningTask() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, new TopologyExecutor(), Metrics.noop());
+        CompletableFuture<Void> task = new CompletableFuture<>();
+        bulkhead.submit(() -> task).cancel(true);
+        assertThat(task.isCancelled(), is(true));
+        assertThat(bulkhead.getActive(), is(0));
+    }
+
+    @Test(timeOut = 10000)
+    public void testTopologyBulkheads() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        ParallelElementGroup group = new ParallelElementGroup();
+        for (int i = 0; i < 6; i++) {
+            group.addElement(new LimitedResource("nomad" + i, "nomad"));
+        }
+        group.addElement(new LimitedResource("other", null));
+
+        Topology topology = new Topology().addBulkhead("nomad", 2).setMetrics(metrics).addElement(group).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(false));
+        assertThat(started.size(), is(7));
+        // The unlimited Element may run alongside the two permitted by the bulkhead
+        assertThat(maxActive.get(), lessThanOrEqualTo(3));
+        assertThat(metrics.getTimer(MetricNames.BULKHEAD_WAIT, "bulkhead", "nomad").get().getCount(), is(6L));
+    }
+
+    @Test(timeOut = 10000)
+    public void testParallelGroupMaxConcurrency() {
+        ParallelElementGroup group = new ParallelElementGroup().setMaxConcurrency(2);
+        for (int i = 0; i < 6; i++) {
+            group.addElement(new LimitedResource("element" + i, null));
+        }
+
+        Topology topology = new Topology().addElement(group).startSync();
+        assertThat(topology.hasFailedDuringStartup(), is(false));
+        assertThat(started.size(), is(6));
+        assertThat(maxActive.get(), is(2));
+    }
+
+    @Test
+    public void testSerialization() {
+        String yaml = "---\n"
+            + "bulkheads:\n"
+            + "  nomad: 4\n"
+            + "  aws: 8\n"
+            + "elements:\n"
+            + "- type: \"parallel\"\n"
+            + "  maxConcurrency: 10\n";
+
+        TopologyMarshaller marshaller = TopologyMarshaller.forYaml();
+        Topology topology = marshaller.read(yaml);
+        assertThat(topology.getBulkheads().get("nomad"), is(4));
+        assertThat(topology.bulkhead("aws").get().getMaxConcurrent(), is(8));
+        assertThat(topology.bulkhead("ssh").isPresent(), is(false));
+        assertThat(((ParallelElementGroup) topology.getElements().get(0)).getMaxConcurrency(), is(10));
+
+        Topology reread = marshaller.read(marshaller.writeAsString(topology));
+        assertThat(reread.getBulkheads().get("aws"), is(8));
+    }
+
+    private class LimitedResource extends AbstractPropertiesAwareResource<LimitedResource> implements Lifecycle,
+        BulkheadAware {
+
+        private final String bulkhead;
+
+        LimitedResource(final String key, final String bulkhead) {
+            super(key);
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public String getBulkhead() {
+            return bulkhead;
+        }
+
+        @Override
+        public CompletableFuture<Void> start(final Topology topology) {
+            return topology.getExecutor().runAsync(() -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                started.add(getKey());
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(final Topology topology) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
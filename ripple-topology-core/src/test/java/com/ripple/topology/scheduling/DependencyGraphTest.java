@@ -0,0 +1,178 @@
+package com.ripple.topology.scheduling;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.google.common.net.HostAndPort;
+import com.ripple.topology.DatabaseConfigurer;
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Topology;
+import com.ripple.topology.XCurrentResource;
+import com.ripple.topology.elements.AbstractPropertiesAwareResource;
+import com.ripple.topology.elements.StaticHostAndPort;
+import com.ripple.topology.scheduling.ScheduleReport.Status;
+import java.util.concurrent.CompletableFuture;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class DependencyGraphTest {
+
+    @Test
+    public void testVariableReferences() {
+        StaticHostAndPort postgres = new StaticHostAndPort("postgres", HostAndPort.fromParts("localhost", 5432));
+        StaticHostAndPort redis = new StaticHostAndPort("redis", HostAndPort.fromParts("localhost", 6379));
+        XCurrentResource sfo = new XCurrentResource("sfo").addProperty("db", "${postgres.hostAndPort}");
+        XCurrentResource las = new XCurrentResource("las").addProperty("cache", "${cache}");
+
+        Topology topology = new Topology()
+            .addVariable("cache", "$!{redis.hostAndPort}")
+            .addElement(postgres)
+            .addElement(redis)
+            .addElement(sfo)
+            .addElement(las);
+
+        DependencyGraph graph = DependencyGraph.of(topology);
+        assertThat(graph.getDependencies(postgres), is(empty()));
+        assertThat(graph.getDependencies(redis), is(empty()));
+        assertThat(graph.getDependencies(sfo), contains(postgres));
+        assertThat(graph.getDependencies(las), contains(redis));
+        assertThat(graph.getDependents(postgres), contains(sfo));
+    }
+
+    @Test
+    public void testOpaqueLifecycleIsBarrier() {
+        StaticHostAndPort postgres = new StaticHostAndPort("postgres", HostAndPort.fromParts("localhost", 5432));
+        XCurrentResource sfo = new XCurrentResource("sfo");
+        DatabaseConfigurer configurer = new DatabaseConfigurer("postgres", "sfo", "db");
+        XCurrentResource las = new XCurrentResource("las");
+
+        Topology topology = new Topology()
+            .addElement(postgres)
+            .addElement(sfo)
+            .addElement(configurer)
+            .addElement(las);
+
+        DependencyGraph graph = DependencyGraph.of(topology);
+        assertThat(graph.getDependencies(sfo), is(empty()));
+        assertThat(graph.getDependencies(configurer), contains(postgres, sfo));
+        assertThat(graph.getDependencies(las), contains(configurer));
+    }
+
+    @Test
+    public void testExplicitDependsOn() {
+        XCurrentResource sfo = new XCurrentResource("sfo");
+        XCurrentResource las = new XCurrentResource("las");
+        sfo.getDependsOn().add("las");
+
+        DependencyGraph graph = DependencyGraph.of(new Topology().addElement(sfo).addElement(las));
+        assertThat(graph.getDependencies(sfo), contains(las));
+        assertThat(graph.getDependencies(las), is(empty()));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testUnknownDependsOn() {
+        XCurrentResource sfo = new XCurrentResource("sfo");
+        sfo.getDependsOn().add("missing");
+        DependencyGraph.of(new Topology().addElement(sfo));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCycle() {
+        XCurrentResource sfo = new XCurrentResource("sfo");
+        XCurrentResource las = new XCurrentResource("las").addProperty("peer", "${sfo.key}");
+        sfo.getDependsOn().add("las");
+        DependencyGraph.of(new Topology().addElement(sfo).addElement(las));
+    }
+
+    @Test
+    public void testScheduledStart() {
+        Topology topology = new Topology()
+            .setScheduleByDependencies(true)
+            .addElement(new SlowResource("a", 500))
+            .addElement(new SlowResource("b", 500))
+            .addElement(new SlowResource("c", 100).addProperty("a", "${a.key}").addProperty("b", "${b.key}"));
+
+        topology.startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(false));
+        assertThat(topology.getResource("c", SlowResource.class).getProperties().getProperty("a"), is("a"));
+
+        ScheduleReport report = topology.scheduleReport().orElseThrow(IllegalStateException::new);
+        // a and b are independent, so run concurrently
+        assertThat(report.getEntries().get(1).getStarted(), lessThan(report.getEntries().get(0).getFinished()));
+        ScheduleReport.Entry c = report.getEntries().get(2);
+        assertThat(c.getStatus(), is(Status.SUCCEEDED));
+        assertThat(c.getStarted().toMillis(), greaterThanOrEqualTo(500L));
+        assertThat(report.getCriticalPath().size(), is(2));
+        assertThat(report.getCriticalPath().get(1).getName(), is("c"));
+    }
+
+    @Test
+    public void testScheduledStartWithDependencyDeclaredLater() {
+        SlowResource app = new SlowResource("app", 10);
+        app.getDependsOn().add("db");
+        Topology topology = new Topology()
+            .setScheduleByDependencies(true)
+            .addElement(app)
+            .addElement(new SlowResource("db", 200));
+
+        topology.startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(false));
+        ScheduleReport report = topology.scheduleReport().orElseThrow(IllegalStateException::new);
+        ScheduleReport.Entry first = report.getEntries().get(0);
+        assertThat(first.getStatus(), is(Status.SUCCEEDED));
+        assertThat(first.getDependencyNames(), contains("db"));
+        assertThat(first.getStarted().toMillis(), greaterThanOrEqualTo(200L));
+    }
+
+    @Test
+    public void testScheduledStartFailure() {
+        Topology topology = new Topology()
+            .setScheduleByDependencies(true)
+            .addElement(new SlowResource("a", -1))
+            .addElement(new SlowResource("b", 100).addProperty("a", "${a.key}"));
+
+        topology.startSync();
+
+        assertThat(topology.hasFailedDuringStartup(), is(true));
+        ScheduleReport report = topology.scheduleReport().orElseThrow(IllegalStateException::new);
+        assertThat(report.getEntries().get(0).getStatus(), is(Status.FAILED));
+        assertThat(report.getEntries().get(1).getStatus(), is(Status.SKIPPED));
+    }
+
+    public static class SlowResource extends AbstractPropertiesAwareResource<SlowResource> implements Lifecycle {
+
+        private final long millis;
+
+        SlowResource(final String key, final long millis) {
+            super(key);
+            this.millis = millis;
+        }
+
+        @Override
+        public CompletableFuture<Void> start(final Topology topology) {
+            return CompletableFuture.runAsync(() -> {
+                if (millis < 0) {
+                    throw new IllegalStateException("Failed to start " + getKey());
+                }
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(final Topology topology) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
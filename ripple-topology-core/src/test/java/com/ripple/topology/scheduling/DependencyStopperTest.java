@@ -0,0 +1,160 @@
+package com.ripple.topology.scheduling;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.ripple.topology.Lifecycle;
+import com.ripple.topology.Topology;
+import com.ripple.topology.elements.AbstractPropertiesAwareResource;
+import com.ripple.topology.elements.SerialElementGroup;
+import com.ripple.topology.scheduling.StopReport.Outcome;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class DependencyStopperTest {
+
+    private static final long FAIL = -1;
+    private static final long HANG = -2;
+
+    private final List<String> stopped = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void setUp() {
+        stopped.clear();
+    }
+
+    @Test
+    public void testStopsDependentsFirstAndIndependentsConcurrently() {
+        Topology topology = new Topology()
+            .addElement(new StoppableResource("db", 100))
+            .addElement(new StoppableResource("cache", 200))
+            .addElement(new StoppableResource("app", 100).addProperty("db", "${db.hostAndPort}"));
+
+        StopReport report = topology.stopSync();
+        assertThat(report.isSuccessful(), is(true));
+        assertThat(report.getStopped(), contains("db", "cache", "app"));
+        assertThat(stopped.indexOf("app") < stopped.indexOf("db"), is(true));
+        // Sequentially, stopping would take at least 400 ms
+        assertThat(report.getDuration().toMillis(), lessThan(390L));
+    }
+
+    @Test
+    public void testStopsDependentDeclaredBeforeItsDependency() {
+        StoppableResource app = new StoppableResource("app", 10);
+        app.getDependsOn().add("db");
+        Topology topology = new Topology()
+            .addElement(app)
+            .addElement(new StoppableResource("db", 10));
+
+        StopReport report = topology.stopSync();
+        assertThat(report.isSuccessful(), is(true));
+        assertThat(stopped, contains("app", "db"));
+    }
+
+    @Test(timeOut = 5000)
+    public void testSingleThreadedExecutor() {
+        Topology topology = new Topology()
+            .setExecutor(TopologyExecutor.fixed(1))
+            .addElement(new StoppableResource("db", 10))
+            .addElement(new StoppableResource("app", 10).addProperty("db", "${db.hostAndPort}"));
+
+        StopReport report = topology.stop(Duration.ofSeconds(2)).join();
+        assertThat(report.isSuccessful(), is(true));
+        assertThat(stopped, contains("app", "db"));
+    }
+
+    @Test
+    public void testFailuresAreCollected() {
+        Topology topology = new Topology()
+            .addElement(new StoppableResource("db", 10))
+            .addElement(new StoppableResource("app", FAIL).addProperty("db", "${db.hostAndPort}"));
+
+        StopReport report = topology.stopSync();
+        assertThat(report.isSuccessful(), is(false));
+        assertThat(report.getStopped(), contains("db"));
+        assertThat(report.getFailed().keySet(), contains("app"));
+        assertThat(report.getFailed().get("app") instanceof IllegalStateException, is(true));
+        assertThat(report.getTimedOut(), is(empty()));
+    }
+
+    @Test(timeOut = 5000)
+    public void testDeadline() {
+        Topology topology = new Topology()
+            .addElement(new StoppableResource("db", 10))
+            .addElement(new StoppableResource("cache", 10))
+            .addElement(new StoppableResource("app", HANG).addProperty("db", "${db.hostAndPort}"));
+
+        StopReport report = topology.stop(Duration.ofMillis(200)).join();
+        assertThat(report.getStopped(), contains("cache"));
+        assertThat(report.getTimedOut(), containsInAnyOrder("db", "app"));
+        assertThat(report.getEntries().get(0).getDuration(), is(Duration.ZERO));
+        assertThat(report.getEntries().get(2).getOutcome(), is(Outcome.TIMED_OUT));
+        assertThat(stopped, contains("cache"));
+    }
+
+    @Test
+    public void testStopsOnlyOnce() {
+        Topology topology = new Topology().addElement(new StoppableResource("db", 10));
+        CompletableFuture<StopReport> first = topology.stop();
+        assertThat(topology.stop(), is(sameInstance(first)));
+        assertThat(first.join().getStopped(), contains("db"));
+        assertThat(stopped, contains("db"));
+    }
+
+    @Test
+    public void testSerialGroupStopsInReverse() {
+        SerialElementGroup serial = new SerialElementGroup();
+        serial.addElement(new StoppableResource("a", 10));
+        serial.addElement(new StoppableResource("b", FAIL));
+        serial.addElement(new StoppableResource("c", 10));
+
+        StopReport report = new Topology().addElement(serial).stopSync();
+        assertThat(stopped, contains("c", "a"));
+        assertThat(report.getFailed().size(), is(1));
+    }
+
+    private class StoppableResource extends AbstractPropertiesAwareResource<StoppableResource> implements Lifecycle {
+
+        private final long millis;
+
+        StoppableResource(final String key, final long millis) {
+            super(key);
+            this.millis = millis;
+        }
+
+        @Override
+        public CompletableFuture<Void> start(final Topology topology) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(final Topology topology) {
+            if (millis == HANG) {
+                return new CompletableFuture<>();
+            }
+            return CompletableFuture.runAsync(() -> {
+                if (millis == FAIL) {
+                    throw new IllegalStateException("Failed to stop " + getKey());
+                }
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                stopped.add(getKey());
+            });
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ripple.topology.scheduling;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ripple.topology.Topology;
+import com.ripple.topology.elements.ParallelElementGroup;
+import com.ripple.topology.elements.SerialElementGroup;
+import com.ripple.topology.metrics.InMemoryMetrics;
+import com.ripple.topology.metrics.InMemoryMetrics.TimerSnapshot;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.scheduling.DependencyGraphTest.SlowResource;
+import com.ripple.topology.scheduling.StartupReport.Event;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import com.ripple.topology.scheduling.StartupReport.Span;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class StartupReportTest {
+
+    @Test
+    public void testCriticalPath() {
+        Topology topology = prototype().startSync();
+        StartupReport report = topology.startupReport();
+
+        List<String> path = report.getCriticalPath().stream().map(Span::getName).collect(Collectors.toList());
+        assertThat(path, contains("config", "slow", "a", "b"));
+        assertThat(report.getDuration().toMillis(), greaterThanOrEqualTo(310L));
+
+        Span slow = report.getSpans().stream().filter(s -> s.getName().equals("slow")).findFirst().get();
+        assertThat(slow.getParent().get().startsWith("ParallelElementGroup@"), is(true));
+        assertThat(slow.getDuration().toMillis(), greaterThanOrEqualTo(200L));
+        assertThat(slow.getTime(Phase.SUBSTITUTED).isPresent(), is(true));
+        assertThat(report.getCriticalPathSummary().contains("Critical path:"), is(true));
+
+        topology.stopSync();
+        List<Phase> phases = report.getEvents().stream().filter(e -> e.getElement().equals("a"))
+            .map(Event::getPhase).collect(Collectors.toList());
+        assertThat(phases, contains(Phase.SUBSTITUTING, Phase.SUBSTITUTED, Phase.SUBMITTED, Phase.STARTED,
+            Phase.STOPPING, Phase.STOPPED));
+    }
+
+    @Test
+    public void testCriticalPathByDependencies() {
+        Topology topology = new Topology().setScheduleByDependencies(true)
+            .addElement(new SlowResource("db", 100))
+            .addElement(new SlowResource("cache", 10))
+            .addElement(new SlowResource("app", 50).addProperty("db", "${db.key}"))
+            .startSync();
+        List<String> path = topology.startupReport().getCriticalPath().stream().map(Span::getName)
+            .collect(Collectors.toList());
+        assertThat(path, contains("db", "app"));
+    }
+
+    @Test
+    public void testSpansAreKeyedByElement() {
+        SerialElementGroup first = new SerialElementGroup();
+        first.addElement(new SlowResource("worker", 10));
+        SerialElementGroup second = new SerialElementGroup();
+        second.addElement(new SlowResource("worker", 10));
+        Topology topology = new Topology().addElement(first).addElement(second).startSync();
+
+        List<String> path = topology.startupReport().getCriticalPath().stream().map(Span::getName)
+            .collect(Collectors.toList());
+        assertThat(path, contains("worker", "worker"));
+        assertThat(topology.startupReport().getSpans().stream().filter(s -> s.getName().equals("worker")).count(),
+            is(2L));
+    }
+
+    @Test
+    public void testChromeTrace() throws IOException {
+        Topology topology = prototype().startSync();
+        JsonNode trace = new ObjectMapper().readTree(topology.startupReport().toChromeTrace());
+
+        List<String> rows = new ArrayList<>();
+        List<String> spans = new ArrayList<>();
+        for (JsonNode event : trace.get("traceEvents")) {
+            if (event.get("name").asText().equals("thread_name")) {
+                rows.add(event.get("args").get("name").asText());
+            } else if (event.get("ph").asText().equals("X")) {
+                spans.add(event.get("name").asText());
+                assertThat(event.get("dur").asLong(), greaterThanOrEqualTo(0L));
+            }
+        }
+        assertThat(rows, hasItem("slow"));
+        assertThat(spans, hasItem("started"));
+        assertThat(spans, hasItem("substitute variables"));
+    }
+
+    @Test
+    public void testElementMetrics() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Topology topology = new Topology().setMetrics(metrics)
+            .addElement(new SlowResource("db", 50))
+            .addElement(new SlowResource("app", 10).addProperty("db", "${db.key}"))
+            .startSync();
+        topology.stopSync();
+
+        TimerSnapshot db = metrics.getTimer(MetricNames.ELEMENT_START, "element", "db", "outcome", "success").get();
+        assertThat(db.getCount(), is(1L));
+        assertThat(db.getTotal().toMillis(), greaterThanOrEqualTo(50L));
+        assertThat(metrics.getTimer(MetricNames.ELEMENT_STOP, "element", "app").get().getCount(), is(1L));
+        assertThat(metrics.getTotalCount(MetricNames.VARIABLE_RESOLUTION), is(2L));
+
+        try {
+            new Topology().setMetrics(metrics).addElement(new SlowResource("broken", -1)).startSync();
+        } catch (RuntimeException expected) {
+            // Expected
+        }
+        assertThat(metrics.getCount(MetricNames.FAILURES, "element", "broken"), is(1L));
+    }
+
+    private static Topology prototype() {
+        ParallelElementGroup parallel = new ParallelElementGroup();
+        parallel.addElement(new SlowResource("fast", 20));
+        parallel.addElement(new SlowResource("slow", 200));
+        SerialElementGroup serial = new SerialElementGroup();
+        serial.addElement(new SlowResource("a", 30));
+        serial.addElement(new SlowResource("b", 30));
+        return new Topology()
+            .addElement(new SlowResource("config", 50))
+            .addElement(parallel)
+            .addElement(serial);
+    }
+}
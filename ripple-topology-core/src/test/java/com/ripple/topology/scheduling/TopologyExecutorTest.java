@@ -0,0 +1,114 @@
+package com.ripple.topology.scheduling;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import com.ripple.topology.Topology;
+import com.ripple.topology.metrics.InMemoryMetrics;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.scheduling.TopologyExecutor.Mode;
+import com.ripple.topology.serialization.TopologyMarshaller;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class TopologyExecutorTest {
+
+    @Test
+    public void testDeserialize() {
+        String yaml = "---\n"
+            + "executor:\n"
+            + "  mode: \"fixed\"\n"
+            + "  threads: 4\n"
+            + "elements: []\n";
+
+        Topology topology = TopologyMarshaller.forYaml().read(yaml);
+        assertThat(topology.getExecutor().getMode(), is(Mode.FIXED));
+        assertThat(topology.getExecutor().getThreads(), is(4));
+        assertThat(TopologyMarshaller.forYaml().writeAsString(topology), containsString("mode: fixed"));
+    }
+
+    @Test
+    public void testDefaultNotSerialized() {
+        assertThat(TopologyMarshaller.forYaml().writeAsString(new Topology()), not(containsString("executor")));
+    }
+
+    @Test
+    public void testGauges() throws InterruptedException {
+        TopologyExecutor executor = TopologyExecutor.fixed(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = executor.runAsync(() -> {
+            running.countDown();
+            await(release);
+        });
+        CompletableFuture<Void> second = executor.runAsync(() -> { });
+        running.await();
+
+        assertThat(executor.getActiveTasks(), is(1));
+        assertThat(executor.getQueueDepth(), is(1));
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).join();
+        assertThat(executor.getQueueDepth(), is(0));
+        executor.shutdown();
+    }
+
+    @Test
+    public void testGaugesReportedWhileRunning() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Topology topology = new Topology().setMetrics(metrics);
+        assertThat(metrics.getGauge(MetricNames.EXECUTOR_QUEUED).isPresent(), is(false));
+
+        topology.startSync();
+        assertThat(metrics.getGauge(MetricNames.EXECUTOR_QUEUED).get(), is(0.0));
+        assertThat(metrics.getGauge(MetricNames.EXECUTOR_ACTIVE).isPresent(), is(true));
+
+        topology.stopSync();
+        assertThat(metrics.getGauge(MetricNames.EXECUTOR_QUEUED).isPresent(), is(false));
+        assertThat(metrics.getGauge(MetricNames.EXECUTOR_ACTIVE).isPresent(), is(false));
+    }
+
+    @Test(timeOut = 5000)
+    public void testCancelInterrupts() throws InterruptedException {
+        TopologyExecutor executor = new TopologyExecutor();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<Void> future = executor.runAsync(() -> {
+            running.countDown();
+            try {
+                Thread.sleep(30000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        running.await();
+
+        assertThat(future.cancel(true), is(true));
+        interrupted.await();
+        assertThat(future.isCancelled(), is(true));
+        executor.shutdown();
+    }
+
+    @Test
+    public void testVirtualFallsBack() {
+        TopologyExecutor executor = TopologyExecutor.virtual();
+        assertThat(executor.supplyAsync(() -> "ok").join(), is("ok"));
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ripple.topology.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class DeadlineTest {
+
+    @Test
+    public void testNone() {
+        Deadline none = Deadline.none();
+        assertThat(none.isBounded(), is(false));
+        assertThat(none.isExpired(), is(false));
+        assertThat(none.remaining().isPresent(), is(false));
+        assertThat(none.cap(Duration.ofHours(1)), is(Duration.ofHours(1)));
+        assertThat(Deadline.after(null), is(sameInstance(none)));
+    }
+
+    @Test
+    public void testCap() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(10));
+        assertThat(deadline.cap(Duration.ofSeconds(1)), is(Duration.ofSeconds(1)));
+        assertThat(deadline.cap(Duration.ofMinutes(5)), lessThanOrEqualTo(Duration.ofSeconds(10)));
+        assertThat(deadline.cap(Duration.ofMinutes(5)), greaterThan(Duration.ofSeconds(9)));
+        assertThat(Deadline.after(Duration.ZERO).isExpired(), is(true));
+        assertThat(Deadline.after(Duration.ZERO).cap(Duration.ofSeconds(1)), is(Duration.ZERO));
+    }
+
+    @Test
+    public void testMin() {
+        Deadline early = Deadline.after(Duration.ofSeconds(1));
+        Deadline late = Deadline.after(Duration.ofSeconds(10));
+        assertThat(early.min(late), is(sameInstance(early)));
+        assertThat(late.min(early), is(sameInstance(early)));
+        assertThat(Deadline.none().min(late), is(sameInstance(late)));
+        assertThat(late.min(Deadline.none()), is(sameInstance(late)));
+        assertThat(late.limit(null), is(sameInstance(late)));
+        assertThat(late.limit(Duration.ofMinutes(1)), is(sameInstance(late)));
+        assertThat(late.limit(Duration.ofMillis(1)).cap(Duration.ofSeconds(1)),
+            lessThanOrEqualTo(Duration.ofMillis(1)));
+    }
+
+    @Test(timeOut = 5000)
+    public void testEnforceTimesOutAndCancels() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> bounded = Deadline.after(Duration.ofMillis(100)).enforce(source, "test");
+        try {
+            bounded.join();
+            throw new AssertionError("Expected a timeout");
+        } catch (CompletionException e) {
+            assertThat(e.getCause() instanceof TimeoutException, is(true));
+        }
+        assertThat(source.isCancelled(), is(true));
+    }
+
+    @Test
+    public void testEnforceCompletes() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> bounded = Deadline.after(Duration.ofSeconds(10)).enforce(source, "test");
+        source.complete("done");
+        assertThat(bounded.join(), is("done"));
+        assertThat(Deadline.none().enforce(source, "test"), is(sameInstance(source)));
+    }
+
+    @Test
+    public void testCancellingPropagates() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> bounded = Deadline.after(Duration.ofSeconds(10)).enforce(source, "test");
+        bounded.cancel(true);
+        assertThat(source.isCancelled(), is(true));
+    }
+}
@@ -0,0 +1,119 @@
+package com.ripple.topology.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.ripple.topology.AsyncHealthCheck;
+import com.ripple.topology.Element;
+import com.ripple.topology.HealthCheck;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class HealthEngineTest {
+
+    private HealthEngine engine;
+
+    @BeforeMethod
+    public void setUp() {
+        engine = new HealthEngine(2);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test(timeOut = 10000)
+    public void testManyChecksOnConstantThreads() {
+        int threadsBefore = Thread.activeCount();
+        List<Element> checks = new ArrayList<>();
+        AtomicInteger probes = new AtomicInteger();
+        for (int i = 0; i < 500; i++) {
+            AtomicInteger attempts = new AtomicInteger();
+            checks.add((HealthCheck) () -> {
+                probes.incrementAndGet();
+                return attempts.incrementAndGet() >= 3;
+            });
+        }
+        CompletableFuture<Boolean> healthy = engine.waitForAll(Duration.ofSeconds(5),
+            Backoff.fixed(Duration.ofMillis(50)).withJitter(0.5), checks);
+
+        assertThat(Thread.activeCount(), lessThanOrEqualTo(threadsBefore + 3));
+        assertThat(healthy.join(), is(true));
+        assertThat(probes.get(), is(1500));
+        assertThat(engine.getWaiting(), is(0));
+    }
+
+    @Test
+    public void testAsyncCheckGetsLastChance() {
+        AtomicInteger attempts = new AtomicInteger();
+        AsyncHealthCheck check = () -> CompletableFuture.completedFuture(attempts.incrementAndGet() >= 4);
+        boolean healthy = engine.waitForHealth(Duration.ofMillis(300), Backoff.fixed(Duration.ofMillis(100)),
+            "async", check).join();
+        assertThat(healthy, is(true));
+    }
+
+    @Test
+    public void testUnhealthyCheckTimesOut() {
+        long start = System.nanoTime();
+        boolean healthy = engine.waitForHealth(Duration.ofMillis(200), Backoff.fixed(Duration.ofMillis(50)),
+            "never", (HealthCheck) () -> false).join();
+        assertThat(healthy, is(false));
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), greaterThanOrEqualTo(200L));
+    }
+
+    @Test
+    public void testProbeFailurePropagates() throws InterruptedException {
+        try {
+            engine.waitForHealth(Duration.ofSeconds(1), Backoff.fixed(Duration.ofMillis(50)), "failing",
+                (HealthCheck) () -> {
+                    throw new IllegalStateException("broken");
+                }).get();
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause() instanceof IllegalStateException, is(true));
+            return;
+        }
+        throw new AssertionError("Expected the probe failure to propagate");
+    }
+
+    @Test
+    public void testCancellationStopsProbing() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<Boolean> healthy = engine.waitForHealth(Duration.ofSeconds(5),
+            Backoff.fixed(Duration.ofMillis(20)), "cancelled", (HealthCheck) () -> attempts.incrementAndGet() < 0);
+        Thread.sleep(100);
+        healthy.cancel(false);
+        int cancelledAt = attempts.get();
+        Thread.sleep(100);
+        assertThat(attempts.get(), lessThanOrEqualTo(cancelledAt + 1));
+        assertThat(engine.getWaiting(), is(0));
+    }
+
+    @Test
+    public void testBackoff() {
+        Backoff backoff = Backoff.exponential(Duration.ofMillis(100), Duration.ofSeconds(1));
+        assertThat(backoff.delay(0).toMillis(), is(100L));
+        assertThat(backoff.delay(1).toMillis(), is(200L));
+        assertThat(backoff.delay(3).toMillis(), is(800L));
+        assertThat(backoff.delay(10).toMillis(), is(1000L));
+
+        Backoff jittered = backoff.withJitter(0.5);
+        for (int i = 0; i < 100; i++) {
+            long delay = jittered.delay(2).toMillis();
+            assertThat(delay, greaterThanOrEqualTo(200L));
+            assertThat(delay, lessThanOrEqualTo(400L));
+        }
+    }
+}
@@ -4,6 +4,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
 import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.testng.annotations.Test;
 
@@ -58,4 +60,25 @@ public class HealthUtilsTest {
             .waitForHealth(Duration.ofSeconds(3), Duration.ofSeconds(1), () -> counter.getAndIncrement() >= 5);
         assertThat(isHealthy, is(false));
     }
+
+    @Test(timeOut = 5000)
+    public void testInterruptCancelsWait() throws InterruptedException {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                HealthUtils.waitForHealth(Duration.ofSeconds(30), Duration.ofMillis(100), () -> false);
+            } catch (CancellationException e) {
+                cancelled.set(true);
+                stillInterrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        waiter.start();
+        Thread.sleep(200);
+        waiter.interrupt();
+        waiter.join();
+
+        assertThat(cancelled.get(), is(true));
+        assertThat(stillInterrupted.get(), is(true));
+    }
 }
@@ -0,0 +1,24 @@
+package com.ripple.topology.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class HostUtilsTest {
+
+    @Test
+    public void testIsListening() throws Exception {
+        final int port;
+        try (ServerSocket server = new ServerSocket(0)) {
+            port = server.getLocalPort();
+            assertThat(HostUtils.isListening("localhost", port, Duration.ofSeconds(1)), is(true));
+        }
+        assertThat(HostUtils.isListening("localhost", port, Duration.ofSeconds(1)), is(false));
+    }
+}
@@ -4,6 +4,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -156,6 +157,31 @@ public class ObservableListTest {
         assertThat(list.size(), is(2));
     }
 
+    @Test
+    public void testListenersSeeChange() {
+        ObservableList<String> list = new ObservableList<>();
+        AtomicBoolean added = new AtomicBoolean(false);
+        AtomicBoolean removed = new AtomicBoolean(false);
+        list.onAdd(s -> added.set(list.contains(s)));
+        list.onRemove(s -> removed.set(!list.contains(s)));
+        list.add("message");
+        list.remove("message");
+        assertThat(added.get(), is(true));
+        assertThat(removed.get(), is(true));
+    }
+
+    @Test
+    public void testSort() {
+        AtomicInteger sorts = new AtomicInteger(0);
+        ObservableList<String> list = new ObservableList<>();
+        list.add("message2");
+        list.add("message1");
+        list.onSort(sorts::incrementAndGet);
+        list.sort(Comparator.naturalOrder());
+        assertThat(sorts.get(), is(1));
+        assertThat(list.get(0), is("message1"));
+    }
+
     @Test
     public void test() {
         ObservableList<String> list = new ObservableList<>();
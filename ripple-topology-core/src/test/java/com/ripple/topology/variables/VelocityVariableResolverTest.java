@@ -3,6 +3,8 @@ package com.ripple.topology.variables;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
+import com.ripple.topology.VariableResolver;
+import org.apache.velocity.VelocityContext;
 import org.testng.annotations.Test;
 
 /**
@@ -17,4 +19,28 @@ public class VelocityVariableResolverTest {
         resolver.put("message", "Hello, ${adjective}");
         assertThat(resolver.resolve("$message world!"), is("Hello, cruel world!"));
     }
+
+    @Test
+    public void testTemplateCache() {
+        TemplateCache cache = new TemplateCache(100);
+        VelocityVariableResolver resolver = new VelocityVariableResolver(new VelocityContext(), cache);
+        resolver.put("host", "localhost");
+
+        VariableResolver clone = resolver.clone();
+        clone.put("host", "example.com");
+
+        assertThat(resolver.resolve("jdbc:postgresql://${host}/db"), is("jdbc:postgresql://localhost/db"));
+        assertThat(clone.resolve("jdbc:postgresql://${host}/db"), is("jdbc:postgresql://example.com/db"));
+        assertThat(cache.stats().missCount(), is(1L));
+        assertThat(cache.stats().hitCount(), is(1L));
+    }
+
+    @Test
+    public void testPlainStringsBypassVelocity() {
+        TemplateCache cache = new TemplateCache(100);
+        VelocityVariableResolver resolver = new VelocityVariableResolver(new VelocityContext(), cache);
+        assertThat(resolver.resolve("no variables here"), is("no variables here"));
+        assertThat(cache.stats().requestCount(), is(0L));
+        assertThat(cache.size(), is(0L));
+    }
 }
@@ -0,0 +1,262 @@
+package com.ripple.topology.elements;
+
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.awscore.retry.AwsRetryPolicy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.core.retry.conditions.RetryCondition;
+
+/**
+ * A token bucket shared by every AWS Element calling the same account and region, so that many Elements polling at
+ * once don't exceed the account's API request limits.  AWS rate limits are per account and region; the account is
+ * identified by the credentials profile, from the {@code aws.profile} system property or {@code AWS_PROFILE}
+ * environment variable.
+ * <p>
+ * The limiter adapts to throttling: each throttled request halves the rate, and each successful request recovers a
+ * twentieth of the maximum rate, so a topology backs off quickly and then ramps back up.  It's installed on each AWS
+ * client with {@link #configure(Metrics, String)}, so that it sees every HTTP request the client makes, including the
+ * client's own retries, rather than only the outcome of each call once its retries are exhausted.
+ *
+ * @author jfulton
+ */
+public final class AwsRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AwsRateLimiter.class);
+
+    public static final double DEFAULT_MAX_RATE = 10;
+    public static final int DEFAULT_BURST = 20;
+
+    private static final double MIN_RATE = 0.5;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final Map<String, AwsRateLimiter> limiters = new ConcurrentHashMap<>();
+    private static final ExecutionAttribute<Throwable> LAST_FAILURE = new ExecutionAttribute<>("AwsRateLimiterFailure");
+
+    private final String region;
+    private double maxRate = DEFAULT_MAX_RATE;
+    private int burst = DEFAULT_BURST;
+    private double rate = DEFAULT_MAX_RATE;
+    private double tokens = DEFAULT_BURST;
+    private long refilled = System.nanoTime();
+
+    private AwsRateLimiter(final String region) {
+        this.region = region;
+    }
+
+    /**
+     * @return the limiter shared by every call to the region with the current credentials profile
+     */
+    public static AwsRateLimiter forRegion(final String region) {
+        Objects.requireNonNull(region);
+        return limiters.computeIfAbsent(profile() + "/" + region, key -> new AwsRateLimiter(region));
+    }
+
+    /**
+     * @return the configuration to build an AWS client of the given service with, so that each request it sends,
+     * including retries, waits for a token, and each throttled request slows the limiter down
+     */
+    public ClientOverrideConfiguration configure(final Metrics metrics, final String service) {
+        return configure(ClientOverrideConfiguration.builder(), metrics, service).build();
+    }
+
+    /**
+     * Installs the limiter on a client's configuration, with the AWS default retry policy, which retries AWS errors
+     * such as {@code RequestTimeout} and clock skew, as well as the SDK's.
+     */
+    public ClientOverrideConfiguration.Builder configure(final ClientOverrideConfiguration.Builder builder,
+        final Metrics metrics, final String service) {
+        return builder
+            .retryPolicy(AwsRetryPolicy.defaultRetryPolicy().toBuilder()
+                .retryCondition(retryCondition(metrics, service))
+                .build())
+            .addExecutionInterceptor(new Interceptor(metrics, service));
+    }
+
+    /**
+     * Waits until a token is available.  If interrupted, the reserved token is returned, so the callers queued behind
+     * don't wait for it.
+     *
+     * @return how long the caller waited, in nanoseconds
+     */
+    public long acquire(final Metrics metrics) {
+        final long wait = reserve();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ex) {
+                refund();
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted waiting to call AWS in " + region);
+            }
+        }
+        metrics.timer(MetricNames.AWS_RATE_LIMIT_WAIT, "region", region).record(wait);
+        return wait;
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public synchronized double getMaxRate() {
+        return maxRate;
+    }
+
+    /**
+     * @param maxRate the number of calls per second the limiter allows when AWS isn't throttling
+     */
+    public synchronized AwsRateLimiter setMaxRate(final double maxRate) {
+        if (maxRate < MIN_RATE) {
+            throw new IllegalArgumentException("maxRate must be at least " + MIN_RATE);
+        }
+        this.maxRate = maxRate;
+        this.rate = Math.min(rate, maxRate);
+        return this;
+    }
+
+    public synchronized int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @param burst the number of calls that may be made at once after a quiet period
+     */
+    public synchronized AwsRateLimiter setBurst(final int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1");
+        }
+        this.burst = burst;
+        this.tokens = Math.min(tokens, burst);
+        return this;
+    }
+
+    /**
+     * Reserves a token, going into debt if none are available, so that callers are served in order.
+     *
+     * @return how long to wait before using the token, in nanoseconds
+     */
+    synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / rate * NANOS_PER_SECOND);
+    }
+
+    synchronized void refund() {
+        refill();
+        tokens = Math.min(burst, tokens + 1);
+    }
+
+    synchronized void throttled() {
+        refill();
+        rate = Math.max(MIN_RATE, rate / 2);
+        tokens = Math.min(tokens, 0);
+        logger.warn("AWS is throttling calls in {}, slowing to {} calls per second", region,
+            String.format("%.1f", rate));
+    }
+
+    synchronized void succeeded() {
+        if (rate < maxRate) {
+            refill();
+            rate = Math.min(maxRate, rate + maxRate / 20);
+        }
+    }
+
+    private void refill() {
+        final long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilled) * rate / NANOS_PER_SECOND);
+        refilled = now;
+    }
+
+    static boolean isThrottling(final SdkServiceException ex) {
+        if (ex.statusCode() == 429) {
+            return true;
+        }
+        if (ex instanceof AwsServiceException && ((AwsServiceException) ex).awsErrorDetails() != null) {
+            final String code = ((AwsServiceException) ex).awsErrorDetails().errorCode();
+            return "RequestLimitExceeded".equals(code) || "Throttling".equals(code)
+                || "ThrottlingException".equals(code) || "TooManyRequestsException".equals(code);
+        }
+        return false;
+    }
+
+    /**
+     * Sees the failure of each attempt the client may retry, before deciding whether to, as AWS clients retry
+     * throttled requests themselves.
+     */
+    RetryCondition retryCondition(final Metrics metrics, final String service) {
+        final RetryCondition retryable = AwsRetryPolicy.defaultRetryCondition();
+        return context -> {
+            sawFailure(metrics, service, context.exception(), context.executionAttributes());
+            return retryable.shouldRetry(context);
+        };
+    }
+
+    // The client asks whether to retry every failed attempt but its last, which only fails the execution, so each
+    // failure is seen once, by whichever hook sees it first
+    private void sawFailure(final Metrics metrics, final String service, final Throwable failure,
+        final ExecutionAttributes attributes) {
+        if (attributes.getAttribute(LAST_FAILURE) == failure) {
+            return;
+        }
+        attributes.putAttribute(LAST_FAILURE, failure);
+        if (failure instanceof SdkServiceException && isThrottling((SdkServiceException) failure)) {
+            metrics.counter(MetricNames.AWS_THROTTLED, "service", service, "operation",
+                String.valueOf(attributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME))).increment();
+            throttled();
+        }
+    }
+
+    private final class Interceptor implements ExecutionInterceptor {
+
+        private final Metrics metrics;
+        private final String service;
+
+        private Interceptor(final Metrics metrics, final String service) {
+            this.metrics = metrics;
+            this.service = service;
+        }
+
+        @Override
+        public void beforeTransmission(final Context.BeforeTransmission context,
+            final ExecutionAttributes executionAttributes) {
+            acquire(metrics);
+        }
+
+        @Override
+        public void afterTransmission(final Context.AfterTransmission context,
+            final ExecutionAttributes executionAttributes) {
+            if (context.httpResponse().isSuccessful()) {
+                succeeded();
+            }
+        }
+
+        @Override
+        public void onExecutionFailure(final Context.FailedExecution context,
+            final ExecutionAttributes executionAttributes) {
+            sawFailure(metrics, service, context.exception(), executionAttributes);
+        }
+    }
+
+    private static String profile() {
+        final String profile = System.getProperty("aws.profile", System.getenv("AWS_PROFILE"));
+        return profile != null ? profile : "default";
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AwsRateLimiter{region=" + region + ", rate=" + rate + ", maxRate=" + maxRate + ", burst=" + burst
+            + "}";
+    }
+}
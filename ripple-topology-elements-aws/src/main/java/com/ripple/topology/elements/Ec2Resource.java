@@ -3,19 +3,27 @@ package com.ripple.topology.elements;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.ripple.topology.Lifecycle;
+import com.ripple.topology.BulkheadAware;
+import com.ripple.topology.Resumable;
+import com.ripple.topology.TimeoutAware;
 import com.ripple.topology.Topology;
 import com.ripple.topology.VariableResolver;
 import com.ripple.topology.VariableResolverAware;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.scheduling.Bulkhead;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import com.ripple.topology.utils.Backoff;
 import com.ripple.topology.utils.HealthUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.Ec2ClientBuilder;
 import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeInstancesResponse;
 import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.InstanceStateName;
 import software.amazon.awssdk.services.ec2.model.InstanceType;
 import software.amazon.awssdk.services.ec2.model.RunInstancesRequest;
 import software.amazon.awssdk.services.ec2.model.RunInstancesResponse;
@@ -23,20 +31,24 @@ import software.amazon.awssdk.services.ec2.model.TerminateInstancesRequest;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * @author jfulton
  */
 @JsonInclude(Include.NON_DEFAULT)
-public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<Ec2Resource> implements Lifecycle,
-    VariableResolverAware, HostResource {
+public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<Ec2Resource> implements Resumable,
+    VariableResolverAware, HostResource, BulkheadAware, TimeoutAware {
 
     private static final Logger logger = LoggerFactory.getLogger(Ec2Resource.class);
 
@@ -52,6 +64,9 @@ public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<E
     private int javaXmx = 512;
     private int javaXms = 256;
     private String host;
+    private String bulkhead;
+    private Duration startTimeout;
+    private Duration stopTimeout;
     private final List<String> instanceIds = new ArrayList<>();
 
 
@@ -68,29 +83,109 @@ public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<E
         this.securityGroup = Objects.requireNonNull(securityGroup);
     }
 
+    @Override
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public Ec2Resource setBulkhead(final String bulkhead) {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    @Override
+    public String getDefaultBulkhead() {
+        return Bulkhead.AWS;
+    }
+
+    @Override
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public Ec2Resource setStartTimeout(final Duration startTimeout) {
+        this.startTimeout = startTimeout;
+        return this;
+    }
+
+    @Override
+    public Duration getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public Ec2Resource setStopTimeout(final Duration stopTimeout) {
+        this.stopTimeout = stopTimeout;
+        return this;
+    }
+
     @Override
     public CompletableFuture<Void> start(final Topology topology) {
-        return CompletableFuture.runAsync(() -> {
+        return topology.getExecutor().runAsync(() -> {
             if (!dryRun) {
-                deploy();
+                deploy(topology);
             }
         });
     }
 
     @Override
     public CompletableFuture<Void> stop(final Topology topology) {
-        return CompletableFuture.runAsync(() -> {
+        return topology.getExecutor().runAsync(() -> {
             if (!dryRun) {
-                undeploy();
+                undeploy(topology);
             }
         });
     }
 
-    private void deploy() {
+    @Override
+    public Map<String, String> saveState() {
+        final Map<String, String> state = new LinkedHashMap<>();
+        state.put("instanceIds", String.join(",", instanceIds));
+        if (host != null) {
+            state.put("host", host);
+        }
+        return state;
+    }
+
+    @Override
+    public boolean restoreState(final Topology topology, final Map<String, String> state) {
+        final List<String> ids = Arrays.stream(state.getOrDefault("instanceIds", "").split(","))
+            .filter(id -> !id.isEmpty()).collect(Collectors.toList());
+        if (!dryRun) {
+            if (ids.isEmpty()) {
+                return false;
+            }
+            final Ec2Client client = createClient(topology);
+            final DescribeInstancesResponse response = call(topology, "describeInstances",
+                () -> client.describeInstances(DescribeInstancesRequest.builder().instanceIds(ids).build()));
+            final boolean running = response.reservations().stream().flatMap(r -> r.instances().stream())
+                .filter(i -> i.state().name() == InstanceStateName.RUNNING).count() == ids.size();
+            if (!running) {
+                return false;
+            }
+        }
+        instanceIds.clear();
+        instanceIds.addAll(ids);
+        if (state.containsKey("host")) {
+            setHost(state.get("host"));
+        }
+        return true;
+    }
+
+    private Ec2Client createClient(final Topology topology) {
         Ec2ClientBuilder clientBuilder = Ec2Client.builder()
             .region(Region.of(getRegion()));
         customizeEc2Client(clientBuilder);
-        Ec2Client client = clientBuilder.build();
+        // Set after the customization, which would otherwise replace it and so drop the rate limiter
+        final ClientOverrideConfiguration.Builder overrideConfiguration = AwsRateLimiter.forRegion(getRegion())
+            .configure(ClientOverrideConfiguration.builder(), topology.metrics(), "ec2");
+        customizeEc2ClientOverrideConfiguration(overrideConfiguration);
+        return clientBuilder.overrideConfiguration(overrideConfiguration.build()).build();
+    }
+
+    private void deploy(final Topology topology) {
+        // Only the instances of this deployment are recorded, as any earlier ones were terminated when it stopped
+        instanceIds.clear();
+        Ec2Client client = createClient(topology);
 
         RunInstancesRequest.Builder runInstancesRequest = RunInstancesRequest.builder()
             .imageId(getAmi())
@@ -102,7 +197,9 @@ public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<E
             .securityGroups(getSecurityGroup());
         customizeRunInstancesRequest(runInstancesRequest);
 
-        RunInstancesResponse runInstancesResponse = client.runInstances(runInstancesRequest.build());
+        RunInstancesResponse runInstancesResponse = call(topology, "runInstances",
+            () -> client.runInstances(runInstancesRequest.build()));
+        topology.startupReport().record(this, Phase.PROVISIONED);
         handleRunInstancesResponse(runInstancesResponse);
         final List<String> ids = runInstancesResponse.instances().stream().map(i -> i.instanceId())
             .collect(Collectors.toList());
@@ -112,8 +209,10 @@ public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<E
         DescribeInstancesRequest request = DescribeInstancesRequest.builder().instanceIds(instance.instanceId())
             .build();
 
-        HealthUtils.waitForHealth(Duration.ofMinutes(1), Duration.ofMillis(500), "'" + getKey() + "' Ec2 Instance", () -> {
-            DescribeInstancesResponse describeInstancesResponse = client.describeInstances(request);
+        HealthUtils.waitForHealth(topology.deadline(this).cap(Duration.ofMinutes(1)),
+            Backoff.fixed(Duration.ofMillis(500)), "'" + getKey() + "' Ec2 Instance", () -> {
+            DescribeInstancesResponse describeInstancesResponse = call(topology, "describeInstances",
+                () -> client.describeInstances(request));
             String ipAddress = describeInstancesResponse.reservations().get(0).instances().get(0).publicIpAddress();
             if (ipAddress == null) {
                 return false;
@@ -122,18 +221,21 @@ public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<E
                 return true;
             }
         });
+        topology.startupReport().record(this, Phase.HEALTHY);
     }
 
-    private void undeploy() {
-        Ec2ClientBuilder clientBuilder = Ec2Client.builder()
-            .region(Region.of(getRegion()));
-        customizeEc2Client(clientBuilder);
-        Ec2Client client = clientBuilder.build();
+    private void undeploy(final Topology topology) {
+        if (instanceIds.isEmpty()) {
+            return;
+        }
+        Ec2Client client = createClient(topology);
 
         final TerminateInstancesRequest terminateInstancesRequest = TerminateInstancesRequest.builder()
             .instanceIds(instanceIds).build();
 
-        client.terminateInstances(terminateInstancesRequest);
+        call(topology, "terminateInstances", () -> client.terminateInstances(terminateInstancesRequest));
+        // Terminated instances are neither saved nor terminated again
+        instanceIds.clear();
     }
 
     public String getAmi() {
@@ -270,9 +372,20 @@ public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<E
     protected void customizeRunInstancesRequest(final RunInstancesRequest.Builder runInstanceRequestBuilder) {
     }
 
+    /**
+     * Customizes the EC2 client, except for its override configuration, which is replaced by that of
+     * {@link #customizeEc2ClientOverrideConfiguration(ClientOverrideConfiguration.Builder)}.
+     */
     protected void customizeEc2Client(Ec2ClientBuilder clientBuilder) {
     }
 
+    /**
+     * Customizes the EC2 client's override configuration, which already holds the {@link AwsRateLimiter}'s retry policy
+     * and interceptor.
+     */
+    protected void customizeEc2ClientOverrideConfiguration(ClientOverrideConfiguration.Builder builder) {
+    }
+
     protected void customizeUserData(StringBuilder stringBuilder) {
     }
 
@@ -291,4 +404,8 @@ public class Ec2Resource extends AbstractPropertiesAndEnvironmentAwareResource<E
         this.dryRun = disableDeploy;
         return this;
     }
+
+    private <T> T call(final Topology topology, final String operation, final Supplier<T> call) {
+        return topology.metrics().timeCall(MetricNames.AWS_CALL, call, "service", "ec2", "operation", operation);
+    }
 }
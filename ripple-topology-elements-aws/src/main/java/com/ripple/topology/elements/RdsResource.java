@@ -2,17 +2,28 @@ package com.ripple.topology.elements;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.net.HostAndPort;
-import com.ripple.topology.Lifecycle;
+import com.ripple.topology.BulkheadAware;
+import com.ripple.topology.Resumable;
+import com.ripple.topology.TimeoutAware;
 import com.ripple.topology.Topology;
 import com.ripple.topology.VariableResolver;
 import com.ripple.topology.VariableResolverAware;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.scheduling.Bulkhead;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import com.ripple.topology.utils.Backoff;
 import com.ripple.topology.utils.HealthUtils;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.rds.RdsClient;
 import software.amazon.awssdk.services.rds.model.CreateDbInstanceRequest;
+import software.amazon.awssdk.services.rds.model.DBInstance;
+import software.amazon.awssdk.services.rds.model.DbInstanceNotFoundException;
 import software.amazon.awssdk.services.rds.model.DeleteDbInstanceRequest;
 import software.amazon.awssdk.services.rds.model.DescribeDbInstancesRequest;
 import software.amazon.awssdk.services.rds.model.Endpoint;
@@ -20,8 +31,10 @@ import software.amazon.awssdk.services.rds.model.Endpoint;
 /**
  * @author matt
  */
-public class RdsResource extends AbstractEnvironmentAwareResource implements Lifecycle,
-    VariableResolverAware, HostAndPortResource {
+public class RdsResource extends AbstractEnvironmentAwareResource implements Resumable,
+    VariableResolverAware, HostAndPortResource, BulkheadAware, TimeoutAware {
+
+    private static final String AVAILABLE = "available";
 
     private Region region = Region.US_WEST_1;
     private String instanceClass;
@@ -33,6 +46,9 @@ public class RdsResource extends AbstractEnvironmentAwareResource implements Lif
     private int port;
     private HostAndPort hostAndPort;
     private boolean dryRun = false;
+    private String bulkhead;
+    private Duration startTimeout;
+    private Duration stopTimeout;
 
     public RdsResource() {
         super("");
@@ -49,24 +65,96 @@ public class RdsResource extends AbstractEnvironmentAwareResource implements Lif
         this.password = password;
     }
 
+    @Override
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public RdsResource setBulkhead(final String bulkhead) {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    @Override
+    public String getDefaultBulkhead() {
+        return Bulkhead.AWS;
+    }
+
+    @Override
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public RdsResource setStartTimeout(final Duration startTimeout) {
+        this.startTimeout = startTimeout;
+        return this;
+    }
+
+    @Override
+    public Duration getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public RdsResource setStopTimeout(final Duration stopTimeout) {
+        this.stopTimeout = stopTimeout;
+        return this;
+    }
+
     @Override
     public CompletableFuture<Void> start(Topology topology) {
-        return CompletableFuture.runAsync(() -> {
+        return topology.getExecutor().runAsync(() -> {
             if (!dryRun) {
-                deploy();
+                deploy(topology);
             }
         });
     }
 
     @Override
     public CompletableFuture<Void> stop(Topology topology) {
-        return CompletableFuture.runAsync(() -> {
+        return topology.getExecutor().runAsync(() -> {
             if (!dryRun) {
-                undeploy();
+                undeploy(topology);
             }
         });
     }
 
+    @Override
+    public Map<String, String> saveState() {
+        final Map<String, String> state = new LinkedHashMap<>();
+        state.put("instanceId", instanceId);
+        if (hostAndPort != null) {
+            state.put("hostAndPort", hostAndPort.toString());
+        }
+        return state;
+    }
+
+    @Override
+    public boolean restoreState(final Topology topology, final Map<String, String> state) {
+        if (!Objects.equals(instanceId, state.get("instanceId"))) {
+            return false;
+        }
+        if (dryRun) {
+            if (state.containsKey("hostAndPort")) {
+                setHostAndPort(HostAndPort.fromString(state.get("hostAndPort")));
+            }
+            return true;
+        }
+        final DescribeDbInstancesRequest request = DescribeDbInstancesRequest.builder()
+            .dbInstanceIdentifier(instanceId).build();
+        final DBInstance instance;
+        try (RdsClient client = createClient(topology)) {
+            instance = call(topology, "describeDBInstances", () -> client.describeDBInstances(request)).dbInstances()
+                .get(0);
+        } catch (DbInstanceNotFoundException ex) {
+            return false;
+        }
+        if (!AVAILABLE.equalsIgnoreCase(instance.dbInstanceStatus()) || instance.endpoint() == null) {
+            return false;
+        }
+        setHostAndPort(HostAndPort.fromParts(instance.endpoint().address(), instance.endpoint().port()));
+        return true;
+    }
+
     @Override
     public HostAndPort getHostAndPort() {
         return hostAndPort;
@@ -154,8 +242,8 @@ public class RdsResource extends AbstractEnvironmentAwareResource implements Lif
         return this;
     }
 
-    private void deploy() {
-        final RdsClient client = RdsClient.builder().region(Region.of(getRegion())).build();
+    private void deploy(final Topology topology) {
+        final RdsClient client = createClient(topology);
 
         final CreateDbInstanceRequest request = CreateDbInstanceRequest.builder()
             .dbInstanceIdentifier(instanceId)
@@ -166,13 +254,15 @@ public class RdsResource extends AbstractEnvironmentAwareResource implements Lif
             .masterUsername(userName)
             .masterUserPassword(password)
             .build();
-        client.createDBInstance(request);
+        call(topology, "createDBInstance", () -> client.createDBInstance(request));
+        topology.startupReport().record(this, Phase.PROVISIONED);
 
-        HealthUtils.waitForHealth(Duration.ofMinutes(10), Duration.ofMillis(2000), "'" + getKey() + "' RDS Instance", () -> {
+        HealthUtils.waitForHealth(topology.deadline(this).cap(Duration.ofMinutes(10)),
+            Backoff.fixed(Duration.ofMillis(2000)), "'" + getKey() + "' RDS Instance", () -> {
             final DescribeDbInstancesRequest describeDbInstancesRequest = DescribeDbInstancesRequest.builder()
                 .dbInstanceIdentifier(getInstanceId()).build();
-            final Endpoint endpoint = client
-                .describeDBInstances(describeDbInstancesRequest)
+            final Endpoint endpoint = call(topology, "describeDBInstances",
+                () -> client.describeDBInstances(describeDbInstancesRequest))
                 .dbInstances().get(0).endpoint();
             if (endpoint == null) {
                 return false;
@@ -181,13 +271,14 @@ public class RdsResource extends AbstractEnvironmentAwareResource implements Lif
                 return true;
             }
         });
+        topology.startupReport().record(this, Phase.HEALTHY);
     }
 
-    private void undeploy() {
-        final RdsClient client = RdsClient.builder().region(Region.of(getRegion())).build();
+    private void undeploy(final Topology topology) {
+        final RdsClient client = createClient(topology);
         final DeleteDbInstanceRequest request = DeleteDbInstanceRequest.builder().dbInstanceIdentifier(instanceId)
             .skipFinalSnapshot(true).build();
-        client.deleteDBInstance(request);
+        call(topology, "deleteDBInstance", () -> client.deleteDBInstance(request));
     }
 
     public RdsResource setHostAndPort(HostAndPort hostAndPort) {
@@ -199,4 +290,15 @@ public class RdsResource extends AbstractEnvironmentAwareResource implements Lif
     public void resolveVariables(Topology topology, VariableResolver resolver) {
 
     }
+
+    private RdsClient createClient(final Topology topology) {
+        return RdsClient.builder()
+            .region(Region.of(getRegion()))
+            .overrideConfiguration(AwsRateLimiter.forRegion(getRegion()).configure(topology.metrics(), "rds"))
+            .build();
+    }
+
+    private <T> T call(final Topology topology, final String operation, final Supplier<T> call) {
+        return topology.metrics().timeCall(MetricNames.AWS_CALL, call, "service", "rds", "operation", operation);
+    }
 }
@@ -0,0 +1,106 @@
+package com.ripple.topology.elements;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.ripple.topology.metrics.InMemoryMetrics;
+import com.ripple.topology.metrics.MetricNames;
+import java.util.concurrent.CancellationException;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.core.retry.RetryPolicyContext;
+import software.amazon.awssdk.core.retry.conditions.RetryCondition;
+
+/**
+ * @author jfulton
+ */
+public class AwsRateLimiterTest {
+
+    @Test
+    public void testSharedPerRegion() {
+        assertThat(AwsRateLimiter.forRegion("test-shared-1"),
+            is(sameInstance(AwsRateLimiter.forRegion("test-shared-1"))));
+    }
+
+    @Test
+    public void testBurstThenWait() {
+        AwsRateLimiter limiter = AwsRateLimiter.forRegion("test-burst-1").setMaxRate(10).setBurst(3);
+        assertThat(limiter.reserve(), is(0L));
+        assertThat(limiter.reserve(), is(0L));
+        assertThat(limiter.reserve(), is(0L));
+        // At 10 calls per second, the fourth call waits about 100 ms, and the fifth about 200 ms
+        long fourth = limiter.reserve();
+        long fifth = limiter.reserve();
+        assertThat(fourth, greaterThan(50_000_000L));
+        assertThat(fifth, greaterThan(fourth));
+    }
+
+    @Test
+    public void testAdaptsToThrottling() {
+        AwsRateLimiter limiter = AwsRateLimiter.forRegion("test-adaptive-1").setMaxRate(8);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        RetryCondition condition = limiter.retryCondition(metrics, "ec2");
+        ExecutionAttributes attributes = new ExecutionAttributes()
+            .putAttribute(SdkExecutionAttribute.OPERATION_NAME, "DescribeInstances");
+
+        // Throttled requests are still retried by the client
+        assertThat(condition.shouldRetry(attempt(awsError("RequestLimitExceeded"), attributes)), is(true));
+        assertThat(limiter.getRate(), is(4.0));
+        assertThat(metrics.getCount(MetricNames.AWS_THROTTLED, "service", "ec2", "operation", "DescribeInstances"),
+            is(1L));
+
+        for (int i = 0; i < 10; i++) {
+            limiter.succeeded();
+        }
+        assertThat(limiter.getRate(), is(8.0));
+    }
+
+    @Test
+    public void testRetriesAwsErrors() {
+        RetryCondition condition = AwsRateLimiter.forRegion("test-retry-1")
+            .retryCondition(new InMemoryMetrics(), "ec2");
+        ExecutionAttributes attributes = new ExecutionAttributes();
+        assertThat(condition.shouldRetry(attempt(awsError("RequestTimeout"), attributes)), is(true));
+        assertThat(condition.shouldRetry(attempt(awsError("InvalidInstanceID.NotFound"), attributes)), is(false));
+    }
+
+    @Test
+    public void testRefundsWhenInterrupted() {
+        AwsRateLimiter limiter = AwsRateLimiter.forRegion("test-refund-1").setMaxRate(10).setBurst(1);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        assertThat(limiter.acquire(metrics), is(0L));
+        Thread.currentThread().interrupt();
+        try {
+            limiter.acquire(metrics);
+            throw new AssertionError("Expected the wait to be cancelled");
+        } catch (CancellationException ex) {
+            assertThat(Thread.interrupted(), is(true));
+        }
+        // The interrupted caller's token was returned, so the next caller waits at most one interval, not two
+        assertThat(limiter.reserve(), lessThanOrEqualTo(100_000_000L));
+    }
+
+    @Test
+    public void testThrottlingDetection() {
+        assertThat(AwsRateLimiter.isThrottling(awsError("Throttling")), is(true));
+        assertThat(AwsRateLimiter.isThrottling(awsError("InvalidInstanceID.NotFound")), is(false));
+    }
+
+    private static RetryPolicyContext attempt(final AwsServiceException failure, final ExecutionAttributes attributes) {
+        return RetryPolicyContext.builder().exception(failure).executionAttributes(attributes).retriesAttempted(0)
+            .build();
+    }
+
+    private static AwsServiceException awsError(final String code) {
+        return AwsServiceException.builder()
+            .awsErrorDetails(AwsErrorDetails.builder().errorCode(code).build())
+            .statusCode(400)
+            .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.ripple.topology;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A preference for placing allocations on clients whose attribute matches a value, such as
+ * {@code node.unique.name = db-1}.  Attributes are Nomad's node attributes, written with or without the surrounding
+ * <code>${}</code>.
+ *
+ * @author jfulton
+ */
+@JsonPropertyOrder({"attribute", "operator", "value", "weight"})
+public class NomadAffinity {
+
+    public static final int DEFAULT_WEIGHT = 50;
+
+    private String attribute;
+    private String operator = "=";
+    private String value;
+    private int weight = DEFAULT_WEIGHT;
+
+    public NomadAffinity() {
+        // Jackson
+    }
+
+    public NomadAffinity(final String attribute, final String value) {
+        this.attribute = Objects.requireNonNull(attribute);
+        this.value = Objects.requireNonNull(value);
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public NomadAffinity setAttribute(final String attribute) {
+        this.attribute = Objects.requireNonNull(attribute);
+        return this;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public NomadAffinity setOperator(final String operator) {
+        this.operator = Objects.requireNonNull(operator);
+        return this;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public NomadAffinity setValue(final String value) {
+        this.value = Objects.requireNonNull(value);
+        return this;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @param weight how strongly the affinity is preferred, from -100 to 100, where negative weights avoid matching
+     * clients
+     */
+    public NomadAffinity setWeight(final int weight) {
+        if (weight < -100 || weight > 100 || weight == 0) {
+            throw new IllegalArgumentException("weight must be between -100 and 100, and not 0");
+        }
+        this.weight = weight;
+        return this;
+    }
+
+    Map<String, Object> toNomad() {
+        final Map<String, Object> affinity = new LinkedHashMap<>();
+        affinity.put("LTarget", NomadPlacement.interpolated(attribute));
+        affinity.put("RTarget", value);
+        affinity.put("Operand", operator);
+        affinity.put("Weight", weight);
+        return affinity;
+    }
+}
@@ -1,27 +1,19 @@
 package com.ripple.topology;
 
 import com.hashicorp.nomad.javasdk.NomadApiClient;
-import com.hashicorp.nomad.javasdk.NomadApiConfiguration;
-import java.util.HashMap;
-import java.util.Map;
+import com.ripple.topology.metrics.Metrics;
 
 /**
  * @author jfulton
+ * @deprecated use {@link NomadClientRegistry#of(Topology)}, whose clients are closed when the Topology stops
  */
+@Deprecated
 public class NomadClientFactory {
 
-    private static final Map<String, NomadApiClient> clients = new HashMap<>();
+    // Reads the global Metrics on use, as they may be set after this class is loaded
+    private static final NomadClientRegistry clients = new NomadClientRegistry(Metrics::global);
 
     public static NomadApiClient getClient(String url) {
-        return clients.computeIfAbsent(url, s -> {
-            NomadApiConfiguration config =
-                new NomadApiConfiguration.Builder()
-                    .setAddress(s)
-                    // Determine how to store auth token and CA path
-                    //.setTlsCaFile(/* filePath */)
-                    .setTlsSkipVerify(true)
-                    .build();
-            return new NomadApiClient(config);
-        });
+        return clients.getClient(url);
     }
 }
@@ -0,0 +1,275 @@
+package com.ripple.topology;
+
+import com.hashicorp.nomad.javasdk.NomadApiClient;
+import com.hashicorp.nomad.javasdk.NomadApiConfiguration;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.net.ssl.SSLContext;
+import okhttp3.HttpUrl;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContexts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Nomad API clients of a {@link Topology}, one per Nomad server, safe to use from many NomadJobs at once.  Each
+ * client pools its HTTP connections, keeping idle connections alive to be reused, and limits how many connections it
+ * opens to its server, plus one for each open {@link #watch(String) watch}, so that blocking queries, which hold a
+ * connection for as long as they wait, never starve the other calls.  Clients are closed, along with their connections
+ * and gauges, when the Topology stops.
+ * <p>
+ * To tune the pools, register a configured registry before starting the Topology:
+ * <pre>
+ * topology.service(NomadClientRegistry.class,
+ *     t -&gt; new NomadClientRegistry(t.metrics()).setMaxConnectionsPerHost(50));
+ * </pre>
+ * The utilization of each pool is reported as gauges such as {@link MetricNames#NOMAD_POOL_LEASED}.
+ *
+ * @author jfulton
+ */
+public class NomadClientRegistry implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NomadClientRegistry.class);
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofSeconds(30);
+
+    private static final String[] GAUGES = {MetricNames.NOMAD_POOL_LEASED, MetricNames.NOMAD_POOL_AVAILABLE,
+        MetricNames.NOMAD_POOL_PENDING, MetricNames.NOMAD_POOL_MAX};
+
+    private final Supplier<Metrics> metrics;
+    private final ConcurrentMap<String, PooledClient> clients = new ConcurrentHashMap<>();
+    private volatile int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private volatile Duration keepAlive = DEFAULT_KEEP_ALIVE;
+    private volatile boolean tlsSkipVerify = true;
+    private volatile boolean closed;
+
+    public NomadClientRegistry(final Metrics metrics) {
+        Objects.requireNonNull(metrics);
+        this.metrics = () -> metrics;
+    }
+
+    /**
+     * @param metrics supplies the Metrics to report each client's pool to, when the client is created
+     */
+    public NomadClientRegistry(final Supplier<Metrics> metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * @return the registry of the given Topology, created on first use
+     */
+    public static NomadClientRegistry of(final Topology topology) {
+        return topology.service(NomadClientRegistry.class, t -> new NomadClientRegistry(t.metrics()));
+    }
+
+    /**
+     * @return the client of the Nomad server at the given address, created on first use
+     */
+    public NomadApiClient getClient(final String url) {
+        return pooled(url).client;
+    }
+
+    /**
+     * Opens a watch of the Nomad server at the given address, for a series of blocking queries, each of which holds a
+     * connection for as long as it waits.  Until the watch is closed, the client may open one more connection, so
+     * that however many watches are open at once, other calls still find a connection.
+     */
+    public Watch watch(final String url) {
+        final PooledClient pooled = pooled(url);
+        pooled.watches.incrementAndGet();
+        pooled.resize();
+        return new Watch(pooled);
+    }
+
+    private PooledClient pooled(final String url) {
+        Objects.requireNonNull(url, "'url' cannot be null");
+        if (closed) {
+            throw new IllegalStateException("The Nomad clients have been closed");
+        }
+        return clients.computeIfAbsent(url, this::create);
+    }
+
+    /**
+     * @return the number of pooled connections to the Nomad server that are in use, idle, awaited and allowed
+     */
+    public PoolStats getStats(final String url) {
+        final PooledClient pooled = clients.get(url);
+        return pooled != null ? pooled.pool.getTotalStats() : new PoolStats(0, 0, 0, maxConnectionsPerHost);
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * @param maxConnectionsPerHost the number of connections each client may open to its Nomad server, besides one
+     * for each open watch, beyond which calls wait for a connection to be released
+     */
+    public NomadClientRegistry setMaxConnectionsPerHost(final int maxConnectionsPerHost) {
+        if (maxConnectionsPerHost < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerHost must be at least 1");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        return this;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @param keepAlive how long idle connections are kept for reuse, unless the server asks for less
+     */
+    public NomadClientRegistry setKeepAlive(final Duration keepAlive) {
+        this.keepAlive = Objects.requireNonNull(keepAlive);
+        return this;
+    }
+
+    public boolean isTlsSkipVerify() {
+        return tlsSkipVerify;
+    }
+
+    public NomadClientRegistry setTlsSkipVerify(final boolean tlsSkipVerify) {
+        this.tlsSkipVerify = tlsSkipVerify;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (String url : clients.keySet()) {
+            final PooledClient pooled = clients.remove(url);
+            if (pooled != null) {
+                for (String gauge : GAUGES) {
+                    pooled.metrics.removeGauge(gauge, "host", pooled.host);
+                }
+                try {
+                    pooled.http.close();
+                } catch (IOException ex) {
+                    logger.warn("Unable to close the Nomad client of {}", url, ex);
+                }
+            }
+        }
+    }
+
+    private PooledClient create(final String url) {
+        final long keepAliveMillis = keepAlive.toMillis();
+        final PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(sockets(), null, null,
+            null, -1, TimeUnit.MILLISECONDS);
+        // Each client only connects to its own server
+        pool.setMaxTotal(maxConnectionsPerHost);
+        pool.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        final CloseableHttpClient http = HttpClients.custom()
+            .setConnectionManager(pool)
+            .setKeepAliveStrategy((response, context) -> {
+                final long requested = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response,
+                    context);
+                return requested > 0 ? Math.min(requested, keepAliveMillis) : keepAliveMillis;
+            })
+            .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+            .build();
+        final NomadApiConfiguration config = new NomadApiConfiguration.Builder()
+            .setAddress(url)
+            .setTlsSkipVerify(tlsSkipVerify)
+            .build();
+
+        final HttpUrl parsed = HttpUrl.parse(url);
+        final String host = parsed != null ? parsed.host() + ":" + parsed.port() : url;
+        final Metrics metrics = this.metrics.get();
+        metrics.gauge(MetricNames.NOMAD_POOL_LEASED, () -> pool.getTotalStats().getLeased(), "host", host);
+        metrics.gauge(MetricNames.NOMAD_POOL_AVAILABLE, () -> pool.getTotalStats().getAvailable(), "host", host);
+        metrics.gauge(MetricNames.NOMAD_POOL_PENDING, () -> pool.getTotalStats().getPending(), "host", host);
+        metrics.gauge(MetricNames.NOMAD_POOL_MAX, () -> pool.getTotalStats().getMax(), "host", host);
+        logger.debug("Created a Nomad client for {}, with up to {} connections kept alive for {} ms", url,
+            pool.getDefaultMaxPerRoute(), keepAliveMillis);
+        return new PooledClient(new NomadApiClient(config, http), http, pool, maxConnectionsPerHost, metrics, host);
+    }
+
+    private Registry<ConnectionSocketFactory> sockets() {
+        final SSLConnectionSocketFactory tls;
+        if (tlsSkipVerify) {
+            try {
+                final SSLContext context = SSLContexts.custom().loadTrustMaterial(null, (chain, authType) -> true)
+                    .build();
+                tls = new SSLConnectionSocketFactory(context, NoopHostnameVerifier.INSTANCE);
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Unable to create an SSL context for Nomad", ex);
+            }
+        } else {
+            tls = SSLConnectionSocketFactory.getSocketFactory();
+        }
+        return RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", tls)
+            .build();
+    }
+
+    /**
+     * An open watch of a Nomad server, holding room in its client's pool for one blocking query until closed.
+     */
+    public static final class Watch implements AutoCloseable {
+        private final PooledClient pooled;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Watch(final PooledClient pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                pooled.watches.decrementAndGet();
+                pooled.resize();
+            }
+        }
+    }
+
+    private static final class PooledClient {
+        private final NomadApiClient client;
+        private final CloseableHttpClient http;
+        private final PoolingHttpClientConnectionManager pool;
+        private final int maxConnections;
+        private final Metrics metrics;
+        private final String host;
+        private final AtomicInteger watches = new AtomicInteger();
+
+        private PooledClient(final NomadApiClient client, final CloseableHttpClient http,
+            final PoolingHttpClientConnectionManager pool, final int maxConnections, final Metrics metrics,
+            final String host) {
+            this.client = client;
+            this.http = http;
+            this.pool = pool;
+            this.maxConnections = maxConnections;
+            this.metrics = metrics;
+            this.host = host;
+        }
+
+        // Reads the latest count, so watches opening and closing at once settle on the right size
+        private synchronized void resize() {
+            final int max = maxConnections + watches.get();
+            pool.setMaxTotal(max);
+            pool.setDefaultMaxPerRoute(max);
+        }
+    }
+}
@@ -4,30 +4,57 @@ import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.hash.Hashing;
 import com.google.common.net.HostAndPort;
+import com.hashicorp.nomad.apimodel.AllocDeploymentStatus;
+import com.hashicorp.nomad.apimodel.Allocation;
 import com.hashicorp.nomad.apimodel.AllocationListStub;
+import com.hashicorp.nomad.apimodel.Deployment;
 import com.hashicorp.nomad.apimodel.Evaluation;
 import com.hashicorp.nomad.apimodel.Job;
+import com.hashicorp.nomad.apimodel.NetworkResource;
+import com.hashicorp.nomad.apimodel.Task;
 import com.hashicorp.nomad.apimodel.TaskState;
+import com.hashicorp.nomad.apimodel.UpdateStrategy;
 import com.hashicorp.nomad.javasdk.EvaluationResponse;
 import com.hashicorp.nomad.javasdk.NomadApiClient;
 import com.hashicorp.nomad.javasdk.NomadException;
+import com.hashicorp.nomad.javasdk.NomadJson;
+import com.hashicorp.nomad.javasdk.QueryOptions;
+import com.hashicorp.nomad.javasdk.ServerQueryResponse;
+import com.hashicorp.nomad.javasdk.WaitStrategy;
 import com.ripple.topology.elements.AbstractElementGroup;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import com.ripple.topology.scheduling.Bulkhead;
+import com.ripple.topology.scheduling.StartupReport.Phase;
+import com.ripple.topology.utils.Backoff;
+import com.ripple.topology.utils.Deadline;
+import com.ripple.topology.utils.HealthEngine;
 import com.ripple.topology.utils.HealthUtils;
+import com.ripple.topology.utils.HostUtils;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import okhttp3.HttpUrl;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -37,17 +64,38 @@ import org.slf4j.LoggerFactory;
  * @author jfulton
  * @author matt
  */
-@JsonPropertyOrder({"variables", "clusterManager", "region", "datacenter", "groupId", "vaultToken"})
-public class NomadJob extends AbstractElementGroup<NomadJob> implements Lifecycle, ScopedVariableSource<NomadJob>,
-    VariableResolverAware {
+@JsonPropertyOrder({"variables", "clusterManager", "region", "datacenter", "groupId", "vaultToken", "elements",
+    "taskHealthTimeoutMillis", "taskHealthCheckPauseMillis"})
+public class NomadJob extends AbstractElementGroup<NomadJob> implements Resumable, ScopedVariableSource<NomadJob>,
+    VariableResolverAware, BulkheadAware {
 
     public static final Duration JOB_HEALTH_CHECK_TIMEOUT = Duration.ofMinutes(5);
     public static final Duration JOB_HEALTH_CHECK_PAUSE = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_MIN_HEALTHY_TIME = Duration.ofSeconds(1);
+    private static final Duration BLOCKING_QUERY_WAIT = Duration.ofSeconds(10);
+    private static final Duration PORT_READY_TIMEOUT = Duration.ofMinutes(1);
+    private static final Duration PORT_CONNECT_TIMEOUT = Duration.ofSeconds(1);
+    private static final Backoff PORT_READY_BACKOFF =
+        Backoff.exponential(Duration.ofMillis(100), Duration.ofSeconds(2));
     private static final String RUNNING = "running";
+    private static final String PENDING = "pending";
+    private static final String FAILED = "failed";
+    private static final String CANCELED = "canceled";
+    private static final String DESIRED_RUN = "run";
+    private static final String SUCCESSFUL = "successful";
+    private static final List<String> DEPLOYMENT_DONE = Arrays.asList(SUCCESSFUL, FAILED, "cancelled");
+    private static final String JOB_ID = "jobId";
+    private static final String SPEC_HASH_META = "topology_spec_hash";
+    private static final ObjectMapper CANONICAL_JSON = new ObjectMapper()
+        .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    private static final Comparator<AllocationListStub> BY_CREATE_INDEX = Comparator.comparing(
+        AllocationListStub::getCreateIndex, Comparator.nullsFirst(Comparator.naturalOrder()));
 
     private static final Logger logger = LoggerFactory.getLogger(NomadJob.class);
 
     private final Map<String, Object> variables = new LinkedHashMap<>();
+    private final List<NomadAffinity> affinities = new ArrayList<>();
+    private final List<NomadSpread> spreads = new ArrayList<>();
     private HttpUrl clusterManager;
     private String groupId;
     private String vaultToken;
@@ -55,6 +103,11 @@ public class NomadJob extends AbstractElementGroup<NomadJob> implements Lifecycl
     private String datacenter = "dc1";
     private int taskHealthCheckPause = 500;
     private int taskHealthTimeout = 90 * 1000;
+    private String bulkhead;
+    private boolean forceRegister;
+    private boolean deploymentHealth;
+    @JsonProperty("minHealthyTime")
+    private Duration minHealthyTime;
 
     public HttpUrl getClusterManager() {
         return clusterManager;
@@ -124,34 +177,150 @@ public class NomadJob extends AbstractElementGroup<NomadJob> implements Lifecycl
         nomadJob.setType("service");
         nomadJob.addDatacenters(datacenter);
         nomadJob.setVaultToken("vault-token");
+        if (deploymentHealth) {
+            nomadJob.setUpdate(new UpdateStrategy()
+                .setHealthCheck("checks")
+                .setMaxParallel(1)
+                .setMinHealthyTime(getMinHealthyTime().toNanos())
+                .setHealthyDeadline(TimeUnit.MILLISECONDS.toNanos(getTaskHealthTimeoutMillis()))
+                // Disabled, as the start's own deadline bounds the deployment
+                .setProgressDeadline(0L)
+                .setAutoRevert(false));
+        }
         for (Element element : getElements()) {
             if (element instanceof NomadTask) {
                 nomadJob.addTaskGroups(((NomadTask) element).getTaskGroup());
+            } else if (element instanceof NomadTaskGroup) {
+                nomadJob.addTaskGroups(((NomadTaskGroup) element).getTaskGroup());
             } else {
                 throw new UnsupportedOperationException(
                     "Invalid Element type " + element.getClass().getName() + " in " + getClass().getName());
             }
         }
+        NomadPlacement.apply(nomadJob, affinities, spreads);
         return nomadJob;
     }
 
+    /**
+     * @return preferences for the clients that all of the job's task groups are placed on
+     */
+    public List<NomadAffinity> getAffinities() {
+        return affinities;
+    }
+
+    public NomadJob addAffinity(final NomadAffinity affinity) {
+        affinities.add(affinity);
+        return this;
+    }
+
+    /**
+     * @return how all of the job's task groups are spread across clients
+     */
+    public List<NomadSpread> getSpreads() {
+        return spreads;
+    }
+
+    public NomadJob addSpread(final NomadSpread spread) {
+        spreads.add(spread);
+        return this;
+    }
+
+    @Override
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public NomadJob setBulkhead(final String bulkhead) {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    @Override
+    public String getDefaultBulkhead() {
+        return Bulkhead.NOMAD;
+    }
+
+    public boolean isForceRegister() {
+        return forceRegister;
+    }
+
+    /**
+     * @param forceRegister whether to register the job even if it's already running unchanged.  By default, a job
+     * whose {@link #specHash(Job) spec hash} matches the one recorded in the running job's metadata, and whose tasks
+     * are all running, is reused as is.
+     */
+    public NomadJob setForceRegister(final boolean forceRegister) {
+        this.forceRegister = forceRegister;
+        return this;
+    }
+
+    public boolean isDeploymentHealth() {
+        return deploymentHealth;
+    }
+
+    /**
+     * @param deploymentHealth whether the job's readiness is taken from Nomad rather than checked here.  If so, the
+     * job is registered with an update stanza, so that Nomad tracks a deployment using the tasks' service checks, and
+     * the start waits for each allocation's deployment status to turn healthy, failing as soon as one turns unhealthy.
+     * Allocations must pass their checks for {@link #getMinHealthyTime() minHealthyTime}, within
+     * {@link #getTaskHealthTimeoutMillis() taskHealthTimeoutMillis}.
+     */
+    public NomadJob setDeploymentHealth(final boolean deploymentHealth) {
+        this.deploymentHealth = deploymentHealth;
+        return this;
+    }
+
+    /**
+     * @return how long allocations must pass their service checks to be considered healthy, when using
+     * {@link #isDeploymentHealth() deploymentHealth}; {@link #DEFAULT_MIN_HEALTHY_TIME} unless set
+     */
+    @JsonIgnore
+    public Duration getMinHealthyTime() {
+        return minHealthyTime != null ? minHealthyTime : DEFAULT_MIN_HEALTHY_TIME;
+    }
+
+    public NomadJob setMinHealthyTime(final Duration minHealthyTime) {
+        this.minHealthyTime = minHealthyTime;
+        return this;
+    }
+
     @Override
     public CompletableFuture<Void> start(final Topology topology) {
-        return CompletableFuture.runAsync(() -> {
+        return topology.getExecutor().runAsync(() -> {
             Job nomadJob = createJob();
             logger.info("Starting nomad job {} ...", nomadJob.getId());
-            NomadApiClient client = NomadClientFactory.getClient(clusterManagerString());
+            final NomadClientRegistry clients = NomadClientRegistry.of(topology);
+            NomadApiClient client = clients.getClient(clusterManagerString());
+            final Metrics metrics = topology.metrics();
+            final Deadline deadline = topology.deadline(this);
             try {
-                EvaluationResponse evaluationResponse = client.getJobsApi().register(nomadJob);
-
-                waitForNomadJob(nomadJob.getId(), client, evaluationResponse);
-
-                logger.info("Job {} started successfully", nomadJob.getId());
+                final String specHash = specHash(nomadJob);
+                List<AllocationListStub> allocations = forceRegister ? null
+                    : findUnchangedAllocations(client, nomadJob, specHash, metrics);
+                if (allocations != null) {
+                    logger.info("Job {} is already running unchanged, skipping registration", nomadJob.getId());
+                    metrics.counter(MetricNames.NOMAD_JOBS_UNCHANGED).increment();
+                } else {
+                    nomadJob.addMeta(SPEC_HASH_META, specHash);
+                    EvaluationResponse evaluationResponse = call(metrics, "register",
+                        () -> client.getJobsApi().register(nomadJob));
+
+                    try (NomadClientRegistry.Watch ignored = clients.watch(clusterManagerString())) {
+                        allocations = waitForNomadJob(nomadJob.getId(), client, evaluationResponse, metrics, deadline);
+                    }
+                    logger.info("Job {} started successfully", nomadJob.getId());
+                }
+                topology.startupReport().record(this, Phase.PROVISIONED);
 
                 final Map<String, String> taskIdToAllocationId = getJobTaskAllocationIds(client, nomadJob,
-                    evaluationResponse.getValue());
+                    allocations, metrics);
 
-                final Map<String, HostAndPort> hostsAndPorts = getHostsAndPorts(client, taskIdToAllocationId);
+                final Map<String, HostAndPort> hostsAndPorts = getHostsAndPorts(client, taskIdToAllocationId,
+                    metrics);
+
+                if (!deploymentHealth) {
+                    waitForPorts(hostsAndPorts, deadline);
+                }
 
                 for (Map.Entry<String, HostAndPort> entry : hostsAndPorts.entrySet()) {
                     final NomadTask nomadTask = topology.getResource(entry.getKey(), NomadTask.class);
@@ -161,62 +330,39 @@ public class NomadJob extends AbstractElementGroup<NomadJob> implements Lifecycl
                     }
                 }
 
-                final List<HealthCheck> healthChecks = getElements(HealthCheck.class);
-                if (healthChecks.size() > 0) {
-                    Executor executor = Executors.newFixedThreadPool(healthChecks.size());
-                    CountDownLatch latch = new CountDownLatch(healthChecks.size());
-                    final AtomicInteger healthCheckSuccesses = new AtomicInteger();
-
-                    for (HealthCheck healthCheck : healthChecks) {
-                        executor.execute(() -> {
-                            final long startTime = System.currentTimeMillis();
-                            final long timeout = startTime + getTaskHealthTimeoutMillis();
-                            String id = healthCheck instanceof Resource ? ((Resource) healthCheck).getKey()
-                                : healthCheck.getClass().getName();
-                            while (System.currentTimeMillis() < timeout) {
-                                if (healthCheck.isHealthy()) {
-                                    healthCheckSuccesses.incrementAndGet();
-                                    logger.info("'{}' resource healthy after {} millis", id,
-                                        System.currentTimeMillis() - startTime);
-                                    break;
-                                } else {
-                                    logger.info("Waiting a maximum of {} millis for '{}' resource to become healthy",
-                                        getTaskHealthTimeoutMillis(), id);
-                                    try {
-                                        Thread.sleep(getTaskHealthCheckPauseMillis());
-                                    } catch (InterruptedException ex) {
-                                        logger.error("Interrupted", ex);
-                                    }
-                                }
-                            }
-                            latch.countDown();
-                        });
-                    }
-
-                    latch.await(getTaskHealthTimeoutMillis() + 1000, TimeUnit.MILLISECONDS);
-                    ((ExecutorService) executor).shutdown();
-
-                    if (healthCheckSuccesses.get() < healthChecks.size()) {
-                        logger.warn("{} out of {} resources failed to be healthy within {} millis",
-                            (healthChecks.size() - healthCheckSuccesses.get()), healthChecks.size(),
-                            getTaskHealthTimeoutMillis());
+                // With deploymentHealth, Nomad has already checked the tasks
+                final List<Element> healthChecks = getElements(Element.class, HealthEngine::isHealthCheck);
+                if (!deploymentHealth && healthChecks.size() > 0) {
+                    try {
+                        HealthUtils.waitForAll(deadline.cap(Duration.ofMillis(getTaskHealthTimeoutMillis())),
+                            Backoff.fixed(Duration.ofMillis(getTaskHealthCheckPauseMillis())), healthChecks);
+                    } catch (CancellationException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        logger.warn("Error checking the health of job {}", nomadJob.getId(), e);
                     }
                 }
+                topology.startupReport().record(this, Phase.HEALTHY);
             } catch (IOException | NomadException e) {
                 logger.error(e.getMessage(), e);
                 throw new RuntimeException(e.getMessage());
             } catch (InterruptedException e) {
-                throw new RuntimeException(e.getMessage());
+                // Leave the thread interrupted, so the start is seen to have been cancelled rather than failed
+                Thread.currentThread().interrupt();
+                final CancellationException cancellation = new CancellationException(
+                    "Cancelled starting nomad job " + nomadJob.getId());
+                cancellation.initCause(e);
+                throw cancellation;
             }
         });
     }
 
     @Override
     public CompletableFuture<Void> stop(final Topology topology) {
-        return CompletableFuture.runAsync(() -> {
-            NomadApiClient client = NomadClientFactory.getClient(clusterManagerString());
+        return topology.getExecutor().runAsync(() -> {
+            NomadApiClient client = NomadClientRegistry.of(topology).getClient(clusterManagerString());
             try {
-                client.getJobsApi().deregister(groupId);
+                call(topology.metrics(), "deregister", () -> client.getJobsApi().deregister(groupId));
             } catch (IOException | NomadException e) {
                 logger.error(e.getMessage(), e);
                 throw new RuntimeException(e.getMessage());
@@ -224,6 +370,52 @@ public class NomadJob extends AbstractElementGroup<NomadJob> implements Lifecycl
         });
     }
 
+    @Override
+    public Map<String, String> saveState() {
+        final Map<String, String> state = new LinkedHashMap<>();
+        state.put(JOB_ID, groupId);
+        for (NomadTask task : getElements(NomadTask.class)) {
+            if (task.getHostAndPort() != null) {
+                state.put(task.getKey(), task.getHostAndPort().toString());
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public boolean restoreState(final Topology topology, final Map<String, String> state) {
+        if (groupId == null || !groupId.equals(state.get(JOB_ID))) {
+            return false;
+        }
+        NomadApiClient client = NomadClientRegistry.of(topology).getClient(clusterManagerString());
+        try {
+            final List<AllocationListStub> allocations = call(topology.metrics(), "jobAllocations",
+                () -> client.getJobsApi().allocations(groupId)).getValue();
+            for (NomadTask task : getElements(NomadTask.class)) {
+                final boolean running = allocations.stream().anyMatch(a -> a.getTaskStates() != null
+                    && a.getTaskStates().get(task.getKey()) != null
+                    && RUNNING.equalsIgnoreCase(a.getTaskStates().get(task.getKey()).getState()));
+                if (!running || !state.containsKey(task.getKey())) {
+                    return false;
+                }
+            }
+        } catch (NomadException e) {
+            logger.debug("Unable to find allocations for job {}", groupId, e);
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+
+        for (NomadTask task : getElements(NomadTask.class)) {
+            final HostAndPort hostAndPort = HostAndPort.fromString(state.get(task.getKey()));
+            task.setHostAndPort(hostAndPort);
+            if (task.isHttpEnabled()) {
+                task.setHttpUrl(HttpUrl.parse("http://" + hostAndPort.toString()));
+            }
+        }
+        return true;
+    }
+
     private String clusterManagerString() {
         return StringUtils.stripEnd(clusterManager.toString(), "/");
     }
@@ -236,56 +428,233 @@ public class NomadJob extends AbstractElementGroup<NomadJob> implements Lifecycl
     @Override
     public void resolveVariables(Topology topology, final VariableResolver resolver) {
         this.groupId = resolver.resolve(groupId);
+        for (NomadAffinity affinity : affinities) {
+            affinity.setValue(resolver.resolve(affinity.getValue()));
+        }
         for (Element element : getElements()) {
             topology.substituteVariables(element, resolver.clone());
         }
     }
 
-    private void waitForNomadJob(String jobId, NomadApiClient client, EvaluationResponse evaluationResponse)
-        throws InterruptedException {
-        Thread.sleep(1000); // Wait for allocations to become available
-        logger.debug("Waiting for all allocations for evaluation {} to report status 'RUNNING'",
-            evaluationResponse.getValue());
-
-        final String healthCheckMessage = "Evaluation " + evaluationResponse.getValue() + " for Nomad job " + jobId;
-        HealthUtils.waitForHealth(JOB_HEALTH_CHECK_TIMEOUT, JOB_HEALTH_CHECK_PAUSE, healthCheckMessage, () -> {
-                try {
-                    return client.getEvaluationsApi()
-                        .allocations(evaluationResponse.getValue()).getValue().stream()
-                        .allMatch(a -> RUNNING.equalsIgnoreCase(a.getClientStatus()));
-                } catch (IOException e) {
-                    logger.error("Fatal error checking health for job {}", jobId, e);
-                    throw new RuntimeException(e);
-                } catch (NomadException e) {
-                    logger.error("Fatal error checking health for job {}", jobId, e);
-                    throw new RuntimeException(e);
-                }
-            });
-        Thread.sleep(8000); // Once job reports running, it still takes time for port to become available
+    /**
+     * @return a SHA-256 hash of the job's canonical JSON, with object keys sorted, which changes whenever anything
+     * Nomad would deploy changes
+     */
+    static String specHash(Job job) {
+        try {
+            final Object tree = CANONICAL_JSON.readValue(NomadJson.serialize(job), Object.class);
+            return Hashing.sha256().hashBytes(CANONICAL_JSON.writeValueAsBytes(tree)).toString();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    private Map<String, String> getJobTaskAllocationIds(NomadApiClient client, Job nomadJob, String evaluationId)
-        throws NomadException,
-        IOException {
-        final List<String> taskGroupIds = nomadJob.getTaskGroups().stream().map(g -> g.getName()).collect(toList());
+    /**
+     * @return the job's allocations if the job is already running with the given spec hash, and each of its tasks has
+     * a running allocation, or null if the job needs to be registered
+     */
+    private List<AllocationListStub> findUnchangedAllocations(NomadApiClient client, Job nomadJob, String specHash,
+        Metrics metrics) throws IOException {
+        final Job running;
+        try {
+            running = call(metrics, "jobInfo", () -> client.getJobsApi().info(nomadJob.getId())).getValue();
+        } catch (NomadException e) {
+            logger.debug("Job {} is not registered", nomadJob.getId(), e);
+            return null;
+        }
+        if (Boolean.TRUE.equals(running.getStop()) || !RUNNING.equalsIgnoreCase(running.getStatus())
+            || running.getMeta() == null || !specHash.equals(running.getMeta().get(SPEC_HASH_META))) {
+            return null;
+        }
+        final List<AllocationListStub> allocations;
+        try {
+            allocations = call(metrics, "jobAllocations",
+                () -> client.getJobsApi().allocations(nomadJob.getId())).getValue();
+        } catch (NomadException e) {
+            logger.debug("Unable to find allocations for job {}", nomadJob.getId(), e);
+            return null;
+        }
+        final boolean allRunning = taskNames(nomadJob).stream().allMatch(task -> allocations.stream()
+            .anyMatch(a -> a.getTaskStates() != null && a.getTaskStates().get(task) != null
+                && RUNNING.equalsIgnoreCase(a.getTaskStates().get(task).getState())));
+        return allRunning ? allocations : null;
+    }
+
+    /**
+     * Watches the job's evaluation, and then its allocations, with Nomad's blocking queries, returning as soon as there
+     * are allocations and every one is running, or with {@link #isDeploymentHealth() deploymentHealth}, healthy and
+     * the job's deployment successful.
+     *
+     * @return the allocations the evaluation placed, or if it placed none because the job was unchanged, the job's
+     * allocations, all running
+     */
+    private List<AllocationListStub> waitForNomadJob(String jobId, NomadApiClient client,
+        EvaluationResponse evaluationResponse, Metrics metrics, Deadline deadline)
+        throws IOException, NomadException, InterruptedException {
+        final String evaluationId = evaluationResponse.getValue();
+        final Deadline watchDeadline = deadline.limit(JOB_HEALTH_CHECK_TIMEOUT);
+        final String subject = "Evaluation " + evaluationId + " for Nomad job " + jobId;
+
+        logger.debug("Waiting for evaluation {} to complete", evaluationId);
+        final Evaluation evaluation = watch(subject, metrics, "evaluationInfo", watchDeadline,
+            options -> client.getEvaluationsApi().info(evaluationId, options),
+            e -> !PENDING.equalsIgnoreCase(e.getStatus()));
+        if (FAILED.equalsIgnoreCase(evaluation.getStatus()) || CANCELED.equalsIgnoreCase(evaluation.getStatus())) {
+            throw new RuntimeException(subject + " " + evaluation.getStatus() + ": "
+                + evaluation.getStatusDescription());
+        }
+
+        final Predicate<List<AllocationListStub>> done = deploymentHealth
+            ? allocations -> allocations.stream().allMatch(a -> isHealthy(subject, a))
+            : allocations -> allocations.stream().allMatch(a -> RUNNING.equalsIgnoreCase(a.getClientStatus()));
+        logger.debug(deploymentHealth ? "Waiting for all allocations for evaluation {} to be healthy"
+            : "Waiting for all allocations for evaluation {} to report status 'RUNNING'", evaluationId);
+        // A complete evaluation has placed all of its allocations, so if it placed none, it never will
+        List<AllocationListStub> allocations = NomadJob.<List<AllocationListStub>>watch(subject, metrics,
+            "evaluationAllocations", watchDeadline,
+            options -> client.getEvaluationsApi().allocations(evaluationId, options),
+            placed -> placed.isEmpty() || done.test(placed));
+        if (allocations.isEmpty()) {
+            logger.debug("Evaluation {} placed no allocations, waiting for those of job {}", evaluationId, jobId);
+            allocations = NomadJob.<List<AllocationListStub>>watch(subject, metrics, "jobAllocations", watchDeadline,
+                options -> client.getJobsApi().allocations(jobId, options),
+                all -> !desired(all).isEmpty() && done.test(desired(all)));
+            allocations = desired(allocations);
+        }
+
+        if (deploymentHealth) {
+            waitForDeployment(jobId, client, evaluation, metrics, watchDeadline);
+        }
+        return allocations;
+    }
+
+    /**
+     * @return the allocations Nomad means to keep running, leaving out those of earlier versions of the job
+     */
+    private static List<AllocationListStub> desired(List<AllocationListStub> allocations) {
+        return allocations.stream().filter(a -> DESIRED_RUN.equalsIgnoreCase(a.getDesiredStatus())).collect(toList());
+    }
+
+    /**
+     * Watches the job's latest deployment, at least as new as the registration that created the given evaluation,
+     * until it's successful.
+     *
+     * @throws RuntimeException if the deployment fails or is cancelled
+     */
+    private static void waitForDeployment(String jobId, NomadApiClient client, Evaluation evaluation, Metrics metrics,
+        Deadline deadline) throws IOException, NomadException, InterruptedException {
+        final String subject = "Deployment of Nomad job " + jobId;
+        final BigInteger registered = orZero(evaluation.getJobModifyIndex());
+
+        logger.debug("Waiting for the deployment of job {} to succeed", jobId);
+        final Deployment deployment = watch(subject, metrics, "latestDeployment", deadline,
+            options -> client.getJobsApi().latestDeployment(jobId, options),
+            d -> d != null && orZero(d.getJobSpecModifyIndex()).compareTo(registered) >= 0
+                && DEPLOYMENT_DONE.contains(d.getStatus().toLowerCase()));
+        if (!SUCCESSFUL.equalsIgnoreCase(deployment.getStatus())) {
+            throw new RuntimeException(subject + " " + deployment.getStatus() + ": "
+                + deployment.getStatusDescription());
+        }
+    }
+
+    private static BigInteger orZero(BigInteger index) {
+        return index != null ? index : BigInteger.ZERO;
+    }
+
+    /**
+     * @return whether Nomad has found the allocation healthy, or false if it hasn't decided yet
+     * @throws RuntimeException if Nomad has found the allocation unhealthy
+     */
+    private static boolean isHealthy(String subject, AllocationListStub allocation) {
+        final AllocDeploymentStatus status = allocation.getDeploymentStatus();
+        if (status == null || status.getHealthy() == null) {
+            return false;
+        } else if (!status.getHealthy()) {
+            throw new RuntimeException(subject + ": allocation " + allocation.getId() + " of task group "
+                + allocation.getTaskGroup() + " is unhealthy");
+        }
+        return true;
+    }
 
-        final List<AllocationListStub> currentEvaluationAllocations = client.getEvaluationsApi().allocations
-            (evaluationId).getValue();
+    /**
+     * Repeats a blocking query, each time waiting for the result to change from the last one, until the result is
+     * done.
+     *
+     * @throws RuntimeException if the result isn't done by the deadline
+     */
+    private static <T> T watch(String subject, Metrics metrics, String operation, Deadline deadline,
+        BlockingQuery<T> query, Predicate<T> done) throws IOException, NomadException, InterruptedException {
+        BigInteger index = BigInteger.ZERO;
+        while (true) {
+            final QueryOptions<T> options = new QueryOptions<T>()
+                .setIndex(index)
+                .setWaitStrategy(WaitStrategy.waitForMilliseconds(deadline.cap(BLOCKING_QUERY_WAIT).toMillis()));
+            final ServerQueryResponse<T> response = call(metrics, operation, () -> query.query(options));
+            if (done.test(response.getValue())) {
+                return response.getValue();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException(subject + " was interrupted");
+            }
+            if (deadline.isExpired()) {
+                throw new RuntimeException(subject + " did not complete in time");
+            }
+            // Nomad indexes only grow, but start over if the server was restarted, as Nomad recommends
+            final BigInteger next = response.getIndex();
+            index = next.compareTo(index) < 0 ? BigInteger.ZERO : next;
+        }
+    }
+
+    /**
+     * Waits for every task's port to accept connections, since a running task may not be listening yet.  The ports
+     * are checked at once, all within the same time.
+     *
+     * @throws RuntimeException if any task isn't listening in time
+     */
+    void waitForPorts(Map<String, HostAndPort> hostsAndPorts, Deadline deadline) throws InterruptedException {
+        final Duration maxWait = deadline.cap(PORT_READY_TIMEOUT);
+        final Map<String, CompletableFuture<Boolean>> listening = new TreeMap<>();
+        for (Map.Entry<String, HostAndPort> entry : hostsAndPorts.entrySet()) {
+            final HostAndPort hostAndPort = entry.getValue();
+            listening.put(entry.getKey(), HealthEngine.shared().waitForHealth(maxWait, PORT_READY_BACKOFF,
+                "Port of task " + entry.getKey() + " at " + hostAndPort,
+                () -> HostUtils.isListening(hostAndPort.getHost(), hostAndPort.getPort(), PORT_CONNECT_TIMEOUT)));
+        }
+        try {
+            CompletableFuture.allOf(listening.values().toArray(new CompletableFuture[0])).get();
+        } catch (InterruptedException e) {
+            listening.values().forEach(future -> future.cancel(false));
+            throw e;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to check the ports of job " + groupId, e.getCause());
+        }
+
+        final List<String> notListening = listening.entrySet().stream()
+            .filter(entry -> !entry.getValue().join())
+            .map(entry -> entry.getKey() + " at " + hostsAndPorts.get(entry.getKey()))
+            .collect(toList());
+        if (!notListening.isEmpty()) {
+            throw new RuntimeException("Tasks of job " + groupId + " are not listening: "
+                + String.join(", ", notListening));
+        }
+    }
+
+    /**
+     * @return the newest running allocation of each of the job's tasks, from the given allocations of the job or its
+     * evaluation, or, if the evaluation placed none because the job was unchanged, from all of the job's allocations
+     */
+    private Map<String, String> getJobTaskAllocationIds(NomadApiClient client, Job nomadJob,
+        List<AllocationListStub> evaluationAllocations, Metrics metrics) throws NomadException, IOException {
+        final List<String> taskIds = taskNames(nomadJob);
 
         // If we submit the same job twice, nomad will create a new evaluation, but no new allocations for that
         // evaluation because it recognizes the job already exists and there is nothing to update. In this case, we
-        // fetch the existing allocations
-        final Evaluation evaluation = client.getJobsApi().evaluations(nomadJob.getId()).getValue().stream()
-            .filter(e -> hasAllocations(client, e)).findFirst().orElseThrow(() -> new
-                RuntimeException("No allocations found for job " + nomadJob.getId()));
-        final List<AllocationListStub> mostRecentAllocations = client.getEvaluationsApi().allocations(evaluation
-            .getId())
-            .getValue();
-
-        final List<AllocationListStub> allocations = currentEvaluationAllocations.isEmpty() ? mostRecentAllocations :
-            currentEvaluationAllocations;
-
-        final Map<String, String> taskIdToAllocationId = taskGroupIds.stream()
+        // fetch the existing allocations, all at once
+        final List<AllocationListStub> allocations = evaluationAllocations.isEmpty()
+            ? call(metrics, "jobAllocations", () -> client.getJobsApi().allocations(nomadJob.getId())).getValue()
+            : evaluationAllocations;
+
+        final Map<String, String> taskIdToAllocationId = taskIds.stream()
             .collect(toMap(identity(), id -> {
                 final String allocationId = allocations.stream().filter(a -> {
                     final Map<String, TaskState> taskStates = a.getTaskStates();
@@ -294,7 +663,7 @@ public class NomadJob extends AbstractElementGroup<NomadJob> implements Lifecycl
                             + "started properly.");
                     }
                     return taskStates.get(id) != null && RUNNING.equalsIgnoreCase(taskStates.get(id).getState());
-                }).findFirst()
+                }).max(BY_CREATE_INDEX)
                     .orElseThrow(() -> new RuntimeException("Task " + id + " for job " + nomadJob.getId() + " does "
                         + "not exist."))
                     .getId();
@@ -304,31 +673,66 @@ public class NomadJob extends AbstractElementGroup<NomadJob> implements Lifecycl
         return taskIdToAllocationId;
     }
 
-    private boolean hasAllocations(NomadApiClient client, Evaluation evaluation) {
-        try {
-            return !client.getEvaluationsApi().allocations(evaluation.getId()).getValue().isEmpty();
-        } catch (NomadException | IOException e) {
-            logger.error("Error fetching data from nomad API", e);
-            return false;
-        }
+    /**
+     * @return the names of the tasks in all of the job's task groups
+     */
+    private static List<String> taskNames(Job nomadJob) {
+        return nomadJob.getTaskGroups().stream().flatMap(g -> g.getTasks().stream()).map(Task::getName)
+            .collect(toList());
     }
 
-    private Map<String, HostAndPort> getHostsAndPorts(NomadApiClient client, Map<String, String> allocationIdMap)
-        throws NomadException, IOException {
-        final Map<String, HostAndPort> hostAndPortMap = new HashMap<>();
+    /**
+     * Fetches each allocation once, however many of the tasks it runs.
+     */
+    private Map<String, HostAndPort> getHostsAndPorts(NomadApiClient client, Map<String, String> allocationIdMap,
+        Metrics metrics) throws NomadException, IOException {
+        final Map<String, Allocation> allocations = new HashMap<>();
+        for (String allocationId : new HashSet<>(allocationIdMap.values())) {
+            allocations.put(allocationId, call(metrics, "allocationInfo",
+                () -> client.getAllocationsApi().info(allocationId)).getValue());
+        }
 
+        final Map<String, HostAndPort> hostAndPortMap = new HashMap<>();
         for (Map.Entry<String, String> entry : allocationIdMap.entrySet()) {
             final String taskId = entry.getKey();
-            final String allocationId = entry.getValue();
-            final String ip = client.getAllocationsApi().info(allocationId).getValue().getTaskResources()
-                .get(taskId).getNetworks().get(0).getIp();
-            final int port = client.getAllocationsApi().info(allocationId).getValue().getTaskResources().get
-                (taskId).getNetworks().get(0).getDynamicPorts().get(0).getValue();
+            final NetworkResource network = allocations.get(entry.getValue()).getTaskResources().get(taskId)
+                .getNetworks().get(0);
 
-            final HostAndPort hostAndPort = HostAndPort.fromParts(ip, port);
+            final HostAndPort hostAndPort = HostAndPort.fromParts(network.getIp(),
+                network.getDynamicPorts().get(0).getValue());
 
             hostAndPortMap.put(taskId, hostAndPort);
         }
         return hostAndPortMap;
     }
+
+    /**
+     * Times a Nomad API call, reporting its latency and any failure to the Topology's Metrics.
+     */
+    private static <T> T call(Metrics metrics, String operation, NomadCall<T> call) throws NomadException,
+        IOException {
+        final long start = System.nanoTime();
+        try {
+            final T result = call.call();
+            metrics.timer(MetricNames.NOMAD_CALL, "operation", operation, "outcome", "success")
+                .record(System.nanoTime() - start);
+            return result;
+        } catch (NomadException | IOException | RuntimeException e) {
+            metrics.timer(MetricNames.NOMAD_CALL, "operation", operation, "outcome", "failure")
+                .record(System.nanoTime() - start);
+            metrics.counter(MetricNames.FAILURES, "operation", operation, "metric", MetricNames.NOMAD_CALL)
+                .increment();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface NomadCall<T> {
+        T call() throws NomadException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface BlockingQuery<T> {
+        ServerQueryResponse<T> query(QueryOptions<T> options) throws NomadException, IOException;
+    }
 }
@@ -0,0 +1,36 @@
+package com.ripple.topology;
+
+import com.hashicorp.nomad.javasdk.ApiObject;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Adds affinities and spreads to Nomad jobs and task groups.  They're added as unmapped properties, since they were
+ * introduced in Nomad 0.9, after the version of the Nomad SDK used here.
+ *
+ * @author jfulton
+ */
+final class NomadPlacement {
+
+    private NomadPlacement() {
+    }
+
+    static void apply(final ApiObject target, final List<NomadAffinity> affinities, final List<NomadSpread> spreads) {
+        if (!affinities.isEmpty()) {
+            target.addUnmappedProperty("Affinities",
+                affinities.stream().map(NomadAffinity::toNomad).collect(Collectors.toList()));
+        }
+        if (!spreads.isEmpty()) {
+            target.addUnmappedProperty("Spreads",
+                spreads.stream().map(NomadSpread::toNomad).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Nomad attributes are interpolated, such as <code>${node.datacenter}</code>, but may be written without the
+     * <code>${}</code>, so they aren't mistaken for Topology variables.
+     */
+    static String interpolated(final String attribute) {
+        return attribute.startsWith("${") ? attribute : "${" + attribute + "}";
+    }
+}
@@ -0,0 +1,84 @@
+package com.ripple.topology;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Spreads allocations across the values of a client attribute, such as {@code node.datacenter}, either evenly or by
+ * the given percentage per value.  Attributes are Nomad's node attributes, written with or without the surrounding
+ * <code>${}</code>.
+ *
+ * @author jfulton
+ */
+@JsonPropertyOrder({"attribute", "weight", "targets"})
+public class NomadSpread {
+
+    private String attribute;
+    private int weight = NomadAffinity.DEFAULT_WEIGHT;
+    private final Map<String, Integer> targets = new LinkedHashMap<>();
+
+    public NomadSpread() {
+        // Jackson
+    }
+
+    public NomadSpread(final String attribute) {
+        this.attribute = Objects.requireNonNull(attribute);
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public NomadSpread setAttribute(final String attribute) {
+        this.attribute = Objects.requireNonNull(attribute);
+        return this;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @param weight how strongly the spread is preferred relative to other spreads and affinities, from 1 to 100
+     */
+    public NomadSpread setWeight(final int weight) {
+        if (weight < 1 || weight > 100) {
+            throw new IllegalArgumentException("weight must be between 1 and 100");
+        }
+        this.weight = weight;
+        return this;
+    }
+
+    /**
+     * @return the percentage of allocations to place on clients with each attribute value, or empty to spread evenly
+     */
+    public Map<String, Integer> getTargets() {
+        return targets;
+    }
+
+    public NomadSpread addTarget(final String value, final int percent) {
+        targets.put(Objects.requireNonNull(value), percent);
+        return this;
+    }
+
+    Map<String, Object> toNomad() {
+        final Map<String, Object> spread = new LinkedHashMap<>();
+        spread.put("Attribute", NomadPlacement.interpolated(attribute));
+        spread.put("Weight", weight);
+        if (!targets.isEmpty()) {
+            final List<Map<String, Object>> spreadTargets = new ArrayList<>();
+            targets.forEach((value, percent) -> {
+                final Map<String, Object> target = new LinkedHashMap<>();
+                target.put("Value", value);
+                target.put("Percent", percent);
+                spreadTargets.add(target);
+            });
+            spread.put("SpreadTarget", spreadTargets);
+        }
+        return spread;
+    }
+}
@@ -0,0 +1,119 @@
+package com.ripple.topology;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.hashicorp.nomad.apimodel.TaskGroup;
+import com.ripple.topology.elements.AbstractElementGroup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Co-locates several {@link NomadTask}s of a {@link NomadJob} in a single Nomad task group, so that they're placed
+ * together in one allocation on the same client.  Chatty pairs, such as an application and its database, then talk
+ * over the client's own network rather than across the cluster, using the addresses Nomad gives every task in the
+ * group, such as {@code NOMAD_ADDR_db_db}.
+ * <pre>
+ * - type: NomadJob
+ *   ...
+ *   elements:
+ *   - type: NomadTaskGroup
+ *     name: app-with-db
+ *     affinities:
+ *     - attribute: node.class
+ *       value: fast-disk
+ *     elements:
+ *     - type: NomadTask
+ *       key: app
+ *       ...
+ *     - type: NomadTask
+ *       key: db
+ *       ...
+ * </pre>
+ *
+ * @author jfulton
+ */
+@JsonPropertyOrder({"name", "affinities", "spreads", "elements"})
+public class NomadTaskGroup extends AbstractElementGroup<NomadTaskGroup> implements VariableResolverAware {
+
+    private String name;
+    private final List<NomadAffinity> affinities = new ArrayList<>();
+    private final List<NomadSpread> spreads = new ArrayList<>();
+
+    public NomadTaskGroup() {
+        // Jackson
+    }
+
+    public NomadTaskGroup(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the task group, or if not set, the keys of its tasks joined by dashes
+     */
+    public String getName() {
+        if (name != null) {
+            return name;
+        }
+        return getTasks().stream().map(NomadTask::getKey).collect(Collectors.joining("-"));
+    }
+
+    public NomadTaskGroup setName(final String name) {
+        this.name = name;
+        return this;
+    }
+
+    public List<NomadAffinity> getAffinities() {
+        return affinities;
+    }
+
+    public NomadTaskGroup addAffinity(final NomadAffinity affinity) {
+        affinities.add(affinity);
+        return this;
+    }
+
+    public List<NomadSpread> getSpreads() {
+        return spreads;
+    }
+
+    public NomadTaskGroup addSpread(final NomadSpread spread) {
+        spreads.add(spread);
+        return this;
+    }
+
+    @JsonIgnore
+    public List<NomadTask> getTasks() {
+        final List<NomadTask> tasks = new ArrayList<>();
+        for (Element element : getElements()) {
+            if (element instanceof NomadTask) {
+                tasks.add((NomadTask) element);
+            } else {
+                throw new UnsupportedOperationException(
+                    "Invalid Element type " + element.getClass().getName() + " in " + getClass().getName());
+            }
+        }
+        return tasks;
+    }
+
+    @JsonIgnore
+    public TaskGroup getTaskGroup() {
+        TaskGroup taskGroup = new TaskGroup();
+        taskGroup.setName(getName());
+        for (NomadTask task : getTasks()) {
+            taskGroup.addTasks(task.getTask());
+        }
+        NomadPlacement.apply(taskGroup, affinities, spreads);
+        return taskGroup;
+    }
+
+    @Override
+    public void resolveVariables(final Topology topology, final VariableResolver resolver) {
+        this.name = resolver.resolve(name);
+        for (NomadAffinity affinity : affinities) {
+            affinity.setValue(resolver.resolve(affinity.getValue()));
+        }
+        for (Element element : getElements()) {
+            topology.substituteVariables(element, resolver.clone());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.ripple.topology;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.HttpUrl;
+
+/**
+ * A minimal Nomad server that places each task group of a registered job in its own running allocation, each task
+ * listening on a local port.  The last registered job is reported as running until it's deregistered, and if it has an
+ * update stanza, its allocations report a deployment health and the job a deployment.  The evaluation may instead place
+ * nothing, as when the job was unchanged.  Requests are counted by method and path, with IDs replaced by {@code *}.
+ *
+ * @author jfulton
+ */
+public class FakeNomad implements AutoCloseable {
+
+    private static final String EVALUATION_ID = "eval-1";
+
+    private final HttpServer server;
+    private final Map<String, ServerSocket> tasks = new LinkedHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile ObjectNode job;
+    private volatile boolean healthy = true;
+    private volatile boolean placing = true;
+    private volatile String deploymentStatus = "successful";
+
+    public FakeNomad(final String... taskNames) throws IOException {
+        for (String task : taskNames) {
+            tasks.put(task, new ServerSocket(0));
+        }
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public HttpUrl getUrl() {
+        return HttpUrl.parse("http://localhost:" + server.getAddress().getPort());
+    }
+
+    public int getPort(final String task) {
+        return tasks.get(task).getLocalPort();
+    }
+
+    public FakeNomad setHealthy(final boolean healthy) {
+        this.healthy = healthy;
+        return this;
+    }
+
+    public FakeNomad setPlacing(final boolean placing) {
+        this.placing = placing;
+        return this;
+    }
+
+    public FakeNomad setDeploymentStatus(final String deploymentStatus) {
+        this.deploymentStatus = deploymentStatus;
+        return this;
+    }
+
+    public int getRequests(final String method, final String path) {
+        final AtomicInteger count = requests.get(method + " " + path);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        for (ServerSocket socket : tasks.values()) {
+            socket.close();
+        }
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getPath();
+        final String[] segments = path.split("/");
+        final StringBuilder pattern = new StringBuilder();
+        for (int i = 1; i < segments.length; i++) {
+            pattern.append('/').append(i == 3 ? "*" : segments[i]);
+        }
+        requests.computeIfAbsent(exchange.getRequestMethod() + " " + pattern, key -> new AtomicInteger())
+            .incrementAndGet();
+
+        final String body;
+        final ObjectNode current = job;
+        if (path.equals("/v1/jobs")) {
+            final ObjectNode registered = (ObjectNode) mapper.readTree(exchange.getRequestBody()).get("Job");
+            registered.put("Status", "running");
+            job = registered;
+            body = "{\"EvalID\":\"" + EVALUATION_ID + "\"}";
+        } else if (path.startsWith("/v1/job/") && "DELETE".equals(exchange.getRequestMethod())) {
+            job = null;
+            body = "{\"EvalID\":\"eval-2\"}";
+        } else if (segments.length == 4 && path.startsWith("/v1/job/") && current != null
+            && segments[3].equals(current.get("ID").asText())) {
+            body = mapper.writeValueAsString(current);
+        } else if (path.startsWith("/v1/job/") && path.endsWith("/allocations")) {
+            body = allocations();
+        } else if (path.startsWith("/v1/job/") && path.endsWith("/deployment")) {
+            body = current != null && current.hasNonNull("Update") ? "{\"ID\":\"deployment-1\",\"Status\":\""
+                + deploymentStatus + "\",\"StatusDescription\":\"Deployment " + deploymentStatus + "\","
+                + "\"JobSpecModifyIndex\":10}" : "null";
+        } else if (path.equals("/v1/evaluation/" + EVALUATION_ID)) {
+            body = "{\"ID\":\"" + EVALUATION_ID + "\",\"Status\":\"complete\",\"JobModifyIndex\":10}";
+        } else if (path.equals("/v1/evaluation/" + EVALUATION_ID + "/allocations")) {
+            body = placing ? allocations() : "[]";
+        } else if (path.startsWith("/v1/allocation/")) {
+            body = allocation(path.substring("/v1/allocation/alloc-".length()));
+        } else {
+            respond(exchange, 404, "not found");
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Nomad-Index", "10");
+        exchange.getResponseHeaders().add("X-Nomad-KnownLeader", "true");
+        exchange.getResponseHeaders().add("X-Nomad-LastContact", "0");
+        respond(exchange, 200, body);
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String allocations() {
+        final ObjectNode current = job;
+        final boolean deployment = current != null && current.hasNonNull("Update");
+        final List<String> allocations = new ArrayList<>();
+        for (Map.Entry<String, List<String>> group : groups().entrySet()) {
+            final List<String> states = new ArrayList<>();
+            for (String task : group.getValue()) {
+                states.add("\"" + task + "\":{\"State\":\"running\"}");
+            }
+            allocations.add("{\"ID\":\"alloc-" + group.getKey() + "\",\"EvalID\":\"" + EVALUATION_ID
+                + "\",\"TaskGroup\":\"" + group.getKey() + "\",\"DesiredStatus\":\"run\",\"ClientStatus\":\"running\","
+                + "\"CreateIndex\":10,"
+                + "\"TaskStates\":{" + String.join(",", states) + "}"
+                + (deployment ? ",\"DeploymentStatus\":{\"Healthy\":" + healthy + "}" : "") + "}");
+        }
+        return "[" + String.join(",", allocations) + "]";
+    }
+
+    private String allocation(final String group) {
+        final List<String> resources = new ArrayList<>();
+        for (String task : groups().get(group)) {
+            resources.add("\"" + task + "\":{\"Networks\":[{\"IP\":\"127.0.0.1\",\"DynamicPorts\":[{\"Label\":\""
+                + task + "\",\"Value\":" + getPort(task) + "}]}]}");
+        }
+        return "{\"ID\":\"alloc-" + group + "\",\"ClientStatus\":\"running\",\"TaskResources\":{"
+            + String.join(",", resources) + "}}";
+    }
+
+    /**
+     * @return the names of the tasks in each of the registered job's task groups, or if none is registered, a group
+     * per task
+     */
+    private Map<String, List<String>> groups() {
+        final ObjectNode current = job;
+        final Map<String, List<String>> groups = new LinkedHashMap<>();
+        if (current == null) {
+            for (String task : tasks.keySet()) {
+                groups.put(task, Collections.singletonList(task));
+            }
+            return groups;
+        }
+        for (JsonNode group : current.get("TaskGroups")) {
+            final List<String> names = new ArrayList<>();
+            for (JsonNode task : group.get("Tasks")) {
+                names.add(task.get("Name").asText());
+            }
+            groups.put(group.get("Name").asText(), names);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ripple.topology;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.hashicorp.nomad.javasdk.NomadApiClient;
+import com.ripple.topology.metrics.InMemoryMetrics;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.testng.annotations.Test;
+
+/**
+ * @author jfulton
+ */
+public class NomadClientRegistryTest {
+
+    private static final String URL = "http://localhost:4646";
+
+    @Test
+    public void testSharesClientsAcrossThreads() {
+        NomadClientRegistry registry = new NomadClientRegistry(new InMemoryMetrics());
+        try {
+            List<NomadApiClient> clients = IntStream.range(0, 32)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> registry.getClient(URL)))
+                .collect(Collectors.toList())
+                .stream().map(CompletableFuture::join).collect(Collectors.toList());
+            for (NomadApiClient client : clients) {
+                assertThat(client, is(sameInstance(clients.get(0))));
+            }
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    public void testReportsPoolUtilization() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        NomadClientRegistry registry = new NomadClientRegistry(metrics).setMaxConnectionsPerHost(7);
+        try {
+            registry.getClient(URL);
+            assertThat(registry.getStats(URL).getMax(), is(7));
+            assertThat(metrics.getGauge(MetricNames.NOMAD_POOL_MAX, "host", "localhost:4646").get(), is(7.0));
+            assertThat(metrics.getGauge(MetricNames.NOMAD_POOL_LEASED, "host", "localhost:4646").get(), is(0.0));
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    public void testWatchesGrowThePool() {
+        NomadClientRegistry registry = new NomadClientRegistry(new InMemoryMetrics()).setMaxConnectionsPerHost(7);
+        try {
+            NomadClientRegistry.Watch first = registry.watch(URL);
+            try (NomadClientRegistry.Watch second = registry.watch(URL)) {
+                assertThat(registry.getStats(URL).getMax(), is(9));
+            }
+            assertThat(registry.getStats(URL).getMax(), is(8));
+            first.close();
+            first.close();
+            assertThat(registry.getStats(URL).getMax(), is(7));
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    public void testUnregistersGaugesOnClose() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        NomadClientRegistry registry = new NomadClientRegistry(metrics);
+        registry.getClient(URL);
+        assertThat(metrics.getGauge(MetricNames.NOMAD_POOL_MAX, "host", "localhost:4646").isPresent(), is(true));
+
+        registry.close();
+        assertThat(metrics.getGauge(MetricNames.NOMAD_POOL_MAX, "host", "localhost:4646").isPresent(), is(false));
+        assertThat(metrics.getGauge(MetricNames.NOMAD_POOL_LEASED, "host", "localhost:4646").isPresent(), is(false));
+    }
+
+    @Test
+    public void testResolvesMetricsOnFirstUse() {
+        AtomicReference<Metrics> current = new AtomicReference<>(Metrics.noop());
+        NomadClientRegistry registry = new NomadClientRegistry(current::get);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        current.set(metrics);
+        try {
+            registry.getClient(URL);
+            assertThat(metrics.getGauge(MetricNames.NOMAD_POOL_MAX, "host", "localhost:4646").isPresent(), is(true));
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testClosedWithTopology() {
+        Topology topology = new Topology();
+        NomadClientRegistry registry = NomadClientRegistry.of(topology);
+        assertThat(NomadClientRegistry.of(topology), is(sameInstance(registry)));
+        registry.getClient(URL);
+
+        topology.stopSync();
+        registry.getClient(URL);
+    }
+}
@@ -1,18 +1,31 @@
 package com.ripple.topology;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.testng.Assert.fail;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.net.HostAndPort;
 import com.hashicorp.nomad.apimodel.Job;
+import com.hashicorp.nomad.apimodel.UpdateStrategy;
+import com.hashicorp.nomad.javasdk.NomadJson;
 import com.ripple.topology.elements.EnvironmentConfigurer;
 import com.ripple.topology.elements.PropertiesConfigurer;
+import com.ripple.topology.metrics.InMemoryMetrics;
+import com.ripple.topology.metrics.MetricNames;
 import com.ripple.topology.serialization.TopologyMarshaller;
+import com.ripple.topology.utils.Deadline;
 import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
@@ -871,4 +884,225 @@ public class NomadJobTest {
         ((ExecutorService) executor).shutdown();
 
     }
+
+    @Test
+    public void testStartFetchesEachAllocationOnce() throws Exception {
+        try (FakeNomad nomad = new FakeNomad("web", "worker")) {
+            Topology topology = new Topology();
+            NomadJob job = new NomadJob().setClusterManager(nomad.getUrl()).setGroupId("test-application");
+            job.addElement(new NomadTask("web", "nginx", 80));
+            job.addElement(new NomadTask("worker", "nginx", 80));
+            topology.addElement(job);
+
+            topology.startSync();
+            try {
+                assertThat(topology.getResource("web", NomadTask.class).getHostAndPort(),
+                    is(HostAndPort.fromParts("127.0.0.1", nomad.getPort("web"))));
+                assertThat(topology.getResource("worker", NomadTask.class).getHostAndPort(),
+                    is(HostAndPort.fromParts("127.0.0.1", nomad.getPort("worker"))));
+                assertThat(nomad.getRequests("GET", "/v1/evaluation/*/allocations"), is(1));
+                assertThat(nomad.getRequests("GET", "/v1/allocation/*"), is(2));
+                assertThat(nomad.getRequests("GET", "/v1/job/*/evaluations"), is(0));
+            } finally {
+                topology.stopSync();
+            }
+        }
+    }
+
+    @Test
+    public void testFailsWhenPortIsNotListening() throws Exception {
+        NomadJob job = new NomadJob().setGroupId("test-application");
+        Map<String, HostAndPort> hostsAndPorts = new HashMap<>();
+        int closedPort;
+        try (ServerSocket closed = new ServerSocket(0)) {
+            closedPort = closed.getLocalPort();
+        }
+        try (ServerSocket web = new ServerSocket(0)) {
+            hostsAndPorts.put("web", HostAndPort.fromParts("localhost", web.getLocalPort()));
+            hostsAndPorts.put("worker", HostAndPort.fromParts("localhost", closedPort));
+            try {
+                job.waitForPorts(hostsAndPorts, Deadline.after(Duration.ofMillis(500)));
+                fail("RuntimeException expected");
+            } catch (RuntimeException ex) {
+                assertThat(ex.getMessage(), is("Tasks of job test-application are not listening: worker at localhost:"
+                    + closedPort));
+            }
+        }
+    }
+
+    @Test
+    public void testSkipsRegisteringUnchangedJob() throws Exception {
+        try (FakeNomad nomad = new FakeNomad("web")) {
+            InMemoryMetrics metrics = new InMemoryMetrics();
+            Topology first = new Topology().addElement(new NomadJob().setClusterManager(nomad.getUrl())
+                .setGroupId("test-application").addElement(new NomadTask("web", "nginx", 80)));
+            Topology second = new Topology().setMetrics(metrics).addElement(new NomadJob()
+                .setClusterManager(nomad.getUrl()).setGroupId("test-application")
+                .addElement(new NomadTask("web", "nginx", 80)));
+            Topology changed = new Topology().addElement(new NomadJob().setClusterManager(nomad.getUrl())
+                .setGroupId("test-application").addElement(new NomadTask("web", "nginx", 8080)));
+            try {
+                first.startSync();
+                assertThat(nomad.getRequests("PUT", "/v1/jobs") + nomad.getRequests("POST", "/v1/jobs"), is(1));
+
+                second.startSync();
+                assertThat(nomad.getRequests("PUT", "/v1/jobs") + nomad.getRequests("POST", "/v1/jobs"), is(1));
+                assertThat(nomad.getRequests("GET", "/v1/evaluation/*"), is(1));
+                assertThat(metrics.getCount(MetricNames.NOMAD_JOBS_UNCHANGED), is(1L));
+                assertThat(second.getResource("web", NomadTask.class).getHostAndPort(),
+                    is(HostAndPort.fromParts("127.0.0.1", nomad.getPort("web"))));
+
+                changed.startSync();
+                assertThat(nomad.getRequests("PUT", "/v1/jobs") + nomad.getRequests("POST", "/v1/jobs"), is(2));
+            } finally {
+                changed.stopSync();
+                second.stopSync();
+                first.stopSync();
+            }
+        }
+    }
+
+    @Test
+    public void testSpecHashIgnoresMapOrder() {
+        NomadJob nomadJob = new NomadJob().setGroupId("test-application");
+        nomadJob.addElement(new NomadTask("web", "nginx", 80));
+        Job job = nomadJob.createJob();
+        Job reordered = nomadJob.createJob();
+        job.addMeta("a", "1").addMeta("b", "2");
+        reordered.addMeta("b", "2").addMeta("a", "1");
+        assertThat(NomadJob.specHash(reordered), is(NomadJob.specHash(job)));
+        assertThat(NomadJob.specHash(reordered.addMeta("c", "3")), is(not(NomadJob.specHash(job))));
+    }
+
+    @Test
+    public void testDeploymentHealth() throws Exception {
+        NomadJob nomadJob = new NomadJob().setGroupId("test-application").setDeploymentHealth(true)
+            .setMinHealthyTime(Duration.ofSeconds(5));
+        nomadJob.addElement(new NomadTask("web", "nginx", 80));
+
+        UpdateStrategy update = nomadJob.createJob().getUpdate();
+        assertThat(update.getHealthCheck(), is("checks"));
+        assertThat(update.getMinHealthyTime(), is(Duration.ofSeconds(5).toNanos()));
+        assertThat(update.getHealthyDeadline(), is(Duration.ofSeconds(90).toNanos()));
+
+        try (FakeNomad nomad = new FakeNomad("web")) {
+            Topology topology = new Topology().addElement(nomadJob.setClusterManager(nomad.getUrl()));
+            topology.startSync();
+            try {
+                assertThat(topology.getResource("web", NomadTask.class).getHostAndPort(),
+                    is(HostAndPort.fromParts("127.0.0.1", nomad.getPort("web"))));
+                assertThat(nomad.getRequests("GET", "/v1/job/*/deployment"), is(1));
+            } finally {
+                topology.stopSync();
+            }
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testDeploymentHealthFailsOnUnhealthyAllocation() throws Exception {
+        try (FakeNomad nomad = new FakeNomad("web").setHealthy(false)) {
+            NomadJob nomadJob = new NomadJob().setClusterManager(nomad.getUrl()).setGroupId("test-application")
+                .setDeploymentHealth(true);
+            nomadJob.addElement(new NomadTask("web", "nginx", 80));
+            Topology topology = new Topology().addElement(nomadJob);
+            try {
+                topology.startSync();
+                assertThat(topology.hasFailedDuringStartup(), is(true));
+                assertThat(topology.getResource("web", NomadTask.class).getHostAndPort(), is(nullValue()));
+            } finally {
+                topology.stopSync();
+            }
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testDeploymentHealthFailsOnFailedDeployment() throws Exception {
+        try (FakeNomad nomad = new FakeNomad("web").setDeploymentStatus("failed")) {
+            NomadJob nomadJob = new NomadJob().setClusterManager(nomad.getUrl()).setGroupId("test-application")
+                .setDeploymentHealth(true);
+            nomadJob.addElement(new NomadTask("web", "nginx", 80));
+            Topology topology = new Topology().addElement(nomadJob);
+            try {
+                topology.startSync();
+                assertThat(topology.hasFailedDuringStartup(), is(true));
+                assertThat(nomad.getRequests("GET", "/v1/job/*/deployment"), is(1));
+                assertThat(topology.getResource("web", NomadTask.class).getHostAndPort(), is(nullValue()));
+            } finally {
+                topology.stopSync();
+            }
+        }
+    }
+
+    @Test
+    public void testWaitsForJobAllocationsWhenEvaluationPlacesNone() throws Exception {
+        try (FakeNomad nomad = new FakeNomad("web").setPlacing(false)) {
+            NomadJob nomadJob = new NomadJob().setClusterManager(nomad.getUrl()).setGroupId("test-application")
+                .setForceRegister(true);
+            nomadJob.addElement(new NomadTask("web", "nginx", 80));
+            Topology topology = new Topology().addElement(nomadJob);
+            try {
+                topology.startSync();
+                assertThat(topology.hasFailedDuringStartup(), is(false));
+                assertThat(nomad.getRequests("GET", "/v1/job/*/allocations"), is(1));
+                assertThat(topology.getResource("web", NomadTask.class).getHostAndPort(),
+                    is(HostAndPort.fromParts("127.0.0.1", nomad.getPort("web"))));
+            } finally {
+                topology.stopSync();
+            }
+        }
+    }
+
+    @Test
+    public void testCoLocatedTaskGroup() throws Exception {
+        String input = "---\n"
+            + "elements:\n"
+            + "- type: NomadJob\n"
+            + "  groupId: test-application\n"
+            + "  spreads:\n"
+            + "  - attribute: node.datacenter\n"
+            + "  elements:\n"
+            + "  - type: NomadTaskGroup\n"
+            + "    name: app-with-db\n"
+            + "    affinities:\n"
+            + "    - attribute: node.class\n"
+            + "      value: fast-disk\n"
+            + "      weight: 80\n"
+            + "    elements:\n"
+            + "    - type: NomadTask\n"
+            + "      key: app\n"
+            + "      image: nginx\n"
+            + "      port: 80\n"
+            + "    - type: NomadTask\n"
+            + "      key: db\n"
+            + "      image: postgres\n"
+            + "      port: 5432\n";
+        Topology topology = TopologyMarshaller.forYaml().read(input);
+        NomadJob nomadJob = topology.getElements(NomadJob.class).get(0);
+
+        Job job = nomadJob.createJob();
+        assertThat(job.getTaskGroups().size(), is(1));
+        assertThat(job.getTaskGroups().get(0).getName(), is("app-with-db"));
+        assertThat(job.getTaskGroups().get(0).getTasks().size(), is(2));
+
+        JsonNode json = new ObjectMapper().readTree(NomadJson.serialize(job));
+        JsonNode affinity = json.get("TaskGroups").get(0).get("Affinities").get(0);
+        assertThat(affinity.get("LTarget").asText(), is("${node.class}"));
+        assertThat(affinity.get("RTarget").asText(), is("fast-disk"));
+        assertThat(affinity.get("Weight").asInt(), is(80));
+        assertThat(json.get("Spreads").get(0).get("Attribute").asText(), is("${node.datacenter}"));
+
+        try (FakeNomad nomad = new FakeNomad("app", "db")) {
+            nomadJob.setClusterManager(nomad.getUrl());
+            topology.startSync();
+            try {
+                assertThat(topology.getResource("app", NomadTask.class).getHostAndPort(),
+                    is(HostAndPort.fromParts("127.0.0.1", nomad.getPort("app"))));
+                assertThat(topology.getResource("db", NomadTask.class).getHostAndPort(),
+                    is(HostAndPort.fromParts("127.0.0.1", nomad.getPort("db"))));
+                assertThat(nomad.getRequests("GET", "/v1/allocation/*"), is(1));
+            } finally {
+                topology.stopSync();
+            }
+        }
+    }
 }
@@ -1,11 +1,18 @@
 package com.ripple.topology.elements;
 
 import com.google.common.base.Preconditions;
+import com.ripple.topology.BulkheadAware;
+import com.ripple.topology.DependencyAware;
 import com.ripple.topology.PropertiesAware;
+import com.ripple.topology.TimeoutAware;
 import com.ripple.topology.Topology;
 import com.ripple.topology.VariableResolver;
 import com.ripple.topology.VariableResolverAware;
 import com.ripple.topology.io.Content;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import com.ripple.topology.scheduling.Bulkhead;
+import com.ripple.topology.utils.Backoff;
 import com.ripple.topology.utils.HealthUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,7 +30,8 @@ import java.util.concurrent.atomic.AtomicReference;
 /**
  * @author jfulton
  */
-public class SQLConfigurer implements Configurer, VariableResolverAware, PropertiesAware<SQLConfigurer> {
+public class SQLConfigurer implements Configurer, VariableResolverAware, PropertiesAware<SQLConfigurer>,
+    DependencyAware, TimeoutAware, BulkheadAware {
 
     private static final Logger logger = LoggerFactory.getLogger(SQLConfigurer.class);
     private static final Duration MAX_WAIT = Duration.ofMinutes(3);
@@ -35,6 +43,10 @@ public class SQLConfigurer implements Configurer, VariableResolverAware, Propert
     private List<String> statementFiles = new ArrayList<>();
     private VariableResolver resolver;
     private Properties properties = new Properties();
+    private final List<String> dependsOn = new ArrayList<>();
+    private Duration startTimeout;
+    private Duration stopTimeout;
+    private String bulkhead;
 
     public SQLConfigurer() {
         // Jackson Only
@@ -57,10 +69,13 @@ public class SQLConfigurer implements Configurer, VariableResolverAware, Propert
         dataSource.setPassword(credentials.getPassword());
         dataSource.setConnectionProperties(properties);
 
+        final Metrics metrics = topology.metrics();
         AtomicReference<JdbcTemplate> jdbcTemplateRef = new AtomicReference<>();
-        HealthUtils.waitForHealth(MAX_WAIT, RETRY_PAUSE, "'" + getJdbcUrl() + "'", () -> {
+        final Duration maxWait = topology.deadline(this).cap(MAX_WAIT);
+        HealthUtils.waitForHealth(maxWait, Backoff.fixed(RETRY_PAUSE), "'" + getJdbcUrl() + "'", () -> {
             try {
-                jdbcTemplateRef.set(new JdbcTemplate(dataSource, false));
+                jdbcTemplateRef.set(metrics.timeCall(MetricNames.JDBC_CALL, () -> new JdbcTemplate(dataSource, false),
+                    "operation", "connect"));
                 return true;
             } catch (Exception ex) {
                 return false;
@@ -70,21 +85,29 @@ public class SQLConfigurer implements Configurer, VariableResolverAware, Propert
         if (jdbcTemplateRef.get() != null) {
             logger.info("JDBC Connection established to '{}'", getJdbcUrl());
         } else {
-            logger.warn("JDBC Connection to '{}' could not be established within {} millis", getJdbcUrl(), MAX_WAIT.toMillis());
+            logger.warn("JDBC Connection to '{}' could not be established within {} millis", getJdbcUrl(),
+                maxWait.toMillis());
         }
 
         for (String statement : statements) {
-            jdbcTemplateRef.get().execute(statement);
+            execute(metrics, jdbcTemplateRef.get(), statement);
         }
 
         for (String statementFile : statementFiles) {
             Content content = topology.contentLoader().getContent(statementFile);
             if (content.exists()) {
-                jdbcTemplateRef.get().execute(resolver.resolve(content.asUTF8String()));
+                execute(metrics, jdbcTemplateRef.get(), resolver.resolve(content.asUTF8String()));
             }
         }
     }
 
+    private static void execute(final Metrics metrics, final JdbcTemplate jdbcTemplate, final String statement) {
+        metrics.timeCall(MetricNames.JDBC_CALL, () -> {
+            jdbcTemplate.execute(statement);
+            return null;
+        }, "operation", "execute");
+    }
+
     public SQLCredentials getCredentials() {
         return credentials;
     }
@@ -158,4 +181,44 @@ public class SQLConfigurer implements Configurer, VariableResolverAware, Propert
     public Properties getProperties() {
         return properties;
     }
+
+    @Override
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    @Override
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public SQLConfigurer setStartTimeout(final Duration startTimeout) {
+        this.startTimeout = startTimeout;
+        return this;
+    }
+
+    @Override
+    public Duration getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public SQLConfigurer setStopTimeout(final Duration stopTimeout) {
+        this.stopTimeout = stopTimeout;
+        return this;
+    }
+
+    @Override
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public SQLConfigurer setBulkhead(final String bulkhead) {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    @Override
+    public String getDefaultBulkhead() {
+        return Bulkhead.JDBC;
+    }
 }
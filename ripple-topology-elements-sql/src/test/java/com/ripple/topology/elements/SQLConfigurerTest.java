@@ -1,6 +1,7 @@
 package com.ripple.topology.elements;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.typeCompatibleWith;
 
@@ -86,4 +87,20 @@ public class SQLConfigurerTest {
         assertThat(element.getJdbcUrl(), is("jdbc:postgresql://${db.hostAndPort}/example"));
 
     }
+
+    @Test
+    public void testBulkhead() {
+        assertThat(new SQLConfigurer().getDefaultBulkhead(), is("jdbc"));
+
+        final String input = "---\n"
+            + "elements:\n"
+            + "- type: SQLConfigurer\n"
+            + "  jdbcUrl: jdbc:postgresql://localhost/example\n"
+            + "  bulkhead: postgres\n"
+            ;
+
+        SQLConfigurer element = marshaller.read(input).getElements(SQLConfigurer.class).get(0);
+        assertThat(element.getBulkhead(), is("postgres"));
+        assertThat(marshaller.writeAsString(marshaller.read(input)), containsString("bulkhead: postgres"));
+    }
 }
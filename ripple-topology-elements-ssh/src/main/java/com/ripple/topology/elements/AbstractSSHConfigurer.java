@@ -8,11 +8,20 @@ import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.jcraft.jsch.UserInfo;
+import com.ripple.topology.BulkheadAware;
+import com.ripple.topology.DependencyAware;
 import com.ripple.topology.Resource;
+import com.ripple.topology.TimeoutAware;
 import com.ripple.topology.Topology;
+import com.ripple.topology.metrics.MetricNames;
+import com.ripple.topology.metrics.Metrics;
+import com.ripple.topology.scheduling.Bulkhead;
+import com.ripple.topology.utils.Backoff;
 import com.ripple.topology.utils.HealthUtils;
 import java.io.File;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -24,11 +33,16 @@ import org.slf4j.LoggerFactory;
  */
 @SuppressWarnings("unchecked")
 @JsonPropertyOrder({"hostKey", "username", "privateKey"})
-public abstract class AbstractSSHConfigurer<T extends AbstractSSHConfigurer<T>> implements Configurer {
+public abstract class AbstractSSHConfigurer<T extends AbstractSSHConfigurer<T>> implements Configurer, DependencyAware,
+    TimeoutAware, BulkheadAware {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractSSHConfigurer.class);
     private String hostKey;
     private SSHCredentials credentials;
+    private final List<String> dependsOn = new ArrayList<>();
+    private Duration startTimeout;
+    private Duration stopTimeout;
+    private String bulkhead;
 
     public AbstractSSHConfigurer() {
         // Jackson Only
@@ -57,6 +71,46 @@ public abstract class AbstractSSHConfigurer<T extends AbstractSSHConfigurer<T>>
         return (T) this;
     }
 
+    @Override
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    @Override
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public T setStartTimeout(final Duration startTimeout) {
+        this.startTimeout = startTimeout;
+        return (T) this;
+    }
+
+    @Override
+    public Duration getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public T setStopTimeout(final Duration stopTimeout) {
+        this.stopTimeout = stopTimeout;
+        return (T) this;
+    }
+
+    @Override
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public T setBulkhead(final String bulkhead) {
+        this.bulkhead = bulkhead;
+        return (T) this;
+    }
+
+    @Override
+    public String getDefaultBulkhead() {
+        return Bulkhead.SSH;
+    }
+
     protected HostAndPort calculateHostAndPort(Topology topology) {
         Resource resource = topology.getResource(getHostKey(), Resource.class);
         HostAndPort hostAndPort;
@@ -71,6 +125,29 @@ public abstract class AbstractSSHConfigurer<T extends AbstractSSHConfigurer<T>>
         return hostAndPort;
     }
 
+    /**
+     * Times an SSH operation, reporting its latency and any failure to the Topology's Metrics.
+     */
+    protected <R, E extends Exception> R timeSSH(Topology topology, String operation, SSHCall<R, E> call) throws E {
+        final Metrics metrics = topology.metrics();
+        final long start = System.nanoTime();
+        try {
+            final R result = call.call();
+            metrics.timer(MetricNames.SSH_CALL, "operation", operation, "outcome", "success")
+                .record(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            metrics.timer(MetricNames.SSH_CALL, "operation", operation, "outcome", "failure")
+                .record(System.nanoTime() - start);
+            metrics.counter(MetricNames.FAILURES, "operation", operation, "metric", MetricNames.SSH_CALL).increment();
+            throw e;
+        }
+    }
+
+    /**
+     * @param maxWait the longest to wait for the SSH daemon, shortened to this Configurer's deadline
+     * @return a connected Session, or null if none could be established in time
+     */
     protected Session waitForSession(Topology topology, HostAndPort hostAndPort, Duration maxWait, Duration retryPause) {
         final String host = hostAndPort.getHost();
         final int port = hostAndPort.getPort();
@@ -80,7 +157,8 @@ public abstract class AbstractSSHConfigurer<T extends AbstractSSHConfigurer<T>>
         JSch.setConfig("StrictHostKeyChecking", "no");
 
         AtomicReference<Session> sessionReference = new AtomicReference<>();
-        HealthUtils.waitForHealth(maxWait, retryPause, "'" + getHostKey() + "' SSH Deamon", () -> {
+        HealthUtils.waitForHealth(topology.deadline(this).cap(maxWait), Backoff.fixed(retryPause),
+            "'" + getHostKey() + "' SSH Deamon", () -> {
             try {
                 JSch jSch = new JSch();
                 jSch.addIdentity(file.getAbsolutePath());
@@ -90,7 +168,10 @@ public abstract class AbstractSSHConfigurer<T extends AbstractSSHConfigurer<T>>
                     (int) TimeUnit.SECONDS.toMillis(10)
                 );
                 session.setServerAliveCountMax(1000000);
-                session.connect();
+                timeSSH(topology, "connect", () -> {
+                    session.connect();
+                    return session;
+                });
                 sessionReference.set(session);
                 return true;
             } catch (JSchException e) {
@@ -145,4 +226,9 @@ public abstract class AbstractSSHConfigurer<T extends AbstractSSHConfigurer<T>>
         }
 
     }
+
+    @FunctionalInterface
+    protected interface SSHCall<R, E extends Exception> {
+        R call() throws E;
+    }
 }
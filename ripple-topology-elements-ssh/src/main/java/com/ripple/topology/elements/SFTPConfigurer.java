@@ -55,7 +55,10 @@ public class SFTPConfigurer extends AbstractSSHConfigurer<SFTPConfigurer> implem
                 try (InputStream inputStream = topology.contentLoader().getContent(source).getInputStream()) {
                     try {
                         logger.info("$> scp '{}' '{}'", source, destination);
-                        channel.put(inputStream, destination);
+                        timeSSH(topology, "sftp", () -> {
+                            channel.put(inputStream, destination);
+                            return destination;
+                        });
                     } catch (SftpException e) {
                         logger.error("Error copying {} to {}", source, destination);
                         throw new RuntimeException(e);
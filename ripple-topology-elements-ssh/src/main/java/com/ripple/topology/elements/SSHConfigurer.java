@@ -49,8 +49,10 @@ public class SSHConfigurer extends AbstractSSHConfigurer<SSHConfigurer> {
                 channel.setOutputStream(outputStream);
                 channel.setErrStream(outputStream);
                 channel.setCommand(command);
-                channel.connect();
-                int code = code(session, channel);
+                int code = timeSSH(topology, "exec", () -> {
+                    channel.connect();
+                    return code(session, channel);
+                });
                 String output = outputStream.toString(Charsets.UTF_8.toString());
                 channel.disconnect();
                 
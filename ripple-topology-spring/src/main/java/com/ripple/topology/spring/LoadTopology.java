@@ -21,6 +21,17 @@ public @interface LoadTopology {
     
     Class<? extends TopologyFactory> factory() default TopologyFactory.class;
 
+    /**
+     * The {@link com.ripple.topology.scheduling.TopologyExecutor.Mode} of the Executor used for lifecycle work, such
+     * as "cached", "fixed" or "virtual".  Leave empty to use the Topology's own configuration.
+     */
+    String executor() default "";
+
+    /**
+     * The number of threads used by the "fixed" executor mode.
+     */
+    int executorThreads() default 0;
+
     @Target(ElementType.TYPE)
     @Retention(RetentionPolicy.RUNTIME)
     @Documented
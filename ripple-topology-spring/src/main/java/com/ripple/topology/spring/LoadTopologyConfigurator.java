@@ -3,6 +3,8 @@ package com.ripple.topology.spring;
 import com.ripple.topology.Resource;
 import com.ripple.topology.Topology;
 import com.ripple.topology.TopologyFactory;
+import com.ripple.topology.scheduling.TopologyExecutor;
+import com.ripple.topology.scheduling.TopologyExecutor.Mode;
 import com.ripple.topology.serialization.TopologyMarshaller;
 import com.ripple.topology.spring.util.TopologySynchronousLifecycleManager;
 import java.io.IOException;
@@ -56,6 +58,11 @@ public class LoadTopologyConfigurator implements ImportBeanDefinitionRegistrar,
             throw new RuntimeException("@LoadTopology requires either a valid TopologyFactory or YAML resource"
                 + " specified in order to load a Topology.");
         }
+        String executorMode = annotationAttributes.getString("executor");
+        if (!executorMode.isEmpty()) {
+            topology.setExecutor(new TopologyExecutor(Mode.fromValue(executorMode),
+                annotationAttributes.getNumber("executorThreads").intValue()));
+        }
         topology.registerShutdownHook();
 
         DefaultListableBeanFactory beanFactory = (DefaultListableBeanFactory) registry;